@@ -1,25 +1,50 @@
 package net.vitacraft;
 
+import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.exceptions.InvalidTokenException;
-import net.dv8tion.jda.api.requests.GatewayIntent;
 import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
 import net.dv8tion.jda.api.sharding.ShardManager;
 import net.vitacraft.api.BotEnvironment;
-import net.vitacraft.api.MBModule;
 import net.vitacraft.api.PrimitiveBotEnvironment;
-import net.vitacraft.api.classloader.ModuleLoader;
+import net.vitacraft.api.cache.CacheSpec;
+import net.vitacraft.api.cluster.ClusterCoordinator;
+import net.vitacraft.api.cluster.FileClusterCoordinator;
+import net.vitacraft.api.cluster.ShardRange;
 import net.vitacraft.api.config.ConfigLoader;
+import net.vitacraft.api.config.ConfigRegistry;
+import net.vitacraft.api.config.ConfigSnapshot;
 import net.vitacraft.api.console.Console;
+import net.vitacraft.api.info.ModuleInfo;
 import net.vitacraft.exceptions.BotStartupException;
+import net.vitacraft.manager.CacheManager;
+import net.vitacraft.manager.CommandExecutionMode;
+import net.vitacraft.manager.CommandExecutor;
+import net.vitacraft.manager.CommandHashCache;
 import net.vitacraft.manager.CommandManager;
+import net.vitacraft.manager.CommandRateLimiter;
+import net.vitacraft.manager.ComponentRouter;
+import net.vitacraft.manager.EntityCachePolicy;
+import net.vitacraft.manager.CommandScope;
+import net.vitacraft.manager.EventBus;
+import net.vitacraft.manager.IndexedEventManager;
+import net.vitacraft.manager.IntentPolicy;
+import net.vitacraft.manager.MetricsManager;
+import net.vitacraft.manager.ModuleManager;
+import net.vitacraft.manager.ModuleWatcher;
+import net.vitacraft.manager.OverflowPolicy;
+import net.vitacraft.manager.PrometheusExporter;
+import net.vitacraft.manager.StorageManager;
 import net.vitacraft.api.console.ConsoleUtil;
 import org.simpleyaml.configuration.ConfigurationSection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The main class for initializing and managing the MoBot application.
@@ -29,10 +54,20 @@ import java.util.*;
  * </p>
  */
 public class MoBot {
-    private final List<MBModule> modules = new ArrayList<>();
+    public static final String BOT_CONFIG = "./bot.yml";
+    private static final long SHARD_SHUTDOWN_TIMEOUT_SECONDS = 30;
+    private static final String DEFAULT_RATE_LIMIT_MESSAGE = "You are using this command too quickly. Try again in {seconds} seconds.";
+
+    private final ModuleManager moduleManager;
     private final BotEnvironment botEnvironment;
     private final Logger logger;
     private Console console;
+    private ModuleWatcher moduleWatcher;
+    private final MetricsManager metricsManager = new MetricsManager();
+    private PrometheusExporter prometheusExporter;
+    private IntentPolicy intentPolicy;
+    private ClusterCoordinator clusterCoordinator;
+    private ShardRange shardRange;
 
     public MoBot() {
         Instant startTime = Instant.now();
@@ -45,31 +80,40 @@ public class MoBot {
         // Generate the DefaultShardManagerBuilder without initializing it
         DefaultShardManagerBuilder builder = getBuilder();
 
+        // Reload configuration files when they change on disk
+        if (ConfigRegistry.snapshot(BOT_CONFIG).getBoolean("hot-reload.watch-config", false)) {
+            ConfigRegistry.watchAll();
+        }
+
+        // Collect the entity caches and gateway intents required by bot.yml and the modules
+        ConfigSnapshot botConfig = ConfigRegistry.snapshot(BOT_CONFIG);
+        EntityCachePolicy entityCachePolicy = new EntityCachePolicy(botConfig.getSection("entity-cache"));
+        intentPolicy = new IntentPolicy(botConfig.getStringList("gateway-intents"), botConfig.getBoolean("minimize-intents", false));
+
         // Set up the PrimitiveBotEnvironment and pass in all data available pre enabling
-        PrimitiveBotEnvironment primitiveBotEnvironment = new PrimitiveBotEnvironment(builder, this);
+        PrimitiveBotEnvironment primitiveBotEnvironment = new PrimitiveBotEnvironment(builder, this, entityCachePolicy, intentPolicy);
 
         // Create the modules directory if it does not exist
         createModulesDirectory();
 
-        // Load all modules
-        modules.addAll(ModuleLoader.loadModules(System.getProperty("user.dir") + "/modules"));
-        logger.info("Loaded MoBot modules: {}", modules.size());
-
-        // Sort modules based on priority
-        modules.sort(Comparator.comparing(module -> module.getModuleInfo().priority()));
+        // Load all modules, layer by layer in dependency order
+        moduleManager = createModuleManager();
+        moduleManager.loadModules(System.getProperty("user.dir") + "/modules");
+        logger.info("Loaded MoBot modules: {}", moduleManager.getModules().size());
 
         // Call the preEnable method on all Modules
-        List<String> enabledModules = new ArrayList<>();
-        for (MBModule module : modules) {
-            try {
-                module.preEnable(primitiveBotEnvironment);
-                enabledModules.add(module.getModuleInfo().name());
-            } catch (Exception e) {
-                logger.error(e.getMessage());
-            }
-        }
+        List<String> enabledModules = moduleManager.preEnableModules(primitiveBotEnvironment);
         logger.info("Pre-enabled modules: {}", enabledModules);
 
+        // Enable only the entity caches and gateway intents that bot.yml or a module requires
+        for (ModuleInfo moduleInfo : moduleManager.getModuleInfos()) {
+            entityCachePolicy.require(moduleInfo.name(), moduleInfo.entityCache());
+            intentPolicy.require(moduleInfo.name(), moduleInfo.intents());
+        }
+        entityCachePolicy.apply(builder);
+        intentPolicy.require("entity caches", entityCachePolicy.getRequiredIntents());
+        intentPolicy.apply(builder);
+
         // Start the bot and construct the ShardManager
         ShardManager shardManager;
         try {
@@ -78,27 +122,47 @@ public class MoBot {
         } catch (BotStartupException e) {
             botEnvironment = null;
             logger.error("Bot startup failed: " + e.getMessage());
+            // Release the cluster slot, if one was taken, so another process can run these shards
+            if (clusterCoordinator != null) {
+                clusterCoordinator.close();
+                clusterCoordinator = null;
+            }
             return;
         }
 
         // Initialize the CommandManager
-        CommandManager commandManager = new CommandManager();
+        CommandManager commandManager = createCommandManager(shardManager);
+
+        // Initialize the EventBus, delivering events to every module on its own queue
+        EventBus eventBus = createEventBus();
+        shardManager.addEventListener(eventBus);
+
+        // Initialize the ComponentRouter, routing buttons, select menus and modals by custom id
+        ComponentRouter componentRouter = new ComponentRouter(commandManager.getExecutor());
+        shardManager.addEventListener(componentRouter);
 
         // Set up the BotEnvironment
-        botEnvironment = new BotEnvironment(shardManager, this, commandManager);
+        botEnvironment = new BotEnvironment(shardManager, this, commandManager, metricsManager, eventBus, componentRouter, createCacheManager(), createStorageManager());
+
+        // Export the metrics in the Prometheus format, if enabled
+        startMetricsExport();
 
         // Register the CommandManager
         shardManager.addEventListener(commandManager);
 
+        // Apply changes of bot.yml that do not require a restart
+        ConfigRegistry.get(BOT_CONFIG).addChangeListener((previous, current, changedKeys) -> onBotConfigChange(current, changedKeys));
+
         // Call the onEnable method on all Modules
-        for (MBModule module : modules) {
-            module.setBotEnvironment(botEnvironment);
-            try {
-                module.onEnable();
-                logger.info("Successfully Enabled module {}", module.getModuleInfo().name() + " by " + module.getModuleInfo().authors());
-            } catch (Exception e) {
-                logger.error(e.getMessage());
-            }
+        moduleManager.enableModules(botEnvironment);
+
+        // Register the commands and events of all lazy modules, which are enabled on first use
+        moduleManager.registerLazyModules();
+
+        // Watch the modules directory for changed JAR files
+        if (ConfigRegistry.snapshot(BOT_CONFIG).getBoolean("hot-reload.watch-modules", false)) {
+            moduleWatcher = new ModuleWatcher(moduleManager, moduleManager.getModulesPath());
+            moduleWatcher.start();
         }
 
         // Initialize the Console
@@ -108,17 +172,15 @@ public class MoBot {
     }
 
     private DefaultShardManagerBuilder getBuilder() {
-        ConfigLoader configLoader = new ConfigLoader("./bot.yml");
+        ConfigLoader configLoader = ConfigRegistry.get(BOT_CONFIG);
         configLoader.save();
-        ConfigurationSection config = configLoader.getConfig();
-        String token = config.getString("token");
-        List<String> gateWayIntents = config.getStringList("gateway-intents");
+        ConfigSnapshot config = configLoader.snapshot();
+        String token = config.getString("token", null);
 
         DefaultShardManagerBuilder builder = DefaultShardManagerBuilder.createDefault(token);
 
-        for (String intent : gateWayIntents) {
-            builder.enableIntents(GatewayIntent.valueOf(intent));
-        }
+        // Only pass events to the listener methods handling them
+        builder.setEventManagerProvider(shardId -> new IndexedEventManager());
 
         return builder;
     }
@@ -127,9 +189,12 @@ public class MoBot {
         ShardManager shardManager = null;
         Scanner scanner = new Scanner(System.in);
 
-        ConfigLoader configLoader = new ConfigLoader("./bot.yml");
+        // Only run the shards assigned to this process
+        configureSharding(builder);
+
+        ConfigLoader configLoader = ConfigRegistry.get(BOT_CONFIG);
         ConfigurationSection config = configLoader.getConfig();
-        String token = config.getString("token");
+        String token = configLoader.snapshot().getString("token", null);
 
         if (token == null || token.isEmpty()) {
             ConsoleUtil.print("No Discord Bot-Token found. This might be your first time running the bot. Please enter a valid bot token: ");
@@ -156,6 +221,150 @@ public class MoBot {
         return shardManager;
     }
 
+    private void configureSharding(DefaultShardManagerBuilder builder) throws BotStartupException {
+        ConfigSnapshot config = ConfigRegistry.snapshot(BOT_CONFIG).getSection("sharding");
+        int shardsTotal = config.getInt("total", -1);
+        String coordinator = config.getString("coordinator", "NONE");
+        String shards = config.getString("shards", "");
+        try {
+            if (!coordinator.equalsIgnoreCase("NONE")) {
+                if (shardsTotal <= 0) {
+                    throw new BotStartupException("sharding.total must be set when a cluster coordinator is used.");
+                }
+                clusterCoordinator = createClusterCoordinator(coordinator, config);
+                shardRange = clusterCoordinator.acquire(shardsTotal);
+            } else if (!shards.isBlank()) {
+                if (shardsTotal <= 0) {
+                    throw new BotStartupException("sharding.total must be set when sharding.shards is set.");
+                }
+                shardRange = ShardRange.parse(shards, shardsTotal);
+            }
+        } catch (IOException | ReflectiveOperationException | RuntimeException e) {
+            throw new BotStartupException("Failed to assign the shards of this process: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BotStartupException("Interrupted while waiting for a cluster slot.", e);
+        }
+
+        if (shardsTotal > 0) {
+            builder.setShardsTotal(shardsTotal);
+        }
+        if (shardRange != null) {
+            builder.setShards(shardRange.first(), shardRange.last());
+            logger.info("Running shards {}", shardRange);
+        }
+    }
+
+    private ClusterCoordinator createClusterCoordinator(String name, ConfigSnapshot config) throws ReflectiveOperationException {
+        if (name.equalsIgnoreCase("FILE")) {
+            return new FileClusterCoordinator(config);
+        }
+        return Class.forName(name).asSubclass(ClusterCoordinator.class).getConstructor(ConfigSnapshot.class).newInstance(config);
+    }
+
+    private void onBotConfigChange(ConfigSnapshot config, Set<String> changedKeys) {
+        Set<String> restartRequired = new TreeSet<>(changedKeys);
+        if (restartRequired.remove("rate-limits.message")) {
+            botEnvironment.getCommandManager().getRateLimiter().setRejectionMessage(config.getString("rate-limits.message", DEFAULT_RATE_LIMIT_MESSAGE));
+        }
+        if (!restartRequired.isEmpty()) {
+            logger.info("Changes to {} take effect after a restart.", String.join(", ", restartRequired));
+        }
+    }
+
+    private ModuleManager createModuleManager() {
+        ConfigSnapshot config = ConfigRegistry.snapshot(BOT_CONFIG);
+        int threads = config.getInt("startup.threads", 0);
+        if (threads <= 0) {
+            threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        }
+        long timeoutMillis = config.getLong("startup.module-timeout-seconds", 30) * 1000;
+        return new ModuleManager(threads, timeoutMillis);
+    }
+
+    private CommandManager createCommandManager(ShardManager shardManager) {
+        ConfigSnapshot config = ConfigRegistry.snapshot(BOT_CONFIG);
+        CommandScope scope;
+        try {
+            scope = CommandScope.valueOf(config.getString("command-sync.scope", "GUILD").toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unknown command-sync scope '{}', falling back to GUILD.", config.getString("command-sync.scope", null));
+            scope = CommandScope.GUILD;
+        }
+        long debounceMillis = config.getLong("command-sync.debounce-millis", 2000);
+        CommandHashCache hashCache = new CommandHashCache("modules/.command-cache.yml");
+        CommandRateLimiter rateLimiter = new CommandRateLimiter(config.getString("rate-limits.message", DEFAULT_RATE_LIMIT_MESSAGE), metricsManager);
+        return new CommandManager(shardManager, scope, debounceMillis, hashCache, createCommandExecutor(config), rateLimiter);
+    }
+
+    private CommandExecutor createCommandExecutor(ConfigSnapshot config) {
+        CommandExecutionMode mode = parseExecutionMode(config.getString("command-execution.mode", "VIRTUAL"), CommandExecutionMode.VIRTUAL);
+        Map<String, CommandExecutionMode> overrides = new HashMap<>();
+        ConfigSnapshot overrideSection = config.getSection("command-execution.overrides");
+        for (String command : overrideSection.getKeys("")) {
+            overrides.put(command, parseExecutionMode(overrideSection.getString(command, null), mode));
+        }
+        int threads = config.getInt("command-execution.platform-threads", 0);
+        if (threads <= 0) {
+            threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        }
+        long autoDeferMillis = config.getLong("command-execution.auto-defer-millis", 0);
+        return new CommandExecutor(mode, overrides, threads, autoDeferMillis, metricsManager);
+    }
+
+    private CacheManager createCacheManager() {
+        ConfigSnapshot config = ConfigRegistry.snapshot(BOT_CONFIG);
+        long expireAfterAccessSeconds = config.getLong("caches.default-expire-after-access-seconds", 3600);
+        CacheSpec defaults = CacheSpec.maximumSize(config.getLong("caches.default-maximum-size", 10000))
+                .withExpireAfterAccess(expireAfterAccessSeconds > 0 ? Duration.ofSeconds(expireAfterAccessSeconds) : null);
+        return new CacheManager(defaults, config.getSection("caches.overrides"));
+    }
+
+    private StorageManager createStorageManager() {
+        ConfigSnapshot config = ConfigRegistry.snapshot(BOT_CONFIG);
+        return new StorageManager(Path.of("modules"),
+                config.getBoolean("storage.fsync", true),
+                config.getDouble("storage.compact-garbage-ratio", 0.5),
+                config.getLong("storage.compact-min-bytes", 16L * 1024 * 1024));
+    }
+
+    private EventBus createEventBus() {
+        ConfigSnapshot config = ConfigRegistry.snapshot(BOT_CONFIG);
+        OverflowPolicy overflowPolicy;
+        try {
+            overflowPolicy = OverflowPolicy.valueOf(config.getString("event-bus.overflow-policy", "DROP_OLDEST").toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unknown event-bus overflow policy '{}', falling back to DROP_OLDEST.", config.getString("event-bus.overflow-policy", null));
+            overflowPolicy = OverflowPolicy.DROP_OLDEST;
+        }
+        return new EventBus(config.getInt("event-bus.queue-capacity", 1024), overflowPolicy, metricsManager, intentPolicy.getEnabledIntents());
+    }
+
+    private void startMetricsExport() {
+        ConfigSnapshot config = ConfigRegistry.snapshot(BOT_CONFIG);
+        String file = config.getString("metrics.prometheus-file", "");
+        int port = config.getInt("metrics.prometheus-port", 0);
+        if ((file == null || file.isBlank()) && port <= 0) {
+            return;
+        }
+        prometheusExporter = new PrometheusExporter(metricsManager, botEnvironment.getShardManager());
+        if (file != null && !file.isBlank()) {
+            prometheusExporter.startFileExport(Path.of(file), config.getLong("metrics.export-interval-seconds", 15));
+        }
+        if (port > 0) {
+            prometheusExporter.startHttpServer(port);
+        }
+    }
+
+    private CommandExecutionMode parseExecutionMode(String name, CommandExecutionMode fallback) {
+        try {
+            return CommandExecutionMode.valueOf(String.valueOf(name).toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unknown command execution mode '{}', falling back to {}.", name, fallback);
+            return fallback;
+        }
+    }
+
     private void createModulesDirectory() {
         File modulesDir = new File("modules");
         if (!modulesDir.exists()) {
@@ -168,20 +377,71 @@ public class MoBot {
         }
     }
 
+    private void awaitShardShutdown(ShardManager shardManager) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SHARD_SHUTDOWN_TIMEOUT_SECONDS);
+        try {
+            for (JDA shard : shardManager.getShards()) {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                if (!shard.awaitShutdown(remaining, TimeUnit.NANOSECONDS)) {
+                    logger.warn("Shard {} did not shut down within {} seconds, closing its connection.",
+                            shard.getShardInfo().getShardId(), SHARD_SHUTDOWN_TIMEOUT_SECONDS);
+                    shard.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            shardManager.getShards().forEach(JDA::shutdownNow);
+        }
+    }
+
     public void shutdown() {
         logger.info("Shutting down MoBot...");
 
-        for (MBModule module : modules) {
-            module.onDisable();
+        if (moduleWatcher != null) {
+            moduleWatcher.stop();
+        }
+
+        moduleManager.disableModules();
+
+        if (botEnvironment != null && botEnvironment.getCommandManager() != null) {
+            botEnvironment.getCommandManager().getExecutor().shutdown();
+            botEnvironment.getCommandManager().getRateLimiter().shutdown();
         }
 
         if (botEnvironment != null && botEnvironment.getShardManager() != null) {
-            botEnvironment.getShardManager().shutdown();
+            ShardManager shardManager = botEnvironment.getShardManager();
+            shardManager.shutdown();
+            awaitShardShutdown(shardManager);
             logger.info("Shard manager has been shut down.");
         }
 
-        for (MBModule module : modules) {
-            module.postDisable();
+        // Let another process take over the shards of this process, once they are disconnected here
+        if (clusterCoordinator != null) {
+            clusterCoordinator.close();
+        }
+
+        if (botEnvironment != null && botEnvironment.getEventBus() != null) {
+            botEnvironment.getEventBus().shutdown();
+        }
+
+        moduleManager.postDisableModules();
+
+        if (botEnvironment != null && botEnvironment.getCacheManager() != null) {
+            botEnvironment.getCacheManager().shutdown();
+        }
+
+        // Commit the queued writes of stores that modules did not close themselves
+        if (botEnvironment != null && botEnvironment.getStorageManager() != null) {
+            botEnvironment.getStorageManager().shutdown();
+        }
+
+        if (prometheusExporter != null) {
+            prometheusExporter.stop();
+        }
+
+        // Write all configuration files that are still waiting to be saved
+        if (!ConfigLoader.flushSaves(5000)) {
+            logger.warn("Not all configuration files could be saved before shutting down.");
         }
 
         logger.info("See you soon!.");
@@ -191,10 +451,40 @@ public class MoBot {
         return logger;
     }
 
+    public BotEnvironment getBotEnvironment() {
+        return botEnvironment;
+    }
+
     public Console getConsole() {
         return console;
     }
 
+    public ModuleManager getModuleManager() {
+        return moduleManager;
+    }
+
+    public MetricsManager getMetricsManager() {
+        return metricsManager;
+    }
+
+    /**
+     * Returns the range of shards run by this process.
+     *
+     * @return the {@link ShardRange}, or {@code null} if this process runs all shards
+     */
+    public ShardRange getShardRange() {
+        return shardRange;
+    }
+
+    /**
+     * Returns the coordinator that assigned the shards of this process.
+     *
+     * @return the {@link ClusterCoordinator}, or {@code null} if no coordinator is used
+     */
+    public ClusterCoordinator getClusterCoordinator() {
+        return clusterCoordinator;
+    }
+
     public static void main(String[] args) {
         MoBot bot = new MoBot();
         Runtime.getRuntime().addShutdownHook(new Thread(bot::shutdown));
@@ -2,7 +2,12 @@ package net.vitacraft.api;
 
 import net.dv8tion.jda.api.sharding.ShardManager;
 import net.vitacraft.MoBot;
+import net.vitacraft.manager.CacheManager;
 import net.vitacraft.manager.CommandManager;
+import net.vitacraft.manager.ComponentRouter;
+import net.vitacraft.manager.EventBus;
+import net.vitacraft.manager.MetricsManager;
+import net.vitacraft.manager.StorageManager;
 
 /**
  * The {@code BotEnvironment} class encapsulates the core components required to operate
@@ -21,6 +26,11 @@ public class BotEnvironment {
     private final ShardManager shardManager;
     private final MoBot moBot;
     private final CommandManager commandManager;
+    private final MetricsManager metricsManager;
+    private final EventBus eventBus;
+    private final ComponentRouter componentRouter;
+    private final CacheManager cacheManager;
+    private final StorageManager storageManager;
 
     /**
      * Constructs a new {@code BotEnvironment} object with the specified {@link ShardManager},
@@ -29,11 +39,21 @@ public class BotEnvironment {
      * @param shardManager    the {@link ShardManager} responsible for managing bot shards
      * @param moBot           the main instance of {@link MoBot}
      * @param commandManager  the {@link CommandManager} responsible for handling commands
+     * @param metricsManager  the {@link MetricsManager} collecting command and module metrics
+     * @param eventBus        the {@link EventBus} delivering events to the modules
+     * @param componentRouter the {@link ComponentRouter} routing button, select menu and modal interactions
+     * @param cacheManager    the {@link CacheManager} creating the caches of the modules
+     * @param storageManager  the {@link StorageManager} opening the persistent stores of the modules
      */
-    public BotEnvironment(ShardManager shardManager, MoBot moBot, CommandManager commandManager) {
+    public BotEnvironment(ShardManager shardManager, MoBot moBot, CommandManager commandManager, MetricsManager metricsManager, EventBus eventBus, ComponentRouter componentRouter, CacheManager cacheManager, StorageManager storageManager) {
         this.shardManager = shardManager;
         this.moBot = moBot;
         this.commandManager = commandManager;
+        this.metricsManager = metricsManager;
+        this.eventBus = eventBus;
+        this.componentRouter = componentRouter;
+        this.cacheManager = cacheManager;
+        this.storageManager = storageManager;
     }
 
     /**
@@ -63,4 +83,50 @@ public class BotEnvironment {
     public CommandManager getCommandManager() {
         return commandManager;
     }
+
+    /**
+     * Returns the {@link MetricsManager} collecting the invocation counts, error counts and latencies
+     * of all commands and modules.
+     *
+     * @return the {@link MetricsManager}
+     */
+    public MetricsManager getMetricsManager() {
+        return metricsManager;
+    }
+
+    /**
+     * Returns the {@link EventBus} delivering events to the modules, each on its own queue.
+     *
+     * @return the {@link EventBus}
+     */
+    public EventBus getEventBus() {
+        return eventBus;
+    }
+
+    /**
+     * Returns the {@link ComponentRouter} routing button, select menu and modal interactions.
+     *
+     * @return the {@link ComponentRouter}
+     */
+    public ComponentRouter getComponentRouter() {
+        return componentRouter;
+    }
+
+    /**
+     * Returns the {@link CacheManager} creating the caches of the modules.
+     *
+     * @return the {@link CacheManager}
+     */
+    public CacheManager getCacheManager() {
+        return cacheManager;
+    }
+
+    /**
+     * Returns the {@link StorageManager} opening the persistent stores of the modules.
+     *
+     * @return the {@link StorageManager}
+     */
+    public StorageManager getStorageManager() {
+        return storageManager;
+    }
 }
@@ -1,16 +1,36 @@
 package net.vitacraft.api;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.vitacraft.api.addons.AutoCompleteAddon;
+import net.vitacraft.api.addons.ButtonAddon;
+import net.vitacraft.api.addons.ModalAddon;
+import net.vitacraft.api.addons.SelectMenuAddon;
 import net.vitacraft.api.addons.SlashCommandAddon;
+import net.vitacraft.api.cache.CacheSpec;
+import net.vitacraft.api.cache.ModuleCache;
+import net.vitacraft.api.classloader.ModuleClassLoader;
+import net.vitacraft.api.classloader.ModuleConfigReader;
+import net.vitacraft.api.config.ConfigChangeListener;
 import net.vitacraft.api.config.ConfigLoader;
+import net.vitacraft.api.config.ConfigRegistry;
+import net.vitacraft.api.config.ConfigSnapshot;
 import net.vitacraft.api.info.ModuleInfo;
-import net.vitacraft.api.info.StartUpPriority;
-import org.simpleyaml.configuration.ConfigurationSection;
+import net.vitacraft.api.metrics.InvocationMetrics;
+import net.vitacraft.api.storage.KeyValueStore;
+import net.vitacraft.manager.RateLimit;
+import net.vitacraft.utils.ComponentState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
 
 /**
  * Represents a module within the bot,
@@ -25,6 +45,12 @@ public class MBModule {
     private final ModuleInfo moduleInfo;
     private final Logger logger;
     private final ConfigLoader defaultConfig;
+    private final List<Object> eventListeners = new CopyOnWriteArrayList<>();
+    private final List<String> registeredCommands = new CopyOnWriteArrayList<>();
+    private final List<String> registeredSubcommands = new CopyOnWriteArrayList<>();
+    private final Map<String, Set<String>> registeredAutoCompletes = new ConcurrentHashMap<>();
+    private final List<String> registeredComponents = new CopyOnWriteArrayList<>();
+    private final Map<ConfigLoader, List<ConfigChangeListener>> configChangeListeners = new ConcurrentHashMap<>();
 
     /**
      * Constructs a new {@link MBModule} instance.
@@ -33,33 +59,24 @@ public class MBModule {
      * </p>
      */
     public MBModule(){
-        moduleInfo = retrieveModuleInfo();
+        if (getClass().getClassLoader() instanceof ModuleClassLoader moduleClassLoader) {
+            moduleInfo = moduleClassLoader.getModuleInfo();
+        } else {
+            moduleInfo = retrieveModuleInfo();
+        }
         logger = LoggerFactory.getLogger(moduleInfo.name());
         defaultConfig = generateConfig("config.yml");
     }
 
     /**
      * Retrieves module information from the module's configuration file.
+     * Only used if the module was not loaded by a {@link ModuleClassLoader}, which already provides the information.
      *
      * @return a {@link ModuleInfo} instance containing the module's metadata
      */
     private ModuleInfo retrieveModuleInfo() {
         ConfigLoader configLoader = new ConfigLoader(this.getClass(), "module.yml");
-        ConfigurationSection config = configLoader.getConfig();
-        String name = config.getString("name");
-        String version = config.getString("version");
-        String description = config.getString("description");
-        List<String> authors = config.getStringList("authors");
-        List<String> dependencies = config.getStringList("dependencies");
-        StartUpPriority startUpPriority;
-
-        try {
-            startUpPriority = StartUpPriority.valueOf(config.getString("priority"));
-        } catch (IllegalArgumentException e) {
-            startUpPriority = StartUpPriority.DEFAULT;
-        }
-
-        return new ModuleInfo(name, version, description, authors, dependencies, startUpPriority);
+        return ModuleConfigReader.readModuleInfo(configLoader.getConfig());
     }
 
     /**
@@ -68,12 +85,14 @@ public class MBModule {
      * @return a {@link ConfigLoader} instance for the module's configuration
      */
     private ConfigLoader generateConfig(String resourceName) {
+        return generateConfig(resourceName, false);
+    }
+
+    private ConfigLoader generateConfig(String resourceName, boolean binarySnapshot) {
         try {
             Path configDir = Paths.get("modules" + "/" + moduleInfo.name());
             Files.createDirectories(configDir);
-            ConfigLoader configLoader = new ConfigLoader(this.getClass(), resourceName, configDir);
-            configLoader.save();
-            return configLoader;
+            return ConfigRegistry.get(this.getClass(), resourceName, configDir, binarySnapshot);
         } catch (Exception e) {
             logger.error("Failed to generate configuration", e);
         }
@@ -137,21 +156,261 @@ public class MBModule {
 
     /**
      * Registers a slash command with the bot's command manager.
+     * <p>
+     * If the module configuration contains a rate limit for the command in its {@code rate-limits} section,
+     * the rate limit is applied to the command.
+     * </p>
      *
      * @param data the {@link CommandData} for the slash command
      * @param addon the {@link SlashCommandAddon} to handle the slash command
      */
     public void registerSlashCommand(CommandData data, SlashCommandAddon addon){
-        botEnvironment.getCommandManager().registerCommand(data, addon);
+        registerSlashCommand(data, addon, readRateLimit(data.getName()));
+    }
+
+    /**
+     * Registers a slash command with the bot's command manager and limits how often it can be used.
+     *
+     * @param data the {@link CommandData} for the slash command
+     * @param addon the {@link SlashCommandAddon} to handle the slash command
+     * @param rateLimit the {@link RateLimit} of the command, or {@code null} for no rate limit
+     */
+    public void registerSlashCommand(CommandData data, SlashCommandAddon addon, RateLimit rateLimit){
+        registeredCommands.add(data.getName());
+        botEnvironment.getCommandManager().setRateLimit(data.getName(), rateLimit);
+        botEnvironment.getCommandManager().registerCommand(data, measure(addon));
     }
 
     /**
-     * Registers event listeners with the bot's shard manager.
+     * Registers a handler for a subcommand group or subcommand of a slash command registered by this module.
+     *
+     * @param fullCommandName the full name of the subcommand (e.g., "config channel set")
+     * @param addon the {@link SlashCommandAddon} to handle the subcommand
+     */
+    public void registerSlashSubcommand(String fullCommandName, SlashCommandAddon addon){
+        registerSlashSubcommand(fullCommandName, addon, readRateLimit(fullCommandName));
+    }
+
+    /**
+     * Registers a handler for a subcommand group or subcommand of a slash command registered by this module
+     * and limits how often it can be used.
+     *
+     * @param fullCommandName the full name of the subcommand (e.g., "config channel set")
+     * @param addon the {@link SlashCommandAddon} to handle the subcommand
+     * @param rateLimit the {@link RateLimit} of the subcommand, or {@code null} for no rate limit
+     */
+    public void registerSlashSubcommand(String fullCommandName, SlashCommandAddon addon, RateLimit rateLimit){
+        registeredSubcommands.add(fullCommandName);
+        botEnvironment.getCommandManager().setRateLimit(fullCommandName, rateLimit);
+        botEnvironment.getCommandManager().registerSubcommand(fullCommandName, measure(addon));
+    }
+
+    /**
+     * Registers a handler suggesting values for an option of a slash command registered by this module.
+     *
+     * @param fullCommandName the name of the command or the full name of the subcommand (e.g., "config channel set")
+     * @param optionName the name of the option, which must be declared with autocomplete enabled
+     * @param addon the {@link AutoCompleteAddon} suggesting the values
+     */
+    public void registerAutoComplete(String fullCommandName, String optionName, AutoCompleteAddon addon){
+        registeredAutoCompletes.computeIfAbsent(fullCommandName, key -> ConcurrentHashMap.newKeySet()).add(optionName);
+        botEnvironment.getCommandManager().registerAutoComplete(fullCommandName, optionName, addon);
+    }
+
+    /**
+     * Returns the options of all autocomplete handlers registered by this module, by the full name of their command.
+     *
+     * @return an unmodifiable view of the registered autocomplete options
+     */
+    public Map<String, Set<String>> getRegisteredAutoCompletes() {
+        return Collections.unmodifiableMap(registeredAutoCompletes);
+    }
+
+    /**
+     * Registers a handler for all buttons whose custom id has the given namespace.
+     * Custom ids are built with {@link ComponentState#write(String, int)}.
+     *
+     * @param namespace the namespace of the custom ids
+     * @param addon the {@link ButtonAddon} to handle the clicks
+     * @throws IllegalStateException if another module already registered a button handler for the namespace
+     */
+    public void registerButton(String namespace, ButtonAddon addon){
+        botEnvironment.getComponentRouter().registerButton(moduleInfo.name(), namespace, addon);
+        registeredComponents.add(namespace);
+    }
+
+    /**
+     * Registers a handler for all select menus whose custom id has the given namespace.
+     * Custom ids are built with {@link ComponentState#write(String, int)}.
+     *
+     * @param namespace the namespace of the custom ids
+     * @param addon the {@link SelectMenuAddon} to handle the selections
+     * @throws IllegalStateException if another module already registered a select menu handler for the namespace
+     */
+    public void registerSelectMenu(String namespace, SelectMenuAddon addon){
+        botEnvironment.getComponentRouter().registerSelectMenu(moduleInfo.name(), namespace, addon);
+        registeredComponents.add(namespace);
+    }
+
+    /**
+     * Registers a handler for all modals whose custom id has the given namespace.
+     * Custom ids are built with {@link ComponentState#write(String, int)}.
+     *
+     * @param namespace the namespace of the custom ids
+     * @param addon the {@link ModalAddon} to handle the submissions
+     * @throws IllegalStateException if another module already registered a modal handler for the namespace
+     */
+    public void registerModal(String namespace, ModalAddon addon){
+        botEnvironment.getComponentRouter().registerModal(moduleInfo.name(), namespace, addon);
+        registeredComponents.add(namespace);
+    }
+
+    /**
+     * Returns the namespaces of all component handlers registered by this module.
+     *
+     * @return an unmodifiable list of the registered namespaces
+     */
+    public List<String> getRegisteredComponents() {
+        return Collections.unmodifiableList(registeredComponents);
+    }
+
+    /**
+     * Reads the rate limit of a command from the {@code rate-limits} section of the module configuration, for example:
+     * <pre>
+     * rate-limits:
+     *   "config set":
+     *     permits: 3
+     *     period-seconds: 10
+     *     scope: USER
+     * </pre>
+     *
+     * @param fullCommandName the name of the command or the full name of the subcommand
+     * @return the configured {@link RateLimit}, or {@code null} if none is configured
+     */
+    private RateLimit readRateLimit(String fullCommandName) {
+        if (defaultConfig == null) {
+            return null;
+        }
+        ConfigSnapshot section = defaultConfig.snapshot().getSection("rate-limits." + fullCommandName);
+        if (section.asMap().isEmpty()) {
+            return null;
+        }
+        try {
+            return new RateLimit(section.getInt("permits", 0), Duration.ofMillis((long) (section.getDouble("period-seconds", 0) * 1000)),
+                    RateLimit.Scope.valueOf(section.getString("scope", "USER").toUpperCase()));
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid rate limit for command {}: {}", fullCommandName, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Wraps a command handler, so its invocations are recorded in the metrics of this module.
+     *
+     * @param addon the {@link SlashCommandAddon} to wrap
+     * @return the measured {@link SlashCommandAddon}
+     */
+    private SlashCommandAddon measure(SlashCommandAddon addon) {
+        InvocationMetrics metrics = botEnvironment.getMetricsManager().getModuleMetrics(moduleInfo.name());
+        return event -> {
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                addon.execute(event);
+                failed = false;
+            } finally {
+                metrics.record(System.nanoTime() - start, failed);
+            }
+        };
+    }
+
+    /**
+     * Returns the names of all slash commands registered by this module.
+     *
+     * @return an unmodifiable list of the registered command names
+     */
+    public List<String> getRegisteredCommands() {
+        return Collections.unmodifiableList(registeredCommands);
+    }
+
+    /**
+     * Returns the full names of all subcommand handlers registered by this module.
+     *
+     * @return an unmodifiable list of the registered subcommand names
+     */
+    public List<String> getRegisteredSubcommands() {
+        return Collections.unmodifiableList(registeredSubcommands);
+    }
+
+    /**
+     * Registers event listeners with the bot.
+     * <p>
+     * Listeners are registered with the {@link net.vitacraft.manager.EventBus}, which delivers events to all listeners
+     * of this module on the module's own worker thread, in the order they were received. Listeners may implement
+     * {@link net.dv8tion.jda.api.hooks.EventListener} or annotate their methods with {@link net.dv8tion.jda.api.hooks.SubscribeEvent},
+     * and only receive the events they handle. The time this module takes to handle every event is recorded in its metrics.
+     * </p>
      *
      * @param listeners the event listeners to be registered
      */
     public void registerEventListener(Object... listeners){
-        botEnvironment.getShardManager().addEventListener(listeners);
+        eventListeners.addAll(List.of(listeners));
+        botEnvironment.getEventBus().register(moduleInfo.name(), listeners);
+    }
+
+    /**
+     * Creates a bounded cache owned by this module, which is dropped when the module is disabled.
+     * <p>
+     * Limits not set in the {@link CacheSpec} are taken from the {@code caches} section of bot.yml,
+     * where they can also be overridden for this cache with {@code caches.overrides.<module>.<name>}.
+     * </p>
+     *
+     * @param name the name of the cache, unique within this module
+     * @param spec the limits of the cache
+     * @param <K>  the type of the keys
+     * @param <V>  the type of the values
+     * @return the new {@link ModuleCache}
+     */
+    public <K, V> ModuleCache<K, V> createCache(String name, CacheSpec spec){
+        return botEnvironment.getCacheManager().createCache(moduleInfo.name(), name, spec, null);
+    }
+
+    /**
+     * Creates a bounded cache owned by this module that loads missing entries, which is dropped when the module is disabled.
+     * The loader runs on a virtual thread and may block.
+     *
+     * @param name   the name of the cache, unique within this module
+     * @param spec   the limits of the cache
+     * @param loader the function computing missing entries
+     * @param <K>    the type of the keys
+     * @param <V>    the type of the values
+     * @return the new {@link ModuleCache}
+     */
+    public <K, V> ModuleCache<K, V> createCache(String name, CacheSpec spec, Function<? super K, ? extends V> loader){
+        return botEnvironment.getCacheManager().createCache(moduleInfo.name(), name, spec, loader);
+    }
+
+    /**
+     * Returns a persistent key-value store owned by this module, opening it on first use.
+     * <p>
+     * The store is kept in {@code modules/<module>/data/<name>/} and is closed when the module is disabled, after all
+     * queued writes were committed. Calling this method again with the same name returns the same store.
+     * </p>
+     *
+     * @param name the name of the store, unique within this module
+     * @return the {@link KeyValueStore}
+     */
+    public KeyValueStore getStore(String name){
+        return botEnvironment.getStorageManager().getStore(moduleInfo.name(), name);
+    }
+
+    /**
+     * Returns all event listeners registered by this module.
+     *
+     * @return an unmodifiable list of the registered event listeners
+     */
+    public List<Object> getEventListeners() {
+        return Collections.unmodifiableList(eventListeners);
     }
 
     /**
@@ -181,6 +440,34 @@ public class MBModule {
         return logger;
     }
 
+    /**
+     * Registers a listener that is notified when a configuration file of this module is changed on disk.
+     * <p>
+     * Files are only watched if {@code hot-reload.watch-config} is enabled in bot.yml. The listener is called on the
+     * watcher thread and removed when the module is unloaded.
+     * </p>
+     *
+     * @param resourceName the name of the configuration file (e.g., "config.yml")
+     * @param listener     the {@link ConfigChangeListener} to register
+     */
+    public void registerConfigChangeListener(String resourceName, ConfigChangeListener listener){
+        ConfigLoader configLoader = generateConfig(resourceName);
+        if (configLoader == null) {
+            return;
+        }
+        configChangeListeners.computeIfAbsent(configLoader, key -> new CopyOnWriteArrayList<>()).add(listener);
+        configLoader.addChangeListener(listener);
+    }
+
+    /**
+     * Returns all configuration change listeners registered by this module, by the {@link ConfigLoader} they listen to.
+     *
+     * @return an unmodifiable view of the registered listeners
+     */
+    public Map<ConfigLoader, List<ConfigChangeListener>> getConfigChangeListeners() {
+        return Collections.unmodifiableMap(configChangeListeners);
+    }
+
     /**
      * Returns the {@link ConfigLoader} for this module.
      *
@@ -192,6 +479,7 @@ public class MBModule {
 
     /**
      * Returns a {@link ConfigLoader} instance for the specified resource file.
+     * The file is only created and parsed on the first call, later calls return the same {@link ConfigLoader}.
      *
      * @param resourceName the name of the resource file (e.g., "options.yml").
      * @return a {@link ConfigLoader} instance for the specified resource file
@@ -199,4 +487,19 @@ public class MBModule {
     public ConfigLoader getConfigLoader(String resourceName) {
         return generateConfig(resourceName);
     }
+
+    /**
+     * Returns a {@link ConfigLoader} instance for the specified resource file, optionally keeping a binary snapshot of it.
+     * <p>
+     * With a binary snapshot, large data files are read from the snapshot on startup instead of being parsed as YAML.
+     * Read such files through {@link ConfigLoader#snapshot()}, as {@link ConfigLoader#getConfig()} still parses the YAML file.
+     * </p>
+     *
+     * @param resourceName   the name of the resource file (e.g., "guilds.yml").
+     * @param binarySnapshot whether to keep a binary snapshot of the file
+     * @return a {@link ConfigLoader} instance for the specified resource file
+     */
+    public ConfigLoader getConfigLoader(String resourceName, boolean binarySnapshot) {
+        return generateConfig(resourceName, binarySnapshot);
+    }
 }
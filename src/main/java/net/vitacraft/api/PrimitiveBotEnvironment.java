@@ -1,7 +1,15 @@
 package net.vitacraft.api;
 
+import net.dv8tion.jda.api.requests.GatewayIntent;
 import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
 import net.vitacraft.MoBot;
+import net.vitacraft.manager.EntityCachePolicy;
+import net.vitacraft.manager.IntentPolicy;
+
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Provides a basic bot environment with access to the {@link DefaultShardManagerBuilder}
@@ -14,20 +22,30 @@ import net.vitacraft.MoBot;
 public class PrimitiveBotEnvironment {
     private final DefaultShardManagerBuilder builder;
     private final MoBot moBot;
+    private final EntityCachePolicy entityCachePolicy;
+    private final IntentPolicy intentPolicy;
 
     /**
      * Constructs a new {@link PrimitiveBotEnvironment} with the specified builder and bot instance.
      *
      * @param builder the {@link DefaultShardManagerBuilder} used to configure the shard manager
      * @param moBot the instance of {@link MoBot} representing the bot
+     * @param entityCachePolicy the {@link EntityCachePolicy} collecting the entity caches required by the modules
+     * @param intentPolicy the {@link IntentPolicy} collecting the gateway intents required by the modules
      */
-    public PrimitiveBotEnvironment(DefaultShardManagerBuilder builder, MoBot moBot) {
+    public PrimitiveBotEnvironment(DefaultShardManagerBuilder builder, MoBot moBot, EntityCachePolicy entityCachePolicy, IntentPolicy intentPolicy) {
         this.builder = builder;
         this.moBot = moBot;
+        this.entityCachePolicy = entityCachePolicy;
+        this.intentPolicy = intentPolicy;
     }
 
     /**
      * Returns the {@link DefaultShardManagerBuilder} used to configure the shard manager.
+     * <p>
+     * Modules without a dependency relationship may be pre-enabled in parallel, so prefer
+     * {@link #configureBuilder(Consumer)} when modifying the builder.
+     * </p>
      *
      * @return the {@link DefaultShardManagerBuilder}
      */
@@ -35,6 +53,56 @@ public class PrimitiveBotEnvironment {
         return builder;
     }
 
+    /**
+     * Applies changes to the {@link DefaultShardManagerBuilder} while holding its lock,
+     * so modules that are pre-enabled in parallel do not modify the builder concurrently.
+     *
+     * @param configurer the action applied to the {@link DefaultShardManagerBuilder}
+     */
+    public void configureBuilder(Consumer<DefaultShardManagerBuilder> configurer) {
+        synchronized (builder) {
+            configurer.accept(builder);
+        }
+    }
+
+    /**
+     * Enables gateway intents this module needs, in addition to the intents listed in the {@code intents} of its
+     * {@code module.yml}. With {@code minimize-intents} enabled in bot.yml, intents no module requires are disabled.
+     *
+     * @param moduleName the name of the module, shown when privileged intents are enabled
+     * @param intents    the {@link GatewayIntent}s to enable
+     */
+    public void requireIntents(String moduleName, GatewayIntent... intents) {
+        intentPolicy.require(moduleName, List.of(intents));
+    }
+
+    /**
+     * Enables JDA cache flags this module needs. All cache flags not required by bot.yml or any module are disabled,
+     * so modules must request every cache flag they use, here or in the {@code entity-cache} section of {@code module.yml}.
+     *
+     * @param flags the {@link CacheFlag}s to enable
+     */
+    public void requireCacheFlags(CacheFlag... flags) {
+        entityCachePolicy.requireCacheFlags(flags);
+    }
+
+    /**
+     * Caches the members matching a policy, in addition to the members cached for bot.yml and other modules.
+     *
+     * @param policy the {@link MemberCachePolicy} of the members this module needs cached
+     */
+    public void requireMemberCachePolicy(MemberCachePolicy policy) {
+        entityCachePolicy.requireMemberCachePolicy(policy);
+    }
+
+    /**
+     * Requests the complete member list of every guild, unless bot.yml selects the guilds to request members of.
+     * Chunking is expensive for large bots and should only be required by modules that cannot work without it.
+     */
+    public void requireChunking() {
+        entityCachePolicy.requireChunking();
+    }
+
     /**
      * Returns the instance of {@link MoBot} representing the bot.
      *
@@ -0,0 +1,34 @@
+package net.vitacraft.api.addons;
+
+import net.dv8tion.jda.api.events.interaction.command.CommandAutoCompleteInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.build.OptionData;
+import net.vitacraft.utils.PrefixIndex;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents a handler suggesting values for an option of a slash command while the user is typing it.
+ * <p>
+ * Discord only waits three seconds for suggestions, so handlers should answer from memory.
+ * For large static sets of values, {@link #ofChoices(PrefixIndex)} answers from a {@link PrefixIndex}.
+ * </p>
+ */
+public interface AutoCompleteAddon {
+
+    /**
+     * Suggests values for the focused option of the interaction.
+     * Suggestions are sent with {@link CommandAutoCompleteInteractionEvent#replyChoices(java.util.Collection)} or one of its variants.
+     *
+     * @param event the CommandAutoCompleteInteractionEvent containing the command and the focused option
+     */
+    void complete(@NotNull CommandAutoCompleteInteractionEvent event);
+
+    /**
+     * Creates an {@link AutoCompleteAddon} suggesting the values of a {@link PrefixIndex} starting with the typed text.
+     *
+     * @param index the {@link PrefixIndex} of all values
+     * @return the {@link AutoCompleteAddon}
+     */
+    static AutoCompleteAddon ofChoices(PrefixIndex index) {
+        return event -> event.replyChoiceStrings(index.search(event.getFocusedOption().getValue(), OptionData.MAX_CHOICES)).queue();
+    }
+}
@@ -0,0 +1,19 @@
+package net.vitacraft.api.addons;
+
+import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+import net.vitacraft.utils.ComponentState;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents a handler for clicks on buttons whose custom id starts with a registered namespace.
+ */
+public interface ButtonAddon {
+
+    /**
+     * Handles a click on a button.
+     *
+     * @param event the ButtonInteractionEvent containing information about the click
+     * @param state the {@link ComponentState} decoded from the custom id of the button
+     */
+    void execute(@NotNull ButtonInteractionEvent event, @NotNull ComponentState state);
+}
@@ -0,0 +1,19 @@
+package net.vitacraft.api.addons;
+
+import net.dv8tion.jda.api.events.interaction.ModalInteractionEvent;
+import net.vitacraft.utils.ComponentState;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents a handler for submitted modals whose custom id starts with a registered namespace.
+ */
+public interface ModalAddon {
+
+    /**
+     * Handles a submitted modal.
+     *
+     * @param event the ModalInteractionEvent containing the submitted values
+     * @param state the {@link ComponentState} decoded from the custom id of the modal
+     */
+    void execute(@NotNull ModalInteractionEvent event, @NotNull ComponentState state);
+}
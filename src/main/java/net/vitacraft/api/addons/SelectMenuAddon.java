@@ -0,0 +1,19 @@
+package net.vitacraft.api.addons;
+
+import net.dv8tion.jda.api.events.interaction.component.GenericSelectMenuInteractionEvent;
+import net.vitacraft.utils.ComponentState;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents a handler for selections in string or entity select menus whose custom id starts with a registered namespace.
+ */
+public interface SelectMenuAddon {
+
+    /**
+     * Handles a selection in a select menu.
+     *
+     * @param event the GenericSelectMenuInteractionEvent containing the selected values
+     * @param state the {@link ComponentState} decoded from the custom id of the select menu
+     */
+    void execute(@NotNull GenericSelectMenuInteractionEvent<?, ?> event, @NotNull ComponentState state);
+}
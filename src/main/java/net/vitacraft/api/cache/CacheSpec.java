@@ -0,0 +1,56 @@
+package net.vitacraft.api.cache;
+
+import java.time.Duration;
+
+/**
+ * Describes the bounds of a {@link ModuleCache}.
+ * <p>
+ * Limits that are not set are taken from the {@code caches} section of bot.yml, which can also override the limits of
+ * every single cache, so the memory used by all caches can be tuned in one place.
+ * </p>
+ *
+ * @param maximumSize       the maximum number of entries, or 0 to use the default
+ * @param expireAfterWrite  how long an entry is kept after it was written, or {@code null} to use the default
+ * @param expireAfterAccess how long an entry is kept after it was last read, or {@code null} to use the default
+ */
+public record CacheSpec(long maximumSize, Duration expireAfterWrite, Duration expireAfterAccess) {
+
+    /**
+     * Returns a spec that uses the defaults for all limits.
+     *
+     * @return the default {@link CacheSpec}
+     */
+    public static CacheSpec defaults() {
+        return new CacheSpec(0, null, null);
+    }
+
+    /**
+     * Returns a spec with a maximum number of entries.
+     *
+     * @param maximumSize the maximum number of entries
+     * @return the {@link CacheSpec}
+     */
+    public static CacheSpec maximumSize(long maximumSize) {
+        return new CacheSpec(maximumSize, null, null);
+    }
+
+    /**
+     * Returns a copy of this spec that removes entries a fixed time after they were written.
+     *
+     * @param expireAfterWrite how long an entry is kept after it was written
+     * @return the new {@link CacheSpec}
+     */
+    public CacheSpec withExpireAfterWrite(Duration expireAfterWrite) {
+        return new CacheSpec(maximumSize, expireAfterWrite, expireAfterAccess);
+    }
+
+    /**
+     * Returns a copy of this spec that removes entries a fixed time after they were last read.
+     *
+     * @param expireAfterAccess how long an entry is kept after it was last read
+     * @return the new {@link CacheSpec}
+     */
+    public CacheSpec withExpireAfterAccess(Duration expireAfterAccess) {
+        return new CacheSpec(maximumSize, expireAfterWrite, expireAfterAccess);
+    }
+}
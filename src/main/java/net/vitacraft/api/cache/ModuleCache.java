@@ -0,0 +1,203 @@
+package net.vitacraft.api.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * A bounded cache owned by a module.
+ * <p>
+ * Entries are evicted by size with the W-TinyLFU policy of Caffeine, which keeps frequently used entries even when
+ * many entries are only read once, and by time if the {@link CacheSpec} sets an expiry. A cache can have a loader,
+ * which computes missing entries on a virtual thread, so loaders may block, for example on a database or
+ * {@code RestAction#complete()}. Caches are created through the {@link net.vitacraft.manager.CacheManager} and dropped
+ * when their module is disabled.
+ * </p>
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class ModuleCache<K, V> {
+    private final String moduleName;
+    private final String name;
+    private final CacheSpec spec;
+    private final AsyncCache<K, V> cache;
+    private final AsyncLoadingCache<K, V> loadingCache;
+
+    /**
+     * Constructs a new {@link ModuleCache}.
+     *
+     * @param moduleName the name of the module owning the cache
+     * @param name       the name of the cache
+     * @param spec       the {@link CacheSpec} with all limits resolved
+     * @param loader     the function computing missing entries, or {@code null} if entries are only added explicitly
+     * @param executor   the executor loading entries and running maintenance
+     */
+    public ModuleCache(String moduleName, String name, CacheSpec spec, Function<? super K, ? extends V> loader, Executor executor) {
+        this.moduleName = moduleName;
+        this.name = name;
+        this.spec = spec;
+
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().executor(executor).recordStats();
+        if (spec.maximumSize() > 0) {
+            builder.maximumSize(spec.maximumSize());
+        }
+        if (isSet(spec.expireAfterWrite())) {
+            builder.expireAfterWrite(spec.expireAfterWrite());
+        }
+        if (isSet(spec.expireAfterAccess())) {
+            builder.expireAfterAccess(spec.expireAfterAccess());
+        }
+        if (loader != null) {
+            this.loadingCache = builder.buildAsync((key, loadExecutor) -> CompletableFuture.supplyAsync(() -> loader.apply(key), loadExecutor));
+            this.cache = loadingCache;
+        } else {
+            this.loadingCache = null;
+            this.cache = builder.buildAsync();
+        }
+    }
+
+    private static boolean isSet(Duration duration) {
+        return duration != null && !duration.isZero() && !duration.isNegative();
+    }
+
+    /**
+     * Returns the value of a key if it is cached.
+     *
+     * @param key the key
+     * @return the cached value, or {@code null} if the key is not cached or still loading
+     */
+    public V getIfPresent(K key) {
+        return cache.synchronous().getIfPresent(key);
+    }
+
+    /**
+     * Returns the value of a key, computing it with the given function if it is not cached.
+     *
+     * @param key             the key
+     * @param mappingFunction the function computing the value, it is called at most once per missing key
+     * @return the cached or computed value, or {@code null} if the function returned {@code null}
+     */
+    public V get(K key, Function<? super K, ? extends V> mappingFunction) {
+        return cache.synchronous().get(key, mappingFunction);
+    }
+
+    /**
+     * Returns the value of a key, loading it with the loader of this cache if it is not cached.
+     * Blocks until the value is loaded.
+     *
+     * @param key the key
+     * @return the cached or loaded value
+     * @throws IllegalStateException if this cache has no loader
+     */
+    public V get(K key) {
+        return requireLoader().synchronous().get(key);
+    }
+
+    /**
+     * Returns the value of a key, loading it in the background with the loader of this cache if it is not cached.
+     *
+     * @param key the key
+     * @return a future completed with the cached or loaded value
+     * @throws IllegalStateException if this cache has no loader
+     */
+    public CompletableFuture<V> getAsync(K key) {
+        return requireLoader().get(key);
+    }
+
+    /**
+     * Returns the value of a key, computing it with the given asynchronous function if it is not cached.
+     * Concurrent requests for a missing key share a single computation.
+     *
+     * @param key             the key
+     * @param mappingFunction the function starting the computation, for example {@code id -> jda.retrieveUserById(id).submit()}
+     * @return a future completed with the cached or computed value
+     */
+    public CompletableFuture<V> getAsync(K key, Function<? super K, ? extends CompletableFuture<? extends V>> mappingFunction) {
+        return cache.get(key, (missingKey, executor) -> mappingFunction.apply(missingKey));
+    }
+
+    private AsyncLoadingCache<K, V> requireLoader() {
+        if (loadingCache == null) {
+            throw new IllegalStateException("Cache " + name + " of module " + moduleName + " has no loader");
+        }
+        return loadingCache;
+    }
+
+    /**
+     * Adds or replaces the value of a key.
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public void put(K key, V value) {
+        cache.synchronous().put(key, value);
+    }
+
+    /**
+     * Removes the value of a key.
+     *
+     * @param key the key
+     */
+    public void invalidate(K key) {
+        cache.synchronous().invalidate(key);
+    }
+
+    /**
+     * Removes all values.
+     */
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    /**
+     * Returns the approximate number of cached entries.
+     *
+     * @return the approximate number of entries
+     */
+    public long estimatedSize() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    /**
+     * Returns the hit, miss, load and eviction statistics of this cache.
+     *
+     * @return the {@link CacheStats} of this cache
+     */
+    public CacheStats getStats() {
+        return cache.synchronous().stats();
+    }
+
+    /**
+     * Returns the name of the module owning this cache.
+     *
+     * @return the name of the module
+     */
+    public String getModuleName() {
+        return moduleName;
+    }
+
+    /**
+     * Returns the name of this cache.
+     *
+     * @return the name of the cache
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the limits of this cache.
+     *
+     * @return the {@link CacheSpec} with all limits resolved
+     */
+    public CacheSpec getSpec() {
+        return spec;
+    }
+}
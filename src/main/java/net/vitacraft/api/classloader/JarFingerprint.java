@@ -0,0 +1,62 @@
+package net.vitacraft.api.classloader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * The {@code JarFingerprint} record identifies the contents of a module JAR file.
+ * <p>
+ * Size and modification time are compared first, since reading them is cheap. The content hash is only
+ * computed when they differ, so a JAR file that was touched or copied without changes is still recognized.
+ * </p>
+ *
+ * @param size         the size of the JAR file in bytes
+ * @param lastModified the modification time of the JAR file in milliseconds since the epoch
+ * @param sha256       the hex encoded SHA-256 hash of the JAR file
+ */
+public record JarFingerprint(long size, long lastModified, String sha256) {
+
+    /**
+     * Computes the fingerprint of a JAR file.
+     *
+     * @param jarFile the JAR file
+     * @return the {@link JarFingerprint} of the JAR file
+     * @throws IOException if the JAR file cannot be read
+     */
+    public static JarFingerprint of(File jarFile) throws IOException {
+        return new JarFingerprint(jarFile.length(), jarFile.lastModified(), hash(jarFile));
+    }
+
+    /**
+     * Checks whether the given JAR file still has this fingerprint.
+     *
+     * @param jarFile the JAR file
+     * @return {@code true} if the contents of the JAR file are unchanged
+     * @throws IOException if the JAR file cannot be read
+     */
+    public boolean matches(File jarFile) throws IOException {
+        if (jarFile.length() != size) {
+            return false;
+        }
+        return jarFile.lastModified() == lastModified || hash(jarFile).equals(sha256);
+    }
+
+    private static String hash(File jarFile) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(jarFile.toPath())) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this JVM.", e);
+        }
+    }
+}
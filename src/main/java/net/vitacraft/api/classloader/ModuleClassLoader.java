@@ -0,0 +1,52 @@
+package net.vitacraft.api.classloader;
+
+import net.vitacraft.api.info.ModuleInfo;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+/**
+ * The class loader of a single module JAR file.
+ * <p>
+ * Besides loading the classes of the module, it carries the {@link ModuleInfo} that was read while scanning
+ * the JAR file, so the module can access its metadata without parsing {@code module.yml} again.
+ * </p>
+ */
+public class ModuleClassLoader extends URLClassLoader {
+    private final File jarFile;
+    private final ModuleInfo moduleInfo;
+
+    /**
+     * Constructs a new {@link ModuleClassLoader} for the given JAR file.
+     *
+     * @param jarFile the module JAR file
+     * @param moduleInfo the {@link ModuleInfo} of the module
+     * @param parent the parent class loader
+     * @throws MalformedURLException if the path of the JAR file cannot be converted to a URL
+     */
+    public ModuleClassLoader(File jarFile, ModuleInfo moduleInfo, ClassLoader parent) throws MalformedURLException {
+        super(new URL[]{jarFile.toURI().toURL()}, parent);
+        this.jarFile = jarFile;
+        this.moduleInfo = moduleInfo;
+    }
+
+    /**
+     * Returns the JAR file this class loader loads classes from.
+     *
+     * @return the module JAR file
+     */
+    public File getJarFile() {
+        return jarFile;
+    }
+
+    /**
+     * Returns the {@link ModuleInfo} of the module loaded by this class loader.
+     *
+     * @return the {@link ModuleInfo} instance
+     */
+    public ModuleInfo getModuleInfo() {
+        return moduleInfo;
+    }
+}
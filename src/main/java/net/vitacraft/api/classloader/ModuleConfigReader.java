@@ -1,51 +1,189 @@
 package net.vitacraft.api.classloader;
 
+import net.vitacraft.api.MBModule;
 import net.vitacraft.api.config.ConfigLoader;
+import net.vitacraft.api.info.EntityCacheRequirements;
+import net.vitacraft.api.info.ModuleInfo;
+import net.vitacraft.api.info.StartUpPriority;
+import org.simpleyaml.configuration.ConfigurationSection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashSet;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
 /**
  * Utility class for reading module configuration files.
  * <p>
- * This class provides a utility method for reading module configuration files
- * from JAR files and extracting the module dependencies.
+ * This class provides utility methods for reading module configuration files
+ * from JAR files and extracting the module metadata and dependencies.
  * </p>
  */
 public class ModuleConfigReader {
     private static final Logger logger = LoggerFactory.getLogger("MoBot");
+    private static final String SERVICE_FILE = "META-INF/services/" + MBModule.class.getName();
 
     /**
-     * Reads the module configuration file from a JAR file and extracts the module dependencies.
+     * Scans a module JAR file, reading the service file and the module configuration in a single pass.
      *
-     * @param jarFile the JAR file containing the module configuration
-     * @param moduleName the name of the module
-     * @param dependencyGraph the dependency graph to populate with module dependencies
+     * @param jarFile the module JAR file
+     * @return the {@link ModuleDescriptor} of the module
+     * @throws IOException if the JAR file cannot be read or does not contain a valid module
      */
-    public static void readConfig(File jarFile, String moduleName, Map<String, Set<String>> dependencyGraph) {
+    public static ModuleDescriptor scanJar(File jarFile) throws IOException {
         try (JarFile jar = new JarFile(jarFile)) {
-            JarEntry entry = jar.getJarEntry("module.yml");
-            if (entry != null) {
-                try (InputStream inputStream = jar.getInputStream(entry)) {
-                    ConfigLoader configLoader = new ConfigLoader(inputStream);
-                    List<String> dependencies = configLoader.getConfig().getStringList("dependencies");
-                    if (dependencies != null) {
-                        dependencyGraph.put(moduleName, new HashSet<>(dependencies));
+            JarEntry serviceEntry = jar.getJarEntry(SERVICE_FILE);
+            if (serviceEntry == null) {
+                throw new IOException("Service file " + SERVICE_FILE + " not found.");
+            }
+            String mainClass = null;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(jar.getInputStream(serviceEntry), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int comment = line.indexOf('#');
+                    String className = (comment >= 0 ? line.substring(0, comment) : line).trim();
+                    if (className.isEmpty()) {
+                        continue;
+                    }
+                    if (mainClass == null) {
+                        mainClass = className;
+                    } else {
+                        logger.warn("Ignoring additional module class {} in {}, only one module per JAR is supported.", className, jarFile.getName());
                     }
                 }
-            } else {
-                logger.warn("Module configuration not found for module: {}", moduleName);
             }
-        } catch (Exception e) {
-            logger.error("Error reading module configuration for module: {}", moduleName, e);
+            if (mainClass == null) {
+                throw new IOException("Service file " + SERVICE_FILE + " does not declare a module class.");
+            }
+
+            JarEntry configEntry = jar.getJarEntry("module.yml");
+            if (configEntry == null) {
+                throw new IOException("Module configuration module.yml not found.");
+            }
+            try (InputStream inputStream = jar.getInputStream(configEntry)) {
+                ConfigLoader configLoader = new ConfigLoader(inputStream);
+                return new ModuleDescriptor(jarFile, mainClass, readModuleInfo(configLoader.getConfig()));
+            }
+        }
+    }
+
+    /**
+     * Reads the {@link ModuleInfo} from a parsed module configuration.
+     *
+     * @param config the parsed contents of {@code module.yml}
+     * @return a {@link ModuleInfo} instance containing the module's metadata
+     */
+    public static ModuleInfo readModuleInfo(ConfigurationSection config) {
+        String name = config.getString("name");
+        String version = config.getString("version");
+        String description = config.getString("description");
+        List<String> authors = List.copyOf(config.getStringList("authors"));
+        List<String> dependencies = List.copyOf(config.getStringList("dependencies"));
+        StartUpPriority startUpPriority;
+
+        try {
+            startUpPriority = StartUpPriority.valueOf(config.getString("priority"));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            startUpPriority = StartUpPriority.DEFAULT;
+        }
+
+        boolean lazy = config.getBoolean("lazy", false);
+        List<Map<String, Object>> commands = new ArrayList<>();
+        for (Map<?, ?> command : config.getMapList("commands")) {
+            commands.add(copyMap(command));
+        }
+        List<String> events = List.copyOf(config.getStringList("events"));
+        EntityCacheRequirements entityCache = readEntityCacheRequirements(config.getConfigurationSection("entity-cache"));
+        List<String> intents = List.copyOf(config.getStringList("intents"));
+
+        return new ModuleInfo(name, version, description, authors, dependencies, startUpPriority, lazy, List.copyOf(commands), events, entityCache, intents);
+    }
+
+    private static EntityCacheRequirements readEntityCacheRequirements(ConfigurationSection section) {
+        if (section == null) {
+            return EntityCacheRequirements.NONE;
+        }
+        return new EntityCacheRequirements(
+                List.copyOf(section.getStringList("cache-flags")),
+                List.copyOf(section.getStringList("member-cache-policy")),
+                section.getBoolean("chunking", false));
+    }
+
+    /**
+     * Copies a map read from YAML into an unmodifiable map with string keys, including all nested maps and lists.
+     *
+     * @param map the map to copy
+     * @return the copied map
+     */
+    private static Map<String, Object> copyMap(Map<?, ?> map) {
+        Map<String, Object> copy = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            copy.put(String.valueOf(entry.getKey()), copyValue(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    private static Object copyValue(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            return copyMap(map);
+        }
+        if (value instanceof ConfigurationSection section) {
+            return copyMap(section.getValues(false));
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>();
+            for (Object element : list) {
+                copy.add(copyValue(element));
+            }
+            return Collections.unmodifiableList(copy);
+        }
+        return value;
+    }
+
+    /**
+     * Writes a {@link ModuleInfo} in the same structure as {@code module.yml},
+     * so it can be read again with {@link #readModuleInfo(ConfigurationSection)}.
+     *
+     * @param moduleInfo the {@link ModuleInfo} to write
+     * @return a map containing the module's metadata
+     */
+    public static Map<String, Object> writeModuleInfo(ModuleInfo moduleInfo) {
+        // Every list is copied, as YAML writes a list shared by several modules, such as the empty List.of(), as an
+        // alias, and refuses to load a file with more than 50 aliases
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("name", moduleInfo.name());
+        values.put("version", moduleInfo.version());
+        values.put("description", moduleInfo.description());
+        values.put("authors", new ArrayList<>(moduleInfo.authors()));
+        values.put("dependencies", new ArrayList<>(moduleInfo.dependencies()));
+        values.put("priority", moduleInfo.priority().name());
+        values.put("lazy", moduleInfo.lazy());
+        List<Object> commands = new ArrayList<>();
+        for (Map<String, Object> command : moduleInfo.commands()) {
+            commands.add(copyValue(command));
+        }
+        values.put("commands", commands);
+        values.put("events", new ArrayList<>(moduleInfo.events()));
+        EntityCacheRequirements entityCache = moduleInfo.entityCache();
+        if (!entityCache.isEmpty()) {
+            Map<String, Object> cacheValues = new LinkedHashMap<>();
+            cacheValues.put("cache-flags", new ArrayList<>(entityCache.cacheFlags()));
+            cacheValues.put("member-cache-policy", new ArrayList<>(entityCache.memberCachePolicies()));
+            cacheValues.put("chunking", entityCache.chunking());
+            values.put("entity-cache", cacheValues);
         }
+        values.put("intents", new ArrayList<>(moduleInfo.intents()));
+        return values;
     }
 }
@@ -0,0 +1,16 @@
+package net.vitacraft.api.classloader;
+
+import net.vitacraft.api.info.ModuleInfo;
+
+import java.io.File;
+
+/**
+ * The {@code ModuleDescriptor} record holds everything known about a module JAR file after scanning it,
+ * before any of its classes are loaded.
+ *
+ * @param jarFile    the module JAR file
+ * @param mainClass  the fully qualified name of the main module class declared in the service file
+ * @param moduleInfo the {@link ModuleInfo} read from {@code module.yml}
+ */
+public record ModuleDescriptor(File jarFile, String mainClass, ModuleInfo moduleInfo) {
+}
@@ -0,0 +1,198 @@
+package net.vitacraft.api.classloader;
+
+import net.vitacraft.api.config.ConfigLoader;
+import org.simpleyaml.configuration.ConfigurationSection;
+import org.simpleyaml.configuration.file.FileConfiguration;
+import org.simpleyaml.configuration.file.YamlConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * A persistent index of all scanned module JAR files.
+ * <p>
+ * For every JAR file the index stores its {@link JarFingerprint}, main class and {@code ModuleInfo}, together with the
+ * dependency layers resolved by the {@link ModuleSorter}. On the next start, unchanged JAR files are not opened again,
+ * and if no JAR file changed at all, the dependency layers are reused without sorting.
+ * </p>
+ */
+public class ModuleIndex {
+    private static final Logger logger = LoggerFactory.getLogger("MoBot");
+    // Incremented whenever the stored module information changes, so indexes written by older versions are rebuilt
+    private static final int FORMAT = 3;
+
+    private final ConfigLoader configLoader;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private List<List<String>> layers = List.of();
+    private boolean changed;
+
+    /**
+     * An indexed JAR file.
+     *
+     * @param fingerprint the {@link JarFingerprint} of the JAR file when it was scanned
+     * @param descriptor  the {@link ModuleDescriptor} read from the JAR file
+     */
+    private record Entry(JarFingerprint fingerprint, ModuleDescriptor descriptor) {
+    }
+
+    /**
+     * Constructs a new {@link ModuleIndex} and loads all entries stored in the given file.
+     * An unreadable or outdated index is ignored, which only causes all JAR files to be scanned again.
+     *
+     * @param indexFile the index file
+     */
+    public ModuleIndex(File indexFile) {
+        this.configLoader = openIndex(indexFile);
+        FileConfiguration config = configLoader.getConfig();
+        if (config.getInt("format", 1) != FORMAT) {
+            changed = true;
+            return;
+        }
+        try {
+            for (Map<?, ?> values : config.getMapList("modules")) {
+                String fileName = (String) values.get("file");
+                JarFingerprint fingerprint = new JarFingerprint(
+                        ((Number) values.get("size")).longValue(),
+                        ((Number) values.get("last-modified")).longValue(),
+                        (String) values.get("sha256"));
+                ConfigurationSection info = new YamlConfiguration().createSection("info", (Map<?, ?>) values.get("info"));
+                ModuleDescriptor descriptor = new ModuleDescriptor(new File(indexFile.getParentFile(), fileName),
+                        (String) values.get("main-class"), ModuleConfigReader.readModuleInfo(info));
+                entries.put(fileName, new Entry(fingerprint, descriptor));
+            }
+            List<List<String>> storedLayers = new ArrayList<>();
+            for (Object layer : config.getList("layers", List.of())) {
+                List<String> names = new ArrayList<>();
+                for (Object name : (List<?>) layer) {
+                    names.add(String.valueOf(name));
+                }
+                storedLayers.add(names);
+            }
+            layers = storedLayers;
+        } catch (RuntimeException e) {
+            logger.warn("Ignoring unreadable module index {}: {}", indexFile.getName(), e.getMessage());
+            entries.clear();
+            layers = List.of();
+        }
+    }
+
+    private static ConfigLoader openIndex(File indexFile) {
+        try {
+            return new ConfigLoader(indexFile.getPath());
+        } catch (RuntimeException e) {
+            logger.warn("Discarding corrupt module index {}: {}", indexFile.getName(), e.getMessage());
+            if (!indexFile.delete()) {
+                logger.warn("Failed to delete corrupt module index {}", indexFile.getName());
+            }
+            return new ConfigLoader(indexFile.getPath());
+        }
+    }
+
+    /**
+     * Returns the {@link ModuleDescriptor} of a JAR file, scanning it only if it changed since it was indexed.
+     *
+     * @param jarFile the module JAR file
+     * @return the {@link ModuleDescriptor} of the JAR file
+     * @throws IOException if the JAR file cannot be read or does not contain a valid module
+     */
+    public ModuleDescriptor describe(File jarFile) throws IOException {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(jarFile.getName());
+        }
+        if (entry != null && entry.fingerprint().matches(jarFile)) {
+            if (entry.fingerprint().lastModified() != jarFile.lastModified()) {
+                JarFingerprint touched = new JarFingerprint(entry.fingerprint().size(), jarFile.lastModified(), entry.fingerprint().sha256());
+                put(jarFile, new Entry(touched, entry.descriptor()));
+            }
+            return entry.descriptor();
+        }
+
+        JarFingerprint fingerprint = JarFingerprint.of(jarFile);
+        ModuleDescriptor descriptor = ModuleConfigReader.scanJar(jarFile);
+        put(jarFile, new Entry(fingerprint, descriptor));
+        return descriptor;
+    }
+
+    private void put(File jarFile, Entry entry) {
+        synchronized (entries) {
+            entries.put(jarFile.getName(), entry);
+            changed = true;
+        }
+    }
+
+    /**
+     * Removes all entries of JAR files that are no longer present.
+     *
+     * @param jarFiles the JAR files currently present in the modules directory
+     */
+    public void retain(File[] jarFiles) {
+        Set<String> present = new HashSet<>();
+        for (File jarFile : jarFiles) {
+            present.add(jarFile.getName());
+        }
+        synchronized (entries) {
+            changed |= entries.keySet().retainAll(present);
+        }
+    }
+
+    /**
+     * Returns the stored dependency layers if no JAR file changed since they were resolved.
+     *
+     * @param mainClasses the main class names of all modules currently present
+     * @return the stored dependency layers, or {@code null} if they must be resolved again
+     */
+    public List<List<String>> getLayers(Set<String> mainClasses) {
+        if (changed || layers.isEmpty()) {
+            return null;
+        }
+        Set<String> indexed = new HashSet<>();
+        for (List<String> layer : layers) {
+            indexed.addAll(layer);
+        }
+        return indexed.equals(mainClasses) ? layers : null;
+    }
+
+    /**
+     * Stores the resolved dependency layers.
+     *
+     * @param layers the dependency layers resolved by the {@link ModuleSorter}
+     */
+    public void setLayers(List<List<String>> layers) {
+        if (!layers.equals(this.layers)) {
+            this.layers = layers;
+            changed = true;
+        }
+    }
+
+    /**
+     * Writes the index to disk if it changed since it was loaded.
+     */
+    public void save() {
+        if (!changed) {
+            return;
+        }
+        List<Map<String, Object>> modules = new ArrayList<>();
+        synchronized (entries) {
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                Map<String, Object> values = new LinkedHashMap<>();
+                values.put("file", entry.getKey());
+                values.put("size", entry.getValue().fingerprint().size());
+                values.put("last-modified", entry.getValue().fingerprint().lastModified());
+                values.put("sha256", entry.getValue().fingerprint().sha256());
+                values.put("main-class", entry.getValue().descriptor().mainClass());
+                values.put("info", ModuleConfigReader.writeModuleInfo(entry.getValue().descriptor().moduleInfo()));
+                modules.add(values);
+            }
+        }
+        FileConfiguration config = configLoader.getConfig();
+        config.set("format", FORMAT);
+        config.set("modules", modules);
+        config.set("layers", layers);
+        configLoader.save();
+        changed = false;
+    }
+}
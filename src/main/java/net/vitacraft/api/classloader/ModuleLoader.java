@@ -1,62 +1,79 @@
 package net.vitacraft.api.classloader;
 
 import net.vitacraft.api.MBModule;
-import net.vitacraft.exceptions.CircularDependencyException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.net.URL;
-import java.net.URLClassLoader;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Loads modules from JAR files in the modules directory.
  * <p>
- * This class loads modules from JAR files in the modules directory, sorts them based on dependencies, and returns a list of modules.
+ * This class scans the JAR files in the modules directory and sorts them into dependency layers based on their dependencies.
+ * Modules are instantiated layer by layer, and all modules within one dependency layer are instantiated in parallel.
  * </p>
  */
 public class ModuleLoader {
     private static final Logger logger = LoggerFactory.getLogger("MoBot");
 
     /**
-     * Loads modules from JAR files in the modules directory.
+     * Scans the JAR files in the modules directory and sorts them into dependency layers, without loading any classes.
+     * <p>
+     * Every JAR file is opened exactly once to read its service file and {@code module.yml}, and all JAR files
+     * are scanned in parallel on the given executor. The results are kept in a {@link ModuleIndex}, so JAR files
+     * that did not change since the last start are not opened at all.
+     * </p>
      *
      * @param modulesPath the path to the modules directory
-     * @return a list of {@link MBModule} instances
+     * @param executor the {@link ExecutorService} used to scan the JAR files
+     * @return the list of dependency layers, each containing the {@link ModuleDescriptor} of its modules
      */
-    public static List<MBModule> loadModules(String modulesPath) {
-        List<MBModule> modules = new ArrayList<>();
+    public static List<List<ModuleDescriptor>> resolveModules(String modulesPath, ExecutorService executor) {
+        List<List<ModuleDescriptor>> layers = new ArrayList<>();
         File modulesDir = new File(modulesPath);
         if (modulesDir.isDirectory()) {
             File[] jarFiles = modulesDir.listFiles((dir, name) -> name.endsWith(".jar"));
             if (jarFiles != null) {
-                Map<String, MBModule> moduleMap = new HashMap<>();
-                Map<String, Set<String>> dependencyGraph = new HashMap<>();
-                for (File jarFile : jarFiles) {
-                    try {
-                        URL[] urls = new URL[]{jarFile.toURI().toURL()};
-                        URLClassLoader classLoader = new URLClassLoader(urls, Thread.currentThread().getContextClassLoader());
+                ModuleIndex index = new ModuleIndex(new File(modulesDir, ".module-index.yml"));
+                index.retain(jarFiles);
+                Map<String, ModuleDescriptor> descriptorMap = new HashMap<>();
+                for (ModuleDescriptor descriptor : scanJars(jarFiles, index, executor)) {
+                    ModuleDescriptor previous = descriptorMap.putIfAbsent(descriptor.mainClass(), descriptor);
+                    if (previous != null) {
+                        logger.error("Module class {} is declared by both {} and {}, ignoring the latter.",
+                                descriptor.mainClass(), previous.jarFile().getName(), descriptor.jarFile().getName());
+                    }
+                }
 
-                        ServiceLoader<MBModule> serviceLoader = ServiceLoader.load(MBModule.class, classLoader);
-                        for (MBModule module : serviceLoader) {
-                            String moduleName = module.getClass().getName();
-                            moduleMap.put(moduleName, module);
-                            dependencyGraph.putIfAbsent(moduleName, new HashSet<>());
-                            ModuleConfigReader.readConfig(jarFile, moduleName, dependencyGraph);
+                List<List<String>> sortedLayers = index.getLayers(descriptorMap.keySet());
+                if (sortedLayers == null) {
+                    ModuleSorter.SortResult result = ModuleSorter.sort(buildDependencyGraph(descriptorMap.values()));
+                    result.missingDependencies().forEach((moduleName, missing) ->
+                            logger.error("Module {} is missing dependencies: {}", moduleName, missing));
+                    if (result.hasCycles()) {
+                        logger.error("Failed to sort modules: {}", result.describeCycles());
+                        if (!result.blocked().isEmpty()) {
+                            logger.error("Modules depending on a circular dependency: {}", result.blocked());
                         }
-                    } catch (Exception e) {
-                        logger.error("Failed to load JAR file: {}", jarFile.getName(), e);
                     }
+                    // Only remember layers of a consistent graph, so problems are reported again on every start
+                    boolean consistent = !result.hasCycles() && result.missingDependencies().isEmpty();
+                    index.setLayers(consistent ? result.layers() : List.of());
+                    sortedLayers = result.layers();
                 }
-
-                try {
-                    List<String> sortedModuleNames = ModuleSorter.topologicalSort(dependencyGraph);
-                    for (String moduleName : sortedModuleNames) {
-                        modules.add(moduleMap.get(moduleName));
+                index.save();
+                for (List<String> layer : sortedLayers) {
+                    List<ModuleDescriptor> descriptors = new ArrayList<>(layer.size());
+                    for (String mainClass : layer) {
+                        descriptors.add(descriptorMap.get(mainClass));
                     }
-                } catch (CircularDependencyException e) {
-                    logger.error("Failed to sort modules: {}", e.getMessage());
+                    layers.add(descriptors);
                 }
             } else {
                 logger.warn("No JAR files found in the modules directory.");
@@ -64,6 +81,113 @@ public class ModuleLoader {
         } else {
             logger.error("Modules directory is not a directory.");
         }
+        return layers;
+    }
+
+    /**
+     * Scans all given JAR files in parallel, skipping those that are unchanged in the {@link ModuleIndex}.
+     *
+     * @param jarFiles the module JAR files
+     * @param index the {@link ModuleIndex} of previously scanned JAR files
+     * @param executor the {@link ExecutorService} used to scan the JAR files
+     * @return the {@link ModuleDescriptor} of every valid module JAR file
+     */
+    private static List<ModuleDescriptor> scanJars(File[] jarFiles, ModuleIndex index, ExecutorService executor) {
+        Map<File, Future<ModuleDescriptor>> futures = new LinkedHashMap<>();
+        for (File jarFile : jarFiles) {
+            futures.put(jarFile, executor.submit(() -> index.describe(jarFile)));
+        }
+
+        List<ModuleDescriptor> descriptors = new ArrayList<>();
+        for (Map.Entry<File, Future<ModuleDescriptor>> entry : futures.entrySet()) {
+            try {
+                descriptors.add(entry.getValue().get());
+            } catch (ExecutionException e) {
+                logger.error("Failed to load JAR file: {}", entry.getKey().getName(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.error("Interrupted while scanning JAR file: {}", entry.getKey().getName());
+            }
+        }
+        return descriptors;
+    }
+
+    /**
+     * Builds the dependency graph of the given modules, keyed by main class name.
+     * Dependencies may reference a module either by its name or by its main class name.
+     *
+     * @param descriptors the descriptors of all modules
+     * @return the dependency graph
+     */
+    private static Map<String, Set<String>> buildDependencyGraph(Collection<ModuleDescriptor> descriptors) {
+        Map<String, String> aliases = new HashMap<>();
+        for (ModuleDescriptor descriptor : descriptors) {
+            if (descriptor.moduleInfo().name() != null) {
+                aliases.put(descriptor.moduleInfo().name(), descriptor.mainClass());
+            }
+            aliases.put(descriptor.mainClass(), descriptor.mainClass());
+        }
+
+        Map<String, Set<String>> dependencyGraph = new HashMap<>();
+        for (ModuleDescriptor descriptor : descriptors) {
+            Set<String> dependencies = new HashSet<>();
+            for (String dependency : descriptor.moduleInfo().dependencies()) {
+                dependencies.add(aliases.getOrDefault(dependency, dependency));
+            }
+            dependencyGraph.put(descriptor.mainClass(), dependencies);
+        }
+        return dependencyGraph;
+    }
+
+    /**
+     * Instantiates a single module from its descriptor in a new {@link ModuleClassLoader}.
+     *
+     * @param descriptor the {@link ModuleDescriptor} of the module
+     * @return the new {@link MBModule} instance
+     * @throws Exception if the module class cannot be loaded or instantiated
+     */
+    public static MBModule instantiate(ModuleDescriptor descriptor) throws Exception {
+        ModuleClassLoader classLoader = new ModuleClassLoader(descriptor.jarFile(), descriptor.moduleInfo(), ModuleLoader.class.getClassLoader());
+        try {
+            Class<? extends MBModule> moduleClass = Class.forName(descriptor.mainClass(), true, classLoader).asSubclass(MBModule.class);
+            return moduleClass.getDeclaredConstructor().newInstance();
+        } catch (Exception | LinkageError e) {
+            classLoader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Instantiates all modules of one dependency layer in parallel.
+     *
+     * @param layer the descriptors of the modules in the layer
+     * @param executor the {@link ExecutorService} used to instantiate the modules
+     * @param timeoutMillis the maximum time in milliseconds a single module may take to construct
+     * @return the successfully instantiated modules of the layer
+     */
+    public static List<MBModule> instantiateLayer(List<ModuleDescriptor> layer, ExecutorService executor, long timeoutMillis) {
+        Map<String, Future<MBModule>> futures = new LinkedHashMap<>();
+        for (ModuleDescriptor descriptor : layer) {
+            futures.put(descriptor.mainClass(), executor.submit(() -> instantiate(descriptor)));
+        }
+
+        List<MBModule> modules = new ArrayList<>();
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        long start = System.nanoTime();
+        for (Map.Entry<String, Future<MBModule>> entry : futures.entrySet()) {
+            try {
+                long remaining = Math.max(0, timeoutNanos - (System.nanoTime() - start));
+                modules.add(entry.getValue().get(remaining, TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                entry.getValue().cancel(true);
+                logger.error("Module {} did not finish loading within {} ms.", entry.getKey(), timeoutMillis);
+            } catch (ExecutionException e) {
+                logger.error("Failed to instantiate module: {}", entry.getKey(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.error("Interrupted while loading module: {}", entry.getKey());
+            }
+        }
         return modules;
     }
-}
\ No newline at end of file
+}
@@ -11,9 +11,60 @@ import java.util.*;
  * The method takes a graph of module dependencies as input and returns a list of module names in the order
  * in which they should be enabled during the startup sequence.
  * </p>
+ * <p>
+ * Module names are interned to integer ids and the graph is sorted iteratively with Kahn's algorithm, so sorting
+ * runs in linear time and does not depend on the call stack depth. Every missing dependency and every cycle is
+ * reported in a single pass.
+ * </p>
  */
 public class ModuleSorter {
 
+    /**
+     * The {@code SortResult} record holds the outcome of sorting a dependency graph.
+     *
+     * @param layers              the dependency layers, each only depending on previous layers
+     * @param missingDependencies the dependencies not contained in the graph, by module name
+     * @param cycles              every group of modules that depend on each other in a cycle
+     * @param blocked             the modules that are not part of a cycle but depend on one
+     */
+    public record SortResult(List<List<String>> layers, Map<String, Set<String>> missingDependencies, List<List<String>> cycles, List<String> blocked) {
+
+        /**
+         * Returns all sorted module names, dependencies first.
+         *
+         * @return the module names in the order in which they should be enabled
+         */
+        public List<String> order() {
+            List<String> order = new ArrayList<>();
+            for (List<String> layer : layers) {
+                order.addAll(layer);
+            }
+            return order;
+        }
+
+        /**
+         * Returns whether any cycle was found in the graph.
+         *
+         * @return {@code true} if the graph contains at least one cycle
+         */
+        public boolean hasCycles() {
+            return !cycles.isEmpty();
+        }
+
+        /**
+         * Describes all cycles found in the graph.
+         *
+         * @return a description of all cycles
+         */
+        public String describeCycles() {
+            StringJoiner joiner = new StringJoiner("; ");
+            for (List<String> cycle : cycles) {
+                joiner.add(cycle.toString());
+            }
+            return "Circular dependency detected between: " + joiner;
+        }
+    }
+
     /**
      * Sorts the modules based on their dependencies using a topological sort algorithm.
      *
@@ -22,42 +73,210 @@ public class ModuleSorter {
      * @throws CircularDependencyException if a circular dependency is detected in the graph
      */
     public static List<String> topologicalSort(Map<String, Set<String>> graph) throws CircularDependencyException {
-        Set<String> visited = new HashSet<>();
-        Set<String> recursionStack = new HashSet<>();
-        Stack<String> stack = new Stack<>();
-        for (String node : graph.keySet()) {
-            if (!visited.contains(node)) {
-                topologicalSortUtil(node, visited, recursionStack, stack, graph);
+        SortResult result = sort(graph);
+        if (result.hasCycles()) {
+            throw new CircularDependencyException(result.describeCycles());
+        }
+        return result.order();
+    }
+
+    /**
+     * Groups the modules into dependency layers.
+     * <p>
+     * Every module is placed in the first layer after all of its dependencies, so the modules of one layer
+     * do not depend on each other and can be started in parallel once all previous layers are started.
+     * Dependencies on modules that are not part of the graph are ignored.
+     * </p>
+     *
+     * @param graph the graph representing the module dependencies
+     * @return the list of layers, each containing the names of the modules in that layer
+     * @throws CircularDependencyException if a circular dependency is detected in the graph
+     */
+    public static List<List<String>> layers(Map<String, Set<String>> graph) throws CircularDependencyException {
+        SortResult result = sort(graph);
+        if (result.hasCycles()) {
+            throw new CircularDependencyException(result.describeCycles());
+        }
+        return result.layers();
+    }
+
+    /**
+     * Sorts the graph into dependency layers and collects every missing dependency and every cycle.
+     * <p>
+     * Missing dependencies do not affect the order. Modules that are part of a cycle, or depend on one,
+     * are left out of the layers and reported instead.
+     * </p>
+     *
+     * @param graph the graph representing the module dependencies
+     * @return the {@link SortResult} of the graph
+     */
+    public static SortResult sort(Map<String, Set<String>> graph) {
+        int size = graph.size();
+        String[] names = new String[size];
+        Map<String, Integer> ids = new HashMap<>(size * 2);
+        for (String name : graph.keySet()) {
+            names[ids.size()] = name;
+            ids.put(name, ids.size());
+        }
+
+        // Dependencies of every module, stored in compressed sparse row form
+        Map<String, Set<String>> missingDependencies = new LinkedHashMap<>();
+        int[] dependencyStart = new int[size + 1];
+        int edgeCount = 0;
+        for (int id = 0; id < size; id++) {
+            for (String dependency : graph.get(names[id])) {
+                if (ids.containsKey(dependency)) {
+                    edgeCount++;
+                } else {
+                    missingDependencies.computeIfAbsent(names[id], key -> new LinkedHashSet<>()).add(dependency);
+                }
+            }
+            dependencyStart[id + 1] = edgeCount;
+        }
+        int[] dependencies = new int[edgeCount];
+        int[] dependentCount = new int[size];
+        int position = 0;
+        for (int id = 0; id < size; id++) {
+            for (String dependency : graph.get(names[id])) {
+                Integer dependencyId = ids.get(dependency);
+                if (dependencyId != null) {
+                    dependencies[position++] = dependencyId;
+                    dependentCount[dependencyId]++;
+                }
+            }
+        }
+
+        // Reverse edges, so finishing a module can release its dependents
+        int[] dependentStart = new int[size + 1];
+        for (int id = 0; id < size; id++) {
+            dependentStart[id + 1] = dependentStart[id] + dependentCount[id];
+        }
+        int[] dependents = new int[edgeCount];
+        int[] fill = Arrays.copyOf(dependentStart, size);
+        int[] remaining = new int[size];
+        for (int id = 0; id < size; id++) {
+            for (int edge = dependencyStart[id]; edge < dependencyStart[id + 1]; edge++) {
+                dependents[fill[dependencies[edge]]++] = id;
             }
+            remaining[id] = dependencyStart[id + 1] - dependencyStart[id];
         }
-        List<String> sortedList = new ArrayList<>();
-        while (!stack.isEmpty()) {
-            sortedList.add(stack.pop());
+
+        // Kahn's algorithm, one layer at a time
+        int[] queue = new int[size];
+        int tail = 0;
+        for (int id = 0; id < size; id++) {
+            if (remaining[id] == 0) {
+                queue[tail++] = id;
+            }
+        }
+        List<List<String>> layers = new ArrayList<>();
+        int head = 0;
+        while (head < tail) {
+            int layerEnd = tail;
+            List<String> layer = new ArrayList<>(layerEnd - head);
+            for (; head < layerEnd; head++) {
+                int id = queue[head];
+                layer.add(names[id]);
+                for (int edge = dependentStart[id]; edge < dependentStart[id + 1]; edge++) {
+                    if (--remaining[dependents[edge]] == 0) {
+                        queue[tail++] = dependents[edge];
+                    }
+                }
+            }
+            layers.add(layer);
         }
-        return sortedList;
+
+        List<List<String>> cycles = new ArrayList<>();
+        List<String> blocked = new ArrayList<>();
+        if (tail < size) {
+            findCycles(names, dependencyStart, dependencies, remaining, cycles, blocked);
+        }
+        return new SortResult(layers, missingDependencies, cycles, blocked);
     }
 
     /**
-     * Utility method to perform the topological sort of the modules.
+     * Finds all strongly connected components among the modules that could not be sorted, using an iterative
+     * version of Tarjan's algorithm. Components with more than one module, or with a module depending on itself,
+     * are cycles. All other unsorted modules only depend on a cycle.
      *
-     * @param node          the current node being visited
-     * @param visited       the set of visited nodes
-     * @param recursionStack the set of nodes in the recursion stack
-     * @param stack         the stack to store the sorted nodes
-     * @param graph         the graph representing the module dependencies
-     * @throws CircularDependencyException if a circular dependency is detected in the graph
+     * @param names           the module names by id
+     * @param dependencyStart the start of the dependencies of every module in {@code dependencies}
+     * @param dependencies    the dependencies of all modules
+     * @param remaining       the number of unsorted dependencies of every module
+     * @param cycles          the list to add all found cycles to
+     * @param blocked         the list to add all modules depending on a cycle to
      */
-    private static void topologicalSortUtil(String node, Set<String> visited, Set<String> recursionStack, Stack<String> stack, Map<String, Set<String>> graph) throws CircularDependencyException {
-        visited.add(node);
-        recursionStack.add(node);
-        for (String neighbor : graph.get(node)) {
-            if (!visited.contains(neighbor)) {
-                topologicalSortUtil(neighbor, visited, recursionStack, stack, graph);
-            } else if (recursionStack.contains(neighbor)) {
-                throw new CircularDependencyException("Circular dependency detected: " + node + " <-> " + neighbor);
-            }
-        }
-        recursionStack.remove(node);
-        stack.push(node);
+    private static void findCycles(String[] names, int[] dependencyStart, int[] dependencies, int[] remaining, List<List<String>> cycles, List<String> blocked) {
+        int size = names.length;
+        int[] index = new int[size];
+        int[] lowLink = new int[size];
+        boolean[] onStack = new boolean[size];
+        Arrays.fill(index, -1);
+        int[] componentStack = new int[size];
+        int componentTop = 0;
+        int[] callStack = new int[size];
+        int[] edgePosition = new int[size];
+        int counter = 0;
+
+        for (int root = 0; root < size; root++) {
+            if (remaining[root] == 0 || index[root] != -1) {
+                continue;
+            }
+            int depth = 0;
+            index[root] = lowLink[root] = counter++;
+            componentStack[componentTop++] = root;
+            onStack[root] = true;
+            callStack[depth] = root;
+            edgePosition[depth++] = dependencyStart[root];
+
+            while (depth > 0) {
+                int node = callStack[depth - 1];
+                if (edgePosition[depth - 1] < dependencyStart[node + 1]) {
+                    int next = dependencies[edgePosition[depth - 1]++];
+                    if (remaining[next] == 0) {
+                        continue;
+                    }
+                    if (index[next] == -1) {
+                        index[next] = lowLink[next] = counter++;
+                        componentStack[componentTop++] = next;
+                        onStack[next] = true;
+                        callStack[depth] = next;
+                        edgePosition[depth++] = dependencyStart[next];
+                    } else if (onStack[next]) {
+                        lowLink[node] = Math.min(lowLink[node], index[next]);
+                    }
+                    continue;
+                }
+
+                if (lowLink[node] == index[node]) {
+                    List<String> component = new ArrayList<>();
+                    int member;
+                    do {
+                        member = componentStack[--componentTop];
+                        onStack[member] = false;
+                        component.add(names[member]);
+                    } while (member != node);
+                    if (component.size() > 1 || dependsOnItself(node, dependencyStart, dependencies)) {
+                        cycles.add(component);
+                    } else {
+                        blocked.add(names[node]);
+                    }
+                }
+                depth--;
+                if (depth > 0) {
+                    int parent = callStack[depth - 1];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+                }
+            }
+        }
+    }
+
+    private static boolean dependsOnItself(int node, int[] dependencyStart, int[] dependencies) {
+        for (int edge = dependencyStart[node]; edge < dependencyStart[node + 1]; edge++) {
+            if (dependencies[edge] == node) {
+                return true;
+            }
+        }
+        return false;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,39 @@
+package net.vitacraft.api.cluster;
+
+import java.io.IOException;
+
+/**
+ * Assigns the shards of a bot that runs in several processes, so every shard is run by exactly one process.
+ * <p>
+ * A coordinator is selected with {@code sharding.coordinator} in bot.yml, either {@code FILE} for the
+ * {@link FileClusterCoordinator} or the fully qualified name of a class implementing this interface. Such a class
+ * needs a public constructor taking the {@code sharding} section of bot.yml as a
+ * {@link net.vitacraft.api.config.ConfigSnapshot}.
+ * </p>
+ */
+public interface ClusterCoordinator extends AutoCloseable {
+
+    /**
+     * Assigns a range of shards to this process, waiting until one is available.
+     * The range stays assigned to this process until {@link #close()} is called or the process exits.
+     *
+     * @param shardsTotal the total number of shards of the bot
+     * @return the {@link ShardRange} this process runs
+     * @throws IOException          if no range could be assigned
+     * @throws InterruptedException if the thread was interrupted while waiting for a range
+     */
+    ShardRange acquire(int shardsTotal) throws IOException, InterruptedException;
+
+    /**
+     * Returns a short description of this process within the cluster, shown by the console.
+     *
+     * @return the description, for example the slot of this process and the number of processes
+     */
+    String describe();
+
+    /**
+     * Releases the range assigned to this process, so another process can take it over.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,158 @@
+package net.vitacraft.api.cluster;
+
+import net.vitacraft.api.config.ConfigSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link ClusterCoordinator} for processes sharing a directory, for example on one machine or on a network file
+ * system with working file locks.
+ * <p>
+ * The shards are split evenly into one slot per process. A process takes the first free slot by locking its file
+ * {@code slot-<n>.lock} in the directory and holds the lock while it runs. The operating system releases the lock
+ * when the process exits, also after a crash, so a restarted or standby process can take over the slot. The lock
+ * file contains the process id, host and start time of its owner.
+ * </p>
+ * <p>
+ * Settings in the {@code sharding} section of bot.yml: {@code directory}, the shared directory,
+ * {@code processes}, the number of processes, and {@code acquire-timeout-seconds}, how long a process waits for
+ * a free slot before startup fails.
+ * </p>
+ */
+public class FileClusterCoordinator implements ClusterCoordinator {
+    private static final Logger logger = LoggerFactory.getLogger("MoBot");
+    private static final long RETRY_MILLIS = 1000;
+
+    private final Path directory;
+    private final int processes;
+    private final long timeoutMillis;
+    private FileChannel channel;
+    private FileLock lock;
+    private int slot = -1;
+
+    /**
+     * Constructs a new {@link FileClusterCoordinator}.
+     *
+     * @param directory     the directory shared by all processes
+     * @param processes     the number of processes the shards are split between
+     * @param timeoutMillis the maximum time to wait for a free slot in milliseconds
+     */
+    public FileClusterCoordinator(Path directory, int processes, long timeoutMillis) {
+        if (processes <= 0) {
+            throw new IllegalArgumentException("The number of processes must be positive");
+        }
+        this.directory = directory;
+        this.processes = processes;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Constructs a new {@link FileClusterCoordinator} from the {@code sharding} section of bot.yml.
+     *
+     * @param config the {@code sharding} section of bot.yml
+     */
+    public FileClusterCoordinator(ConfigSnapshot config) {
+        this(Path.of(config.getString("directory", "cluster")), config.getInt("processes", 1),
+                config.getLong("acquire-timeout-seconds", 60) * 1000);
+    }
+
+    @Override
+    public synchronized ShardRange acquire(int shardsTotal) throws IOException, InterruptedException {
+        if (lock != null) {
+            return ShardRange.split(shardsTotal, slot, processes);
+        }
+        // Fail early if the shards cannot be split between the processes
+        ShardRange.split(shardsTotal, processes - 1, processes);
+        Files.createDirectories(directory);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        boolean waiting = false;
+        while (true) {
+            for (int candidate = 0; candidate < processes; candidate++) {
+                if (tryLock(candidate)) {
+                    slot = candidate;
+                    ShardRange range = ShardRange.split(shardsTotal, slot, processes);
+                    logger.info("Acquired cluster slot {} of {}, running shards {}", slot, processes, range);
+                    return range;
+                }
+            }
+            if (System.nanoTime() - deadline > 0) {
+                throw new IOException("All " + processes + " cluster slots in " + directory + " are taken");
+            }
+            if (!waiting) {
+                logger.info("All {} cluster slots are taken, waiting for a process to exit...", processes);
+                waiting = true;
+            }
+            Thread.sleep(RETRY_MILLIS);
+        }
+    }
+
+    private boolean tryLock(int candidate) throws IOException {
+        FileChannel candidateChannel = FileChannel.open(directory.resolve("slot-" + candidate + ".lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileLock candidateLock = null;
+        try {
+            try {
+                candidateLock = candidateChannel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                // Held by another coordinator in this JVM
+            }
+            if (candidateLock == null) {
+                candidateChannel.close();
+                return false;
+            }
+            String owner = ProcessHandle.current().pid() + "@" + InetAddress.getLocalHost().getHostName() + " since " + Instant.now() + "\n";
+            candidateChannel.truncate(0);
+            candidateChannel.write(ByteBuffer.wrap(owner.getBytes(StandardCharsets.UTF_8)), 0);
+            candidateChannel.force(false);
+        } catch (IOException | RuntimeException e) {
+            // Otherwise the slot would stay locked until this process exits, although it was never taken
+            try {
+                if (candidateLock != null) {
+                    candidateLock.release();
+                }
+                candidateChannel.close();
+            } catch (IOException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw e;
+        }
+        channel = candidateChannel;
+        lock = candidateLock;
+        return true;
+    }
+
+    @Override
+    public synchronized String describe() {
+        return slot < 0 ? "no slot of " + processes + " in " + directory : "slot " + slot + " of " + processes + " in " + directory;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (lock == null) {
+            return;
+        }
+        try {
+            lock.release();
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to release cluster slot {}: {}", slot, e.getMessage());
+        }
+        logger.info("Released cluster slot {}", slot);
+        lock = null;
+        channel = null;
+        slot = -1;
+    }
+}
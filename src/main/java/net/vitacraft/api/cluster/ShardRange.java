@@ -0,0 +1,74 @@
+package net.vitacraft.api.cluster;
+
+/**
+ * A contiguous range of shard ids run by one process.
+ *
+ * @param shardsTotal the total number of shards of the bot
+ * @param first       the first shard id of the range
+ * @param last        the last shard id of the range, inclusive
+ */
+public record ShardRange(int shardsTotal, int first, int last) {
+
+    /**
+     * Validates the range.
+     *
+     * @throws IllegalArgumentException if the range is empty or not within the total number of shards
+     */
+    public ShardRange {
+        if (shardsTotal <= 0 || first < 0 || last < first || last >= shardsTotal) {
+            throw new IllegalArgumentException("Invalid shard range " + first + "-" + last + " of " + shardsTotal + " shards");
+        }
+    }
+
+    /**
+     * Returns the range of shards a process runs if the shards are split evenly between all processes.
+     *
+     * @param shardsTotal the total number of shards of the bot
+     * @param process     the index of the process, starting at 0
+     * @param processes   the number of processes
+     * @return the {@link ShardRange} of the process
+     * @throws IllegalArgumentException if there are fewer shards than processes
+     */
+    public static ShardRange split(int shardsTotal, int process, int processes) {
+        if (shardsTotal < processes) {
+            throw new IllegalArgumentException(shardsTotal + " shards cannot be split between " + processes + " processes");
+        }
+        return new ShardRange(shardsTotal, (int) ((long) process * shardsTotal / processes), (int) ((long) (process + 1) * shardsTotal / processes) - 1);
+    }
+
+    /**
+     * Parses a range in the form {@code first-last} or a single shard id.
+     *
+     * @param range       the range to parse
+     * @param shardsTotal the total number of shards of the bot
+     * @return the parsed {@link ShardRange}
+     * @throws IllegalArgumentException if the range cannot be parsed or is not within the total number of shards
+     */
+    public static ShardRange parse(String range, int shardsTotal) {
+        String trimmed = range.trim();
+        int separator = trimmed.indexOf('-', 1);
+        try {
+            if (separator < 0) {
+                int shard = Integer.parseInt(trimmed);
+                return new ShardRange(shardsTotal, shard, shard);
+            }
+            return new ShardRange(shardsTotal, Integer.parseInt(trimmed.substring(0, separator).trim()), Integer.parseInt(trimmed.substring(separator + 1).trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid shard range '" + range + "', expected first-last", e);
+        }
+    }
+
+    /**
+     * Returns the number of shards in this range.
+     *
+     * @return the number of shards
+     */
+    public int count() {
+        return last - first + 1;
+    }
+
+    @Override
+    public String toString() {
+        return first + "-" + last + " of " + shardsTotal;
+    }
+}
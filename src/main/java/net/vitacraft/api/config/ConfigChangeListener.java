@@ -0,0 +1,19 @@
+package net.vitacraft.api.config;
+
+import java.util.Set;
+
+/**
+ * Represents a listener notified when a watched configuration file was changed on disk and reloaded.
+ */
+@FunctionalInterface
+public interface ConfigChangeListener {
+
+    /**
+     * Called after the configuration was reloaded, if at least one value changed.
+     *
+     * @param previous    the {@link ConfigSnapshot} before the change
+     * @param current     the {@link ConfigSnapshot} after the change
+     * @param changedKeys the full paths of all values that were added, removed or changed
+     */
+    void onChange(ConfigSnapshot previous, ConfigSnapshot current, Set<String> changedKeys);
+}
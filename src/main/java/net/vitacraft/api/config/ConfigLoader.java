@@ -1,19 +1,53 @@
 package net.vitacraft.api.config;
 import org.simpleyaml.configuration.file.FileConfiguration;
 import org.simpleyaml.configuration.file.YamlConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * The ConfigLoader class provides utility methods for loading, saving, and managing YAML configuration files.
+ * <p>
+ * Files that are read in several places should be obtained from the {@link ConfigRegistry}, so they are only parsed once.
+ * </p>
+ * <p>
+ * A file can be watched with {@link #watch()}. When it changes on disk, it is parsed again in the background and the
+ * configuration and its snapshot are replaced at once, so readers see either the old or the new file, never a mix.
+ * Registered {@link ConfigChangeListener}s are then notified with the paths of all changed values.
+ * </p>
+ * <p>
+ * Saving never blocks the calling thread: the file is written on a shared I/O thread and replaced atomically, and
+ * saves requested while an earlier save of the same file is still waiting are merged into a single write.
+ * </p>
+ * <p>
+ * Large configuration files can keep a binary snapshot next to the YAML file, which is rewritten whenever the YAML
+ * file is saved or reloaded. On startup the snapshot is read instead of parsing the YAML file, which is only parsed
+ * once {@link #getConfig()} is called.
+ * </p>
  */
 public class ConfigLoader {
+    private static final Logger logger = LoggerFactory.getLogger("MoBot");
+
     private final File file;
-    private final FileConfiguration config;
+    private final boolean binarySnapshot;
+    private final List<ConfigChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private final AtomicReference<CompletableFuture<Void>> pendingSave = new AtomicReference<>();
+    // The content last written or read by this loader, so its own writes are not reloaded
+    private volatile String lastContent;
+    private volatile FileConfiguration config;
+    private volatile ConfigSnapshot snapshot;
 
     /**
      * Constructs a ConfigLoader instance that loads a configuration file from within a JAR.
@@ -23,6 +57,7 @@ public class ConfigLoader {
      */
     public ConfigLoader(Class<?> moduleClass, String resourceName) {
         this.file = null; // No file associated when loading from a resource within the JAR
+        this.binarySnapshot = false;
         try (InputStream resourceStream = moduleClass.getClassLoader().getResourceAsStream(resourceName)) {
             if (resourceStream == null) {
                 throw new IOException("Resource " + resourceName + " not found in the JAR.");
@@ -41,7 +76,21 @@ public class ConfigLoader {
      * @param path the path to save the configuration file.
      */
     public ConfigLoader(Class<?> moduleClass, String resourceName, Path path) {
+        this(moduleClass, resourceName, path, false);
+    }
+
+    /**
+     * Constructs a ConfigLoader instance that loads a configuration file from within a JAR and saves it to a specified path,
+     * optionally keeping a binary snapshot of the file.
+     *
+     * @param moduleClass the class from the module JAR, used to load resources.
+     * @param resourceName the name of the resource file (e.g., "data.yml").
+     * @param path the path to save the configuration file.
+     * @param binarySnapshot whether to keep a binary snapshot of the file, which is read instead of the YAML file on startup.
+     */
+    public ConfigLoader(Class<?> moduleClass, String resourceName, Path path, boolean binarySnapshot) {
         this.file = new File(path + "/" + resourceName);
+        this.binarySnapshot = binarySnapshot;
 
         try {
             if (!this.file.exists()) {
@@ -52,7 +101,17 @@ public class ConfigLoader {
                     this.file.createNewFile();
                 }
             }
-            this.config = YamlConfiguration.loadConfiguration(this.file);
+            if (!binarySnapshot) {
+                this.config = YamlConfiguration.loadConfiguration(this.file);
+                return;
+            }
+            this.snapshot = ConfigSnapshotCodec.read(this.file.toPath());
+            if (this.snapshot == null) {
+                ConfigSnapshotCodec.Fingerprint fingerprint = ConfigSnapshotCodec.Fingerprint.of(this.file.toPath());
+                this.config = YamlConfiguration.loadConfiguration(this.file);
+                writeBinarySnapshot(fingerprint, snapshot());
+            }
+            // Otherwise the YAML file is only parsed once getConfig() is called
         }  catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -65,6 +124,7 @@ public class ConfigLoader {
      */
     public ConfigLoader(String path) {
         this.file = new File(path);
+        this.binarySnapshot = false;
         try {
             if (!this.file.exists()) {
                 InputStream resourceStream = getClass().getClassLoader().getResourceAsStream(this.file.getName());
@@ -88,6 +148,7 @@ public class ConfigLoader {
     public ConfigLoader(InputStream inputStream) {
         try {
             this.file = null; // No file associated when loading from an InputStream
+            this.binarySnapshot = false;
             this.config = YamlConfiguration.loadConfiguration(new InputStreamReader(inputStream));
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -95,14 +156,191 @@ public class ConfigLoader {
     }
 
     /**
-     * Saves the configuration to the file.
+     * Saves the configuration to the file in the background.
+     * Use {@link #saveAsync()} to find out when, or whether, the file was written.
      */
     public void save() {
+        saveAsync();
+    }
+
+    /**
+     * Saves the configuration to the file in the background.
+     * If a save of this file is already waiting to be written, no additional write is scheduled,
+     * as the waiting save will write the latest values.
+     *
+     * @return a future completed when the file was written, or completed exceptionally if writing failed
+     */
+    public CompletableFuture<Void> saveAsync() {
+        if (file == null || config == null) {
+            // Nothing to write, the configuration was not parsed and can therefore not have been modified
+            return CompletableFuture.completedFuture(null);
+        }
+        snapshot = null;
+        CompletableFuture<Void> scheduled = new CompletableFuture<>();
+        CompletableFuture<Void> pending = pendingSave.compareAndExchange(null, scheduled);
+        if (pending != null) {
+            return pending;
+        }
+        ConfigWriter.submit(() -> {
+            // Saves requested from now on need another write, as they may contain newer values
+            pendingSave.compareAndSet(scheduled, null);
+            try {
+                String content;
+                ConfigSnapshot saved = null;
+                synchronized (this) {
+                    content = config.saveToString();
+                    if (binarySnapshot) {
+                        saved = ConfigSnapshot.of(config);
+                    }
+                }
+                ConfigWriter.write(file.toPath(), content);
+                lastContent = content;
+                if (saved != null) {
+                    writeBinarySnapshotNow(ConfigSnapshotCodec.Fingerprint.of(file.toPath()), saved);
+                }
+                scheduled.complete(null);
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to save configuration {}", file.getName(), e);
+                scheduled.completeExceptionally(e);
+            }
+        });
+        return scheduled;
+    }
+
+    /**
+     * Waits until all configuration files saved so far are written.
+     *
+     * @param timeoutMillis the maximum time to wait in milliseconds
+     * @return {@code true} if all files were written in time
+     */
+    public static boolean flushSaves(long timeoutMillis) {
+        return ConfigWriter.flush(timeoutMillis);
+    }
+
+    /**
+     * Returns an immutable snapshot of the configuration.
+     * The snapshot is created once and reused until the configuration is saved again, so it is cheap to call repeatedly.
+     * Changes made through {@link #getConfig()} are only visible in snapshots after {@link #save()}.
+     *
+     * @return the {@link ConfigSnapshot} of the configuration
+     */
+    public ConfigSnapshot snapshot() {
+        ConfigSnapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = ConfigSnapshot.of(getConfig());
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Parses the file again and replaces the configuration if it could be parsed.
+     * If any value changed, all registered {@link ConfigChangeListener}s are notified.
+     * Objects previously returned by {@link #getConfig()} are not updated.
+     */
+    public void reload() {
+        if (file == null) {
+            return;
+        }
+        FileConfiguration loaded;
+        ConfigSnapshotCodec.Fingerprint fingerprint;
         try {
-            this.config.save(this.file);
-        } catch (Exception e) {
-           System.out.println("Failed to save configuration file." + e);
+            fingerprint = ConfigSnapshotCodec.Fingerprint.of(file.toPath());
+            String content = Files.readString(file.toPath());
+            if (content.equals(lastContent)) {
+                // The change was written by this loader, the configuration is already up to date
+                return;
+            }
+            loaded = YamlConfiguration.loadConfiguration(new StringReader(content));
+            lastContent = content;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to reload configuration {}, keeping the previous one: {}", file.getName(), e.getMessage());
+            return;
         }
+
+        ConfigSnapshot previous;
+        ConfigSnapshot current = ConfigSnapshot.of(loaded);
+        synchronized (this) {
+            previous = snapshot();
+            config = loaded;
+            snapshot = current;
+        }
+        if (binarySnapshot) {
+            writeBinarySnapshot(fingerprint, current);
+        }
+
+        Set<String> changedKeys = previous.diff(current);
+        if (changedKeys.isEmpty()) {
+            return;
+        }
+        logger.info("Reloaded configuration {}, changed: {}", file.getName(), String.join(", ", changedKeys));
+        for (ConfigChangeListener listener : changeListeners) {
+            try {
+                listener.onChange(previous, current, changedKeys);
+            } catch (RuntimeException e) {
+                logger.error("Configuration change listener failed for {}", file.getName(), e);
+            }
+        }
+    }
+
+    private void writeBinarySnapshot(ConfigSnapshotCodec.Fingerprint fingerprint, ConfigSnapshot current) {
+        ConfigWriter.submit(() -> writeBinarySnapshotNow(fingerprint, current));
+    }
+
+    private void writeBinarySnapshotNow(ConfigSnapshotCodec.Fingerprint fingerprint, ConfigSnapshot current) {
+        // The YAML file is read on the next start instead, so a missing snapshot does not fail the save
+        try {
+            ConfigSnapshotCodec.write(file.toPath(), fingerprint, current);
+        } catch (IOException e) {
+            logger.warn("Failed to write binary snapshot of {}: {}", file.getName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Starts reloading the configuration whenever its file changes on disk.
+     * Has no effect for configurations that were not loaded from a file.
+     */
+    public void watch() {
+        if (file == null) {
+            return;
+        }
+        try {
+            ConfigWatcher.watch(this);
+        } catch (IOException e) {
+            logger.warn("Failed to watch configuration {}: {}", file.getName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Stops reloading the configuration when its file changes.
+     */
+    public void unwatch() {
+        if (file != null) {
+            ConfigWatcher.unwatch(this);
+        }
+    }
+
+    /**
+     * Registers a listener that is notified when a reload changed the configuration.
+     *
+     * @param listener the {@link ConfigChangeListener} to register
+     */
+    public void addChangeListener(ConfigChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Removes a previously registered listener.
+     *
+     * @param listener the {@link ConfigChangeListener} to remove
+     */
+    public void removeChangeListener(ConfigChangeListener listener) {
+        changeListeners.remove(listener);
     }
 
     /**
@@ -116,10 +354,25 @@ public class ConfigLoader {
 
     /**
      * Gets the FileConfiguration object.
+     * The object is replaced when the file is reloaded, so it should not be kept.
      *
      * @return the FileConfiguration object.
      */
     public FileConfiguration getConfig() {
-        return this.config;
+        FileConfiguration current = config;
+        if (current == null) {
+            synchronized (this) {
+                current = config;
+                if (current == null) {
+                    try {
+                        current = YamlConfiguration.loadConfiguration(file);
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                    config = current;
+                }
+            }
+        }
+        return current;
     }
 }
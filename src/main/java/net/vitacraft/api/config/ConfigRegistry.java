@@ -0,0 +1,94 @@
+package net.vitacraft.api.config;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A process-wide registry of configuration files.
+ * <p>
+ * Every file is parsed only once, the first time it is requested, and the same {@link ConfigLoader} is returned
+ * for every later request, no matter how the path is written. Values are best read through
+ * {@link ConfigLoader#snapshot()}, which is only rebuilt when the configuration is saved or reloaded.
+ * </p>
+ */
+public final class ConfigRegistry {
+    private static final Map<Path, ConfigLoader> loaders = new ConcurrentHashMap<>();
+    private static volatile boolean watching;
+
+    private ConfigRegistry() {
+    }
+
+    /**
+     * Returns the {@link ConfigLoader} of a configuration file, loading it on first use.
+     * If the file does not exist, it is created from the resource with the same name, if there is one.
+     *
+     * @param path the path to the configuration file
+     * @return the shared {@link ConfigLoader} of the file
+     */
+    public static ConfigLoader get(String path) {
+        return loaders.computeIfAbsent(key(Path.of(path)), key -> watchIfEnabled(new ConfigLoader(path)));
+    }
+
+    /**
+     * Returns the {@link ConfigLoader} of a module configuration file, loading it on first use.
+     * If the file does not exist, it is created from the resource with the same name in the module JAR.
+     *
+     * @param moduleClass  the class from the module JAR, used to load the resource
+     * @param resourceName the name of the configuration file (e.g., "config.yml")
+     * @param directory    the directory containing the configuration file
+     * @return the shared {@link ConfigLoader} of the file
+     */
+    public static ConfigLoader get(Class<?> moduleClass, String resourceName, Path directory) {
+        return get(moduleClass, resourceName, directory, false);
+    }
+
+    /**
+     * Returns the {@link ConfigLoader} of a module configuration file, loading it on first use.
+     * If the file does not exist, it is created from the resource with the same name in the module JAR.
+     * An existing file is never rewritten on load, so a large file and its snapshot are only read.
+     * Whether a binary snapshot is kept is decided by the first request for the file.
+     *
+     * @param moduleClass    the class from the module JAR, used to load the resource
+     * @param resourceName   the name of the configuration file (e.g., "data.yml")
+     * @param directory      the directory containing the configuration file
+     * @param binarySnapshot whether to keep a binary snapshot of the file, which is read instead of the YAML file on startup
+     * @return the shared {@link ConfigLoader} of the file
+     */
+    public static ConfigLoader get(Class<?> moduleClass, String resourceName, Path directory, boolean binarySnapshot) {
+        return loaders.computeIfAbsent(key(directory.resolve(resourceName)),
+                key -> watchIfEnabled(new ConfigLoader(moduleClass, resourceName, directory, binarySnapshot)));
+    }
+
+    /**
+     * Starts watching all registered configuration files and every file registered later,
+     * so they are reloaded when they change on disk.
+     */
+    public static void watchAll() {
+        watching = true;
+        for (ConfigLoader configLoader : loaders.values()) {
+            configLoader.watch();
+        }
+    }
+
+    private static ConfigLoader watchIfEnabled(ConfigLoader configLoader) {
+        if (watching) {
+            configLoader.watch();
+        }
+        return configLoader;
+    }
+
+    /**
+     * Returns the current {@link ConfigSnapshot} of a configuration file, loading the file on first use.
+     *
+     * @param path the path to the configuration file
+     * @return the {@link ConfigSnapshot} of the file
+     */
+    public static ConfigSnapshot snapshot(String path) {
+        return get(path).snapshot();
+    }
+
+    private static Path key(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+}
@@ -0,0 +1,293 @@
+package net.vitacraft.api.config;
+
+import org.simpleyaml.configuration.ConfigurationSection;
+
+import java.util.*;
+
+/**
+ * An immutable snapshot of a configuration.
+ * <p>
+ * All values are copied into a single flat map keyed by their full path, for example {@code "startup.threads"},
+ * so every read is one hash lookup instead of a walk through nested configuration sections. Lists and maps are
+ * copied into unmodifiable collections, so a snapshot can be shared between threads and never changes.
+ * </p>
+ */
+public final class ConfigSnapshot {
+    private static final ConfigSnapshot EMPTY = new ConfigSnapshot(Map.of(), Map.of());
+
+    private final Map<String, Object> values;
+    private final Map<String, Set<String>> children;
+
+    ConfigSnapshot(Map<String, Object> values, Map<String, Set<String>> children) {
+        this.values = values;
+        this.children = children;
+    }
+
+    /**
+     * Creates a snapshot of a configuration section.
+     *
+     * @param section the configuration section
+     * @return the {@link ConfigSnapshot} of the section
+     */
+    public static ConfigSnapshot of(ConfigurationSection section) {
+        Map<String, Object> values = new HashMap<>();
+        Map<String, Set<String>> children = new HashMap<>();
+        collect(section, "", values, children);
+        Map<String, Set<String>> frozenChildren = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : children.entrySet()) {
+            frozenChildren.put(entry.getKey(), Collections.unmodifiableSet(entry.getValue()));
+        }
+        return new ConfigSnapshot(Collections.unmodifiableMap(values), Collections.unmodifiableMap(frozenChildren));
+    }
+
+    /**
+     * Returns an empty snapshot.
+     *
+     * @return the empty {@link ConfigSnapshot}
+     */
+    public static ConfigSnapshot empty() {
+        return EMPTY;
+    }
+
+    private static void collect(ConfigurationSection section, String prefix, Map<String, Object> values, Map<String, Set<String>> children) {
+        Set<String> keys = new LinkedHashSet<>();
+        children.put(prefix, keys);
+        for (String key : section.getKeys(false)) {
+            keys.add(key);
+            String path = prefix.isEmpty() ? key : prefix + "." + key;
+            Object value = section.get(key);
+            if (value instanceof ConfigurationSection child) {
+                collect(child, path, values, children);
+            } else if (value != null) {
+                values.put(path, freeze(value));
+            }
+        }
+    }
+
+    private static Object freeze(Object value) {
+        if (value instanceof ConfigurationSection section) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (String key : section.getKeys(false)) {
+                map.put(key, freeze(section.get(key)));
+            }
+            return Collections.unmodifiableMap(map);
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                copy.put(entry.getKey(), freeze(entry.getValue()));
+            }
+            return Collections.unmodifiableMap(copy);
+        }
+        if (value instanceof Collection<?> collection) {
+            List<Object> copy = new ArrayList<>(collection.size());
+            for (Object element : collection) {
+                copy.add(freeze(element));
+            }
+            return Collections.unmodifiableList(copy);
+        }
+        return value;
+    }
+
+    /**
+     * Returns whether a value is set at the given path.
+     *
+     * @param path the path of the value
+     * @return {@code true} if a value is set
+     */
+    public boolean contains(String path) {
+        return values.containsKey(path);
+    }
+
+    /**
+     * Returns the value at the given path.
+     *
+     * @param path the path of the value
+     * @return the value, or {@code null} if none is set
+     */
+    public Object get(String path) {
+        return values.get(path);
+    }
+
+    /**
+     * Returns the string at the given path.
+     *
+     * @param path the path of the value
+     * @param def  the value returned if none is set
+     * @return the value as a string
+     */
+    public String getString(String path, String def) {
+        Object value = values.get(path);
+        return value == null || value instanceof Collection<?> || value instanceof Map<?, ?> ? def : value.toString();
+    }
+
+    /**
+     * Returns the integer at the given path.
+     *
+     * @param path the path of the value
+     * @param def  the value returned if none is set or the value is not a number
+     * @return the value as an integer
+     */
+    public int getInt(String path, int def) {
+        return (int) getLong(path, def);
+    }
+
+    /**
+     * Returns the long at the given path.
+     *
+     * @param path the path of the value
+     * @param def  the value returned if none is set or the value is not a number
+     * @return the value as a long
+     */
+    public long getLong(String path, long def) {
+        Object value = values.get(path);
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        if (value instanceof String string) {
+            try {
+                return Long.parseLong(string.trim());
+            } catch (NumberFormatException e) {
+                return def;
+            }
+        }
+        return def;
+    }
+
+    /**
+     * Returns the double at the given path.
+     *
+     * @param path the path of the value
+     * @param def  the value returned if none is set or the value is not a number
+     * @return the value as a double
+     */
+    public double getDouble(String path, double def) {
+        Object value = values.get(path);
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        if (value instanceof String string) {
+            try {
+                return Double.parseDouble(string.trim());
+            } catch (NumberFormatException e) {
+                return def;
+            }
+        }
+        return def;
+    }
+
+    /**
+     * Returns the boolean at the given path.
+     *
+     * @param path the path of the value
+     * @param def  the value returned if none is set or the value is not a boolean
+     * @return the value as a boolean
+     */
+    public boolean getBoolean(String path, boolean def) {
+        Object value = values.get(path);
+        if (value instanceof Boolean bool) {
+            return bool;
+        }
+        if (value instanceof String string && (string.equalsIgnoreCase("true") || string.equalsIgnoreCase("false"))) {
+            return Boolean.parseBoolean(string);
+        }
+        return def;
+    }
+
+    /**
+     * Returns the list of strings at the given path.
+     *
+     * @param path the path of the value
+     * @return an unmodifiable list of the values as strings, empty if none is set
+     */
+    public List<String> getStringList(String path) {
+        Object value = values.get(path);
+        if (!(value instanceof List<?> list)) {
+            return List.of();
+        }
+        List<String> strings = new ArrayList<>(list.size());
+        for (Object element : list) {
+            if (element != null) {
+                strings.add(element.toString());
+            }
+        }
+        return Collections.unmodifiableList(strings);
+    }
+
+    /**
+     * Returns the keys directly below the given section.
+     *
+     * @param path the path of the section, or {@code ""} for the root
+     * @return an unmodifiable set of the keys, empty if the section does not exist
+     */
+    public Set<String> getKeys(String path) {
+        return children.getOrDefault(path, Set.of());
+    }
+
+    /**
+     * Returns a snapshot of a section of this snapshot, with paths relative to the section.
+     *
+     * @param path the path of the section
+     * @return the {@link ConfigSnapshot} of the section, empty if the section does not exist
+     */
+    public ConfigSnapshot getSection(String path) {
+        if (!children.containsKey(path)) {
+            return EMPTY;
+        }
+        String prefix = path + ".";
+        Map<String, Object> sectionValues = new HashMap<>();
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                sectionValues.put(entry.getKey().substring(prefix.length()), entry.getValue());
+            }
+        }
+        Map<String, Set<String>> sectionChildren = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : children.entrySet()) {
+            if (entry.getKey().equals(path)) {
+                sectionChildren.put("", entry.getValue());
+            } else if (entry.getKey().startsWith(prefix)) {
+                sectionChildren.put(entry.getKey().substring(prefix.length()), entry.getValue());
+            }
+        }
+        return new ConfigSnapshot(Collections.unmodifiableMap(sectionValues), Collections.unmodifiableMap(sectionChildren));
+    }
+
+    /**
+     * Returns the paths of all values that differ between this snapshot and another one.
+     *
+     * @param other the snapshot to compare with
+     * @return the full paths of all values that are only set in one snapshot or are not equal
+     */
+    public Set<String> diff(ConfigSnapshot other) {
+        Set<String> changed = new TreeSet<>();
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            if (!Objects.equals(entry.getValue(), other.values.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (String path : other.values.keySet()) {
+            if (!values.containsKey(path)) {
+                changed.add(path);
+            }
+        }
+        return Collections.unmodifiableSet(changed);
+    }
+
+    /**
+     * Returns the keys of every section by the full path of the section.
+     *
+     * @return an unmodifiable map of all sections, the root section has the path {@code ""}
+     */
+    Map<String, Set<String>> sections() {
+        return children;
+    }
+
+    /**
+     * Returns all values of this snapshot by their full path.
+     *
+     * @return an unmodifiable map of all values
+     */
+    public Map<String, Object> asMap() {
+        return values;
+    }
+}
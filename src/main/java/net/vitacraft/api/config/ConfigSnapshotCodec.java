@@ -0,0 +1,316 @@
+package net.vitacraft.api.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Reads and writes {@link ConfigSnapshot}s in a compact binary format.
+ * <p>
+ * A binary snapshot is stored next to its YAML file and records the size and modification time of the YAML file it
+ * was created from, so a snapshot that no longer matches its YAML file is never used. Reading a snapshot maps the file
+ * into memory and decodes the values directly, which is much faster than parsing YAML and does not keep a parse tree.
+ * </p>
+ * <p>
+ * Layout: the magic number, the format version, the size and modification time of the YAML file and the number of
+ * sections, followed by every section as its path, its number of keys and every key with its tagged value. Keys of
+ * nested sections are tagged as sections and have no value, the values of a section are stored with their section.
+ * Strings are stored as their length in bytes followed by their UTF-8 bytes.
+ * </p>
+ * <p>
+ * Every value type the YAML parser produces keeps its type in a snapshot. A configuration containing a value of any
+ * other type gets no snapshot at all, so it is always read from its YAML file instead of with a changed type.
+ * </p>
+ */
+final class ConfigSnapshotCodec {
+    private static final Logger logger = LoggerFactory.getLogger("MoBot");
+    private static final int MAGIC = 0x4D424353; // "MBCS"
+    private static final int VERSION = 2;
+
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte LIST = 6;
+    private static final byte MAP = 7;
+    private static final byte NULL = 8;
+    private static final byte SECTION = 9;
+    private static final byte SHORT = 10;
+    private static final byte BYTE = 11;
+    private static final byte FLOAT = 12;
+    private static final byte BIG_INTEGER = 13;
+    private static final byte BIG_DECIMAL = 14;
+    private static final byte DATE = 15;
+    private static final byte CHARACTER = 16;
+    private static final byte BYTES = 17;
+
+    private ConfigSnapshotCodec() {
+    }
+
+    /**
+     * Identifies the content of a YAML file.
+     *
+     * @param size         the size of the file in bytes
+     * @param lastModified the modification time of the file in milliseconds
+     */
+    record Fingerprint(long size, long lastModified) {
+
+        /**
+         * Returns the fingerprint of a file.
+         * It should be taken before the file is read, so a change during the read makes the snapshot stale.
+         *
+         * @param file the file
+         * @return the {@link Fingerprint} of the file
+         * @throws IOException if the attributes of the file cannot be read
+         */
+        static Fingerprint of(Path file) throws IOException {
+            return new Fingerprint(Files.size(file), Files.getLastModifiedTime(file).toMillis());
+        }
+    }
+
+    /**
+     * Returns the file the binary snapshot of a YAML file is stored in.
+     *
+     * @param yamlFile the YAML file
+     * @return the path of the binary snapshot
+     */
+    static Path snapshotFileOf(Path yamlFile) {
+        Path absolute = yamlFile.toAbsolutePath();
+        return absolute.resolveSibling("." + absolute.getFileName() + ".snapshot");
+    }
+
+    /**
+     * Writes the binary snapshot of a YAML file atomically.
+     * If the snapshot contains a value that cannot be stored, the existing snapshot is deleted instead.
+     *
+     * @param yamlFile    the YAML file the snapshot was created from
+     * @param fingerprint the {@link Fingerprint} of the YAML file, taken before it was read or after it was written
+     * @param snapshot    the {@link ConfigSnapshot} of the YAML file
+     * @throws IOException if the snapshot cannot be written or contains a value that cannot be stored
+     */
+    static void write(Path yamlFile, Fingerprint fingerprint, ConfigSnapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) Math.min(Integer.MAX_VALUE - 8, fingerprint.size() + 1024));
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeLong(fingerprint.size());
+        output.writeLong(fingerprint.lastModified());
+
+        Map<String, Set<String>> sections = snapshot.sections();
+        output.writeInt(sections.size());
+        for (Map.Entry<String, Set<String>> section : sections.entrySet()) {
+            writeString(output, section.getKey());
+            output.writeInt(section.getValue().size());
+            for (String key : section.getValue()) {
+                writeString(output, key);
+                String path = pathOf(section.getKey(), key);
+                if (sections.containsKey(path)) {
+                    output.writeByte(SECTION);
+                } else if (!writeValue(output, snapshot.get(path))) {
+                    // A stale snapshot could still match the fingerprint if the file changed within a millisecond
+                    Files.deleteIfExists(snapshotFileOf(yamlFile));
+                    throw new IOException("The value at " + path + " cannot be stored in a binary snapshot");
+                }
+            }
+        }
+        output.flush();
+        ConfigWriter.write(snapshotFileOf(yamlFile), bytes.toByteArray());
+    }
+
+    /**
+     * Reads the binary snapshot of a YAML file, if it exists and still matches the YAML file.
+     *
+     * @param yamlFile the YAML file
+     * @return the {@link ConfigSnapshot} of the YAML file, or {@code null} if there is no usable binary snapshot
+     */
+    static ConfigSnapshot read(Path yamlFile) {
+        Path snapshotFile = snapshotFileOf(yamlFile);
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Fingerprint fingerprint = Fingerprint.of(yamlFile);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                    || buffer.getLong() != fingerprint.size() || buffer.getLong() != fingerprint.lastModified()) {
+                return null;
+            }
+
+            int sectionCount = readCount(buffer);
+            Map<String, Object> values = new HashMap<>();
+            Map<String, Set<String>> sections = HashMap.newHashMap(sectionCount);
+            for (int index = 0; index < sectionCount; index++) {
+                String section = readString(buffer);
+                int keyCount = readCount(buffer);
+                Set<String> keys = LinkedHashSet.newLinkedHashSet(keyCount);
+                for (int keyIndex = 0; keyIndex < keyCount; keyIndex++) {
+                    String key = readString(buffer);
+                    keys.add(key);
+                    if (buffer.get(buffer.position()) == SECTION) {
+                        buffer.get();
+                        continue;
+                    }
+                    Object value = readValue(buffer);
+                    if (value != null) {
+                        values.put(pathOf(section, key), value);
+                    }
+                }
+                sections.put(section, Collections.unmodifiableSet(keys));
+            }
+            return new ConfigSnapshot(Collections.unmodifiableMap(values), Collections.unmodifiableMap(sections));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            logger.warn("Ignoring unreadable configuration snapshot {}: {}", snapshotFile.getFileName(), e.toString());
+            return null;
+        }
+    }
+
+    private static String pathOf(String section, String key) {
+        return section.isEmpty() ? key : section + "." + key;
+    }
+
+    // Returns false if the value or one of its elements has a type that cannot be stored
+    private static boolean writeValue(DataOutputStream output, Object value) throws IOException {
+        if (value == null) {
+            output.writeByte(NULL);
+        } else if (value instanceof String string) {
+            output.writeByte(STRING);
+            writeString(output, string);
+        } else if (value instanceof Integer number) {
+            output.writeByte(INTEGER);
+            output.writeInt(number);
+        } else if (value instanceof Long number) {
+            output.writeByte(LONG);
+            output.writeLong(number);
+        } else if (value instanceof Double number) {
+            output.writeByte(DOUBLE);
+            output.writeDouble(number);
+        } else if (value instanceof Boolean bool) {
+            output.writeByte(BOOLEAN);
+            output.writeBoolean(bool);
+        } else if (value instanceof Short number) {
+            output.writeByte(SHORT);
+            output.writeShort(number);
+        } else if (value instanceof Byte number) {
+            output.writeByte(BYTE);
+            output.writeByte(number);
+        } else if (value instanceof Float number) {
+            output.writeByte(FLOAT);
+            output.writeFloat(number);
+        } else if (value instanceof BigInteger number) {
+            output.writeByte(BIG_INTEGER);
+            writeBytes(output, number.toByteArray());
+        } else if (value instanceof BigDecimal number) {
+            output.writeByte(BIG_DECIMAL);
+            writeBytes(output, number.unscaledValue().toByteArray());
+            output.writeInt(number.scale());
+        } else if (value instanceof Date date && value.getClass() == Date.class) {
+            output.writeByte(DATE);
+            output.writeLong(date.getTime());
+        } else if (value instanceof Character character) {
+            output.writeByte(CHARACTER);
+            output.writeChar(character);
+        } else if (value instanceof byte[] bytes) {
+            output.writeByte(BYTES);
+            writeBytes(output, bytes);
+        } else if (value instanceof List<?> list) {
+            output.writeByte(LIST);
+            output.writeInt(list.size());
+            for (Object element : list) {
+                if (!writeValue(output, element)) {
+                    return false;
+                }
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            output.writeByte(MAP);
+            output.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!writeValue(output, entry.getKey()) || !writeValue(output, entry.getValue())) {
+                    return false;
+                }
+            }
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static Object readValue(ByteBuffer buffer) {
+        byte tag = buffer.get();
+        return switch (tag) {
+            case NULL -> null;
+            case STRING -> readString(buffer);
+            case INTEGER -> buffer.getInt();
+            case LONG -> buffer.getLong();
+            case DOUBLE -> buffer.getDouble();
+            case BOOLEAN -> buffer.get() != 0;
+            case SHORT -> buffer.getShort();
+            case BYTE -> buffer.get();
+            case FLOAT -> buffer.getFloat();
+            case BIG_INTEGER -> new BigInteger(readBytes(buffer));
+            case BIG_DECIMAL -> new BigDecimal(new BigInteger(readBytes(buffer)), buffer.getInt());
+            case DATE -> new Date(buffer.getLong());
+            case CHARACTER -> buffer.getChar();
+            case BYTES -> readBytes(buffer);
+            case LIST -> {
+                int size = readCount(buffer);
+                List<Object> list = new ArrayList<>(size);
+                for (int index = 0; index < size; index++) {
+                    list.add(readValue(buffer));
+                }
+                yield Collections.unmodifiableList(list);
+            }
+            case MAP -> {
+                int size = readCount(buffer);
+                Map<Object, Object> map = LinkedHashMap.newLinkedHashMap(size);
+                for (int index = 0; index < size; index++) {
+                    map.put(readValue(buffer), readValue(buffer));
+                }
+                yield Collections.unmodifiableMap(map);
+            }
+            default -> throw new IllegalArgumentException("Unknown value tag " + tag);
+        };
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        writeBytes(output, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeBytes(DataOutputStream output, byte[] bytes) throws IOException {
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static int readCount(ByteBuffer buffer) {
+        // Every element takes at least one byte, so larger counts can only come from a corrupt file
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid element count " + count);
+        }
+        return count;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        return new String(readBytes(buffer), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[readCount(buffer)];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,105 @@
+package net.vitacraft.api.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the files of {@link ConfigLoader}s and reloads them when they change on disk.
+ * <p>
+ * All files are watched by a single background thread, which is started with the first watched file.
+ * Editors often write a file in several steps, so a file is only reloaded once it has not changed for the debounce time.
+ * </p>
+ */
+final class ConfigWatcher {
+    private static final Logger logger = LoggerFactory.getLogger("MoBot");
+    private static final long DEBOUNCE_MILLIS = 500;
+
+    private static final Map<Path, Set<ConfigLoader>> loaders = new ConcurrentHashMap<>();
+    private static final Set<Path> directories = ConcurrentHashMap.newKeySet();
+    private static WatchService watchService;
+
+    private ConfigWatcher() {
+    }
+
+    /**
+     * Starts watching the file of a {@link ConfigLoader}.
+     *
+     * @param configLoader the {@link ConfigLoader} to reload when its file changes
+     * @throws IOException if the directory of the file cannot be watched
+     */
+    static synchronized void watch(ConfigLoader configLoader) throws IOException {
+        Path file = configLoader.getFile().toPath().toAbsolutePath().normalize();
+        Path directory = file.getParent();
+        if (watchService == null) {
+            watchService = FileSystems.getDefault().newWatchService();
+            Thread thread = new Thread(ConfigWatcher::run, "MoBot-ConfigWatcher");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        if (directories.add(directory)) {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+        loaders.computeIfAbsent(file, key -> ConcurrentHashMap.newKeySet()).add(configLoader);
+    }
+
+    /**
+     * Stops watching the file of a {@link ConfigLoader}.
+     *
+     * @param configLoader the {@link ConfigLoader} to stop reloading
+     */
+    static void unwatch(ConfigLoader configLoader) {
+        Path file = configLoader.getFile().toPath().toAbsolutePath().normalize();
+        Set<ConfigLoader> watching = loaders.get(file);
+        if (watching != null) {
+            watching.remove(configLoader);
+        }
+    }
+
+    private static void run() {
+        Map<Path, Long> pendingChanges = new HashMap<>();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = pendingChanges.isEmpty()
+                        ? watchService.take()
+                        : watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    Path directory = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.context() instanceof Path name) {
+                            Path file = directory.resolve(name);
+                            if (loaders.containsKey(file)) {
+                                pendingChanges.put(file, System.currentTimeMillis());
+                            }
+                        }
+                    }
+                    key.reset();
+                }
+
+                long now = System.currentTimeMillis();
+                Iterator<Map.Entry<Path, Long>> iterator = pendingChanges.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<Path, Long> change = iterator.next();
+                    if (now - change.getValue() < DEBOUNCE_MILLIS) {
+                        continue;
+                    }
+                    iterator.remove();
+                    for (ConfigLoader configLoader : loaders.getOrDefault(change.getKey(), Set.of())) {
+                        try {
+                            configLoader.reload();
+                        } catch (RuntimeException e) {
+                            logger.error("Failed to reload configuration {}", change.getKey().getFileName(), e);
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
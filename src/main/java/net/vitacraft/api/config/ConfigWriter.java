@@ -0,0 +1,99 @@
+package net.vitacraft.api.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.*;
+
+/**
+ * Writes configuration files on a dedicated I/O thread.
+ * <p>
+ * A file is first written to a temporary file in the same directory, flushed to the disk and then moved over the
+ * target file atomically, so a crash never leaves a truncated configuration behind.
+ * </p>
+ */
+final class ConfigWriter {
+    private static final Logger logger = LoggerFactory.getLogger("MoBot");
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "MoBot-ConfigIO");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ConfigWriter() {
+    }
+
+    /**
+     * Runs a task on the I/O thread.
+     *
+     * @param task the task to run
+     */
+    static void submit(Runnable task) {
+        executor.execute(task);
+    }
+
+    /**
+     * Waits until all tasks submitted so far are completed.
+     *
+     * @param timeoutMillis the maximum time to wait in milliseconds
+     * @return {@code true} if all tasks completed in time
+     */
+    static boolean flush(long timeoutMillis) {
+        try {
+            executor.submit(() -> {
+            }).get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Replaces the content of a file atomically.
+     *
+     * @param target  the file to write
+     * @param content the new content of the file
+     * @throws IOException if the file could not be written
+     */
+    static void write(Path target, String content) throws IOException {
+        write(target, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Replaces the content of a file atomically.
+     *
+     * @param target  the file to write
+     * @param content the new content of the file
+     * @throws IOException if the file could not be written
+     */
+    static void write(Path target, byte[] content) throws IOException {
+        Path absolute = target.toAbsolutePath();
+        Path temp = absolute.resolveSibling("." + absolute.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            logger.debug("Atomic move not supported for {}, replacing it directly", absolute);
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -1,10 +1,28 @@
 package net.vitacraft.api.console;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.sharding.ShardManager;
 import net.vitacraft.MoBot;
+import net.vitacraft.api.MBModule;
+import net.vitacraft.api.cache.ModuleCache;
+import net.vitacraft.api.classloader.ModuleDescriptor;
+import net.vitacraft.api.metrics.InvocationMetrics;
+import net.vitacraft.api.metrics.LatencyHistogram;
+import net.vitacraft.api.storage.KeyValueStore;
 import net.vitacraft.api.config.ConfigLoader;
+import net.vitacraft.api.config.ConfigRegistry;
+import net.vitacraft.manager.MetricsManager;
+import net.vitacraft.manager.ModuleEventQueue;
+import net.vitacraft.manager.ModuleManager;
 import org.simpleyaml.configuration.ConfigurationSection;
 import org.slf4j.Logger;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 
@@ -63,17 +81,182 @@ public class Console {
         registerCommand("shutdown", args -> System.exit(0));
         registerCommand("stop", args -> System.exit(0));
 
+        registerCommand("modules", args -> {
+            ModuleManager moduleManager = moBot.getModuleManager();
+            logger.info("Active modules:");
+            for (MBModule module : moduleManager.getActiveModules()) {
+                logger.info(" - {} {}", module.getModuleInfo().name(), module.getModuleInfo().version());
+            }
+            for (ModuleDescriptor descriptor : moduleManager.getLazyModules()) {
+                logger.info(" - {} {} (lazy)", descriptor.moduleInfo().name(), descriptor.moduleInfo().version());
+            }
+        });
+        registerCommand("load", args -> {
+            if (args.length == 0) {
+                logger.warn("No module file provided.");
+                return;
+            }
+            File jarFile = new File(moBot.getModuleManager().getModulesPath(), String.join(" ", args));
+            if (!jarFile.isFile()) {
+                logger.warn("Module file not found: {}", jarFile.getName());
+                return;
+            }
+            moBot.getModuleManager().loadModule(jarFile);
+        });
+        registerCommand("unload", args -> {
+            if (args.length == 0) {
+                logger.warn("No module name provided.");
+                return;
+            }
+            moBot.getModuleManager().unloadModule(String.join(" ", args));
+        });
+        registerCommand("reload", args -> {
+            if (args.length == 0) {
+                logger.warn("No module name provided.");
+                return;
+            }
+            String name = String.join(" ", args);
+            if (moBot.getModuleManager().reloadModule(name)) {
+                logger.info("Reloaded module {}", name);
+            }
+        });
+
+        registerCommand("metrics", args -> {
+            MetricsManager metricsManager = moBot.getMetricsManager();
+            double uptimeSeconds = Math.max(1, metricsManager.getUptimeNanos() / 1e9);
+            logger.info("Commands:");
+            for (InvocationMetrics metrics : metricsManager.getAllCommandMetrics()) {
+                logMetrics(metrics, uptimeSeconds);
+            }
+            logger.info("Modules:");
+            for (InvocationMetrics metrics : metricsManager.getAllModuleMetrics()) {
+                logMetrics(metrics, uptimeSeconds);
+            }
+            logger.info("Lazy module activations:");
+            for (InvocationMetrics metrics : metricsManager.getAllActivationMetrics()) {
+                logMetrics(metrics, uptimeSeconds);
+            }
+        });
+
+        registerCommand("events", args -> {
+            if (moBot.getBotEnvironment() == null) {
+                logger.warn("The bot is not running.");
+                return;
+            }
+            logger.info("Module event queues:");
+            for (ModuleEventQueue queue : moBot.getBotEnvironment().getEventBus().getQueues()) {
+                logger.info(" - {}: {} queued, {} delivered, {} dropped",
+                        queue.getModuleName(), queue.getDepth(), queue.getDelivered(), queue.getDropped());
+            }
+        });
+
+        registerCommand("caches", args -> {
+            if (moBot.getBotEnvironment() == null) {
+                logger.warn("The bot is not running.");
+                return;
+            }
+            logger.info("Module caches:");
+            for (ModuleCache<?, ?> cache : moBot.getBotEnvironment().getCacheManager().getCaches()) {
+                CacheStats stats = cache.getStats();
+                logger.info(" - {}/{}: {} of {} entries, {} hit rate, {} hits, {} misses, {} evictions, {} load failures",
+                        cache.getModuleName(),
+                        cache.getName(),
+                        cache.estimatedSize(),
+                        cache.getSpec().maximumSize() > 0 ? cache.getSpec().maximumSize() : "unbounded",
+                        String.format("%.1f%%", stats.hitRate() * 100),
+                        stats.hitCount(),
+                        stats.missCount(),
+                        stats.evictionCount(),
+                        stats.loadFailureCount());
+            }
+        });
+
+        registerCommand("stores", args -> {
+            if (moBot.getBotEnvironment() == null) {
+                logger.warn("The bot is not running.");
+                return;
+            }
+            logger.info("Module stores:");
+            for (KeyValueStore store : moBot.getBotEnvironment().getStorageManager().getStores()) {
+                logger.info(" - {}: {} keys, {} KB log, {} flushes", store.getName(), store.size(), store.getLogBytes() / 1024, store.getLogFlushes());
+            }
+        });
+
+        registerCommand("memory", args -> {
+            if (moBot.getBotEnvironment() == null) {
+                logger.warn("The bot is not running.");
+                return;
+            }
+            Runtime runtime = Runtime.getRuntime();
+            logger.info("Heap: {} MB used of {} MB, {} MB maximum",
+                    (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024), runtime.totalMemory() / (1024 * 1024), runtime.maxMemory() / (1024 * 1024));
+            logger.info("Entity caches:");
+            List<JDA> shards = new ArrayList<>(moBot.getBotEnvironment().getShardManager().getShards());
+            shards.sort(Comparator.comparingInt(shard -> shard.getShardInfo().getShardId()));
+            for (JDA shard : shards) {
+                long members = 0;
+                long voiceStates = 0;
+                for (Guild guild : shard.getGuildCache()) {
+                    members += guild.getMemberCache().size();
+                    voiceStates += guild.getVoiceStates().size();
+                }
+                logger.info(" - shard {}: {} guilds, {} members, {} users, {} roles, {} channels, {} emojis, {} voice states",
+                        shard.getShardInfo().getShardId(),
+                        shard.getGuildCache().size(),
+                        members,
+                        shard.getUserCache().size(),
+                        shard.getRoleCache().size(),
+                        shard.getTextChannelCache().size() + shard.getVoiceChannelCache().size() + shard.getCategoryCache().size(),
+                        shard.getEmojiCache().size(),
+                        voiceStates);
+            }
+        });
+
+        registerCommand("shards", args -> {
+            if (moBot.getBotEnvironment() == null) {
+                logger.warn("The bot is not running.");
+                return;
+            }
+            ShardManager shardManager = moBot.getBotEnvironment().getShardManager();
+            if (moBot.getShardRange() == null) {
+                logger.info("Running all {} shards", shardManager.getShardsTotal());
+            } else if (moBot.getClusterCoordinator() == null) {
+                logger.info("Running shards {}", moBot.getShardRange());
+            } else {
+                logger.info("Running shards {}, {}", moBot.getShardRange(), moBot.getClusterCoordinator().describe());
+            }
+            List<JDA> shards = new ArrayList<>(shardManager.getShards());
+            shards.sort(Comparator.comparingInt(shard -> shard.getShardInfo().getShardId()));
+            for (JDA shard : shards) {
+                logger.info(" - shard {}: {}, {} ms gateway ping, {} guilds",
+                        shard.getShardInfo().getShardId(), shard.getStatus(), shard.getGatewayPing(), shard.getGuildCache().size());
+            }
+        });
+
         registerCommand("settoken", args -> {
             if (args.length == 0) {
                 logger.warn("No token provided.");
                 return;
             }
             String token = args[0];
-            ConfigLoader configLoader = new ConfigLoader("./bot.yml");
+            ConfigLoader configLoader = ConfigRegistry.get(MoBot.BOT_CONFIG);
             ConfigurationSection config = configLoader.getConfig();
             config.set("token", token);
             configLoader.save();
             logger.info("Token set to: {}", token);
         });
     }
-}
\ No newline at end of file
+
+    private void logMetrics(InvocationMetrics metrics, double uptimeSeconds) {
+        LatencyHistogram latencies = metrics.getLatencies();
+        logger.info(" - {}: {} calls ({}/s), {} errors, {} rejected, p50 {} ms, p99 {} ms, max {} ms",
+                metrics.getName(),
+                metrics.getInvocations(),
+                String.format("%.2f", metrics.getInvocations() / uptimeSeconds),
+                metrics.getErrors(),
+                metrics.getRejected(),
+                String.format("%.2f", latencies.getPercentile(50) / 1e6),
+                String.format("%.2f", latencies.getPercentile(99) / 1e6),
+                String.format("%.2f", latencies.getMaxNanos() / 1e6));
+    }
+}
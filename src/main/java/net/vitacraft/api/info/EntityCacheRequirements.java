@@ -0,0 +1,37 @@
+package net.vitacraft.api.info;
+
+import java.util.List;
+
+/**
+ * The JDA entity caches a module needs, declared in the {@code entity-cache} section of its {@code module.yml}.
+ * <p>
+ * The bot enables the union of what all modules require on top of the {@code entity-cache} section of bot.yml,
+ * so caches no module needs stay disabled.
+ * </p>
+ *
+ * <pre>
+ * entity-cache:
+ *   cache-flags: [VOICE_STATE]
+ *   member-cache-policy: [VOICE, OWNER]
+ *   chunking: false
+ * </pre>
+ *
+ * @param cacheFlags           the names of the {@code CacheFlag}s the module needs
+ * @param memberCachePolicies  the names of the {@code MemberCachePolicy} constants whose members the module needs cached
+ * @param chunking             whether the module needs the complete member list of every guild
+ */
+public record EntityCacheRequirements(List<String> cacheFlags, List<String> memberCachePolicies, boolean chunking) {
+    /**
+     * The requirements of a module that needs no entity caches.
+     */
+    public static final EntityCacheRequirements NONE = new EntityCacheRequirements(List.of(), List.of(), false);
+
+    /**
+     * Returns whether the module needs any entity cache.
+     *
+     * @return {@code true} if no cache flag, member cache policy or chunking is required
+     */
+    public boolean isEmpty() {
+        return cacheFlags.isEmpty() && memberCachePolicies.isEmpty() && !chunking;
+    }
+}
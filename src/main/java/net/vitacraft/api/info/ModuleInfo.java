@@ -1,6 +1,7 @@
 package net.vitacraft.api.info;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * The {@code ModuleInfo} class encapsulates information about a module, including
@@ -18,10 +19,12 @@ import java.util.List;
  * ModuleInfo moduleInfo = new ModuleInfo("ExampleModule", "1.0", "An example module", "John Doe", StartUpPriority.HIGH);
  * </pre>
  */
-public record ModuleInfo(String name, String version, String description, List<String> authors, List<String> dependencies, StartUpPriority priority) {
+public record ModuleInfo(String name, String version, String description, List<String> authors, List<String> dependencies, StartUpPriority priority,
+                         boolean lazy, List<Map<String, Object>> commands, List<String> events, EntityCacheRequirements entityCache,
+                         List<String> intents) {
     /**
      * Constructs a new {@code ModuleInfo} object with the specified name, version,
-     * description, author, and startup priority.
+     * description, author, startup priority, lazy activation settings, entity cache requirements and gateway intents.
      *
      * @param name        the name of the module
      * @param version     the version of the module
@@ -29,7 +32,28 @@ public record ModuleInfo(String name, String version, String description, List<S
      * @param authors      the authors of the module
      * @param dependencies the dependencies of the module
      * @param priority    the startup priority of the module
+     * @param lazy        whether the module is only activated when it is first used. The reply to the command that
+     *                    activates the module is deferred, so its handler must reply through the interaction hook.
+     * @param commands    the slash commands declared in the module configuration, in Discord's command structure
+     * @param events      the fully qualified names of the event classes that activate a lazy module
+     * @param entityCache the JDA entity caches the module needs
+     * @param intents     the names of the gateway intents the module needs
      */
     public ModuleInfo {
     }
+
+    /**
+     * Constructs a new {@code ModuleInfo} object with the specified name, version,
+     * description, author, and startup priority, for a module that is activated at startup.
+     *
+     * @param name        the name of the module
+     * @param version     the version of the module
+     * @param description a brief description of the module
+     * @param authors      the authors of the module
+     * @param dependencies the dependencies of the module
+     * @param priority    the startup priority of the module
+     */
+    public ModuleInfo(String name, String version, String description, List<String> authors, List<String> dependencies, StartUpPriority priority) {
+        this(name, version, description, authors, dependencies, priority, false, List.of(), List.of(), EntityCacheRequirements.NONE, List.of());
+    }
 }
@@ -0,0 +1,89 @@
+package net.vitacraft.api.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the invocations, errors and rejected invocations of a single command or module and records their latencies.
+ */
+public class InvocationMetrics {
+    private final String name;
+    private final AtomicLong invocations = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    /**
+     * Constructs a new {@link InvocationMetrics}.
+     *
+     * @param name the name of the measured command or module
+     */
+    public InvocationMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records a single invocation.
+     *
+     * @param nanos  the time the invocation took in nanoseconds
+     * @param failed whether the invocation failed
+     */
+    public void record(long nanos, boolean failed) {
+        invocations.incrementAndGet();
+        if (failed) {
+            errors.incrementAndGet();
+        }
+        latencies.record(nanos);
+    }
+
+    /**
+     * Records an invocation that was rejected before it was handled, for example because of a rate limit.
+     */
+    public void recordRejected() {
+        rejected.incrementAndGet();
+    }
+
+    /**
+     * Returns the name of the measured command or module.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of recorded invocations.
+     *
+     * @return the number of invocations
+     */
+    public long getInvocations() {
+        return invocations.get();
+    }
+
+    /**
+     * Returns the number of failed invocations.
+     *
+     * @return the number of errors
+     */
+    public long getErrors() {
+        return errors.get();
+    }
+
+    /**
+     * Returns the number of rejected invocations.
+     *
+     * @return the number of rejected invocations
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Returns the {@link LatencyHistogram} of all recorded invocations.
+     *
+     * @return the {@link LatencyHistogram}
+     */
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+}
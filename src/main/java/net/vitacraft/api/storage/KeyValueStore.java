@@ -0,0 +1,734 @@
+package net.vitacraft.api.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A persistent key-value store owned by a module.
+ * <p>
+ * Writes are appended to a log and the position of the latest record of every key is kept in a memory-mapped hash
+ * index, so a read is a single lookup in the index and a single read from the log, and the keys of a store never
+ * have to fit on the heap. Writes are queued and committed by a single writer thread: all writes queued while the
+ * previous commit was running are appended with one write and flushed to the disk with one {@code fsync}, so many
+ * small writes share the cost of a flush. A write is visible to reads immediately and its future completes once it
+ * is durable.
+ * </p>
+ * <p>
+ * After a crash, the log is read from the last checkpoint of the index and every intact record is indexed again. A
+ * torn record at the end of the log is cut off and the index is then rebuilt from the whole log. When most of the log consists of overwritten or deleted records, the
+ * live records are copied into a new log, which replaces the old one once it is complete.
+ * </p>
+ */
+public class KeyValueStore implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger("MoBot");
+    private static final Pattern LOG_FILE = Pattern.compile("data-(\\d+)\\.log");
+    private static final double MAX_LOAD_FACTOR = 0.7;
+    private static final int MAX_BATCH = 4096;
+    private static final long CHECKPOINT_BYTES = 16L * 1024 * 1024;
+
+    private final String name;
+    private final Path directory;
+    private final boolean fsync;
+    private final double compactGarbageRatio;
+    private final long compactMinBytes;
+    private final BlockingQueue<Operation> queue = new LinkedBlockingQueue<>();
+    private final Map<String, Mutation> pending = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong logFlushes = new AtomicLong();
+    private final Thread writer;
+    private long generation;
+    private StoreLog log;
+    private StoreIndex index;
+    private volatile boolean closed;
+
+    private sealed interface Operation {
+        CompletableFuture<Void> future();
+    }
+
+    private record Write(List<Mutation> mutations, CompletableFuture<Void> future) implements Operation {
+    }
+
+    private record Compact(CompletableFuture<Void> future) implements Operation {
+    }
+
+    private record Close(CompletableFuture<Void> future) implements Operation {
+    }
+
+    /**
+     * A single write of a key. Mutations are compared by identity, so a committed write only removes itself from the
+     * pending writes and never a later write of the same key.
+     */
+    private static final class Mutation {
+        private final String key;
+        private final byte[] keyBytes;
+        private final byte[] value;
+
+        private Mutation(String key, byte[] value) {
+            this.key = key;
+            this.keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            this.value = value;
+            if (keyBytes.length > StoreLog.MAX_KEY_BYTES) {
+                throw new IllegalArgumentException("Keys are limited to " + StoreLog.MAX_KEY_BYTES + " bytes");
+            }
+            if (value != null && value.length > StoreLog.MAX_VALUE_BYTES) {
+                throw new IllegalArgumentException("Values are limited to " + StoreLog.MAX_VALUE_BYTES + " bytes");
+            }
+        }
+
+        private boolean isDeletion() {
+            return value == null;
+        }
+    }
+
+    /**
+     * Opens a store, creating it if it does not exist, and recovers it if it was not closed cleanly.
+     *
+     * @param name                the name of the store, used in log messages and thread names
+     * @param directory           the directory holding the files of the store
+     * @param fsync               whether every commit is flushed to the disk before its writes complete
+     * @param compactGarbageRatio the share of overwritten and deleted records in the log that triggers a compaction
+     * @param compactMinBytes     the minimum size of the log before it is compacted
+     * @throws IOException if the store cannot be opened
+     */
+    public KeyValueStore(String name, Path directory, boolean fsync, double compactGarbageRatio, long compactMinBytes) throws IOException {
+        this.name = name;
+        this.directory = directory;
+        this.fsync = fsync;
+        this.compactGarbageRatio = compactGarbageRatio;
+        this.compactMinBytes = compactMinBytes;
+        Files.createDirectories(directory);
+        recover();
+        writer = new Thread(this::runWriter, "MoBot-Store-" + name);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private void recover() throws IOException {
+        // A newer generation is only complete once its index exists, otherwise a compaction was interrupted
+        List<Long> generations = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "data-*.log")) {
+            for (Path file : files) {
+                Matcher matcher = LOG_FILE.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    generations.add(Long.parseLong(matcher.group(1)));
+                }
+            }
+        }
+        generations.sort(Comparator.reverseOrder());
+        generation = generations.isEmpty() ? 0 : generations.get(0);
+        for (long candidate : generations) {
+            if (Files.exists(indexFile(candidate))) {
+                generation = candidate;
+                break;
+            }
+        }
+        for (long other : generations) {
+            if (other != generation) {
+                Files.deleteIfExists(logFile(other));
+                Files.deleteIfExists(indexFile(other));
+            }
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "data-*.index.tmp")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        long startNanos = System.nanoTime();
+        log = StoreLog.open(logFile(generation));
+        index = StoreIndex.open(indexFile(generation));
+        long replayFrom;
+        if (index == null || index.checkpoint() > log.length()) {
+            if (index != null) {
+                index.close();
+            }
+            if (log.length() > 0) {
+                logger.warn("Rebuilding the index of store {} from its log", name);
+            }
+            index = StoreIndex.create(indexFile(generation), StoreIndex.MIN_CAPACITY);
+            replayFrom = 0;
+        } else {
+            replayFrom = index.isClean() && index.checkpoint() == log.length() ? log.length() : index.checkpoint();
+        }
+
+        long end = log.scan(replayFrom, (offset, length, record) -> apply(record.key(), offset, length, record.value() == null, true));
+        if (end < log.length()) {
+            logger.warn("Store {} ends with a torn record, discarding the last {} bytes", name, log.length() - end);
+            log.truncate(end);
+            // Slots written before the crash may point into the discarded bytes, so the index is rebuilt from the log
+            index.close();
+            index = StoreIndex.create(indexFile(generation), StoreIndex.MIN_CAPACITY);
+            replayFrom = 0;
+            end = log.scan(0, (offset, length, record) -> apply(record.key(), offset, length, record.value() == null, true));
+        }
+        if (replayFrom < end) {
+            logger.info("Recovered store {}: replayed {} bytes of its log in {} ms", name, end - replayFrom,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        }
+        index.checkpoint(log.length(), false);
+    }
+
+    private Path logFile(long generation) {
+        return directory.resolve("data-" + generation + ".log");
+    }
+
+    private Path indexFile(long generation) {
+        return directory.resolve("data-" + generation + ".index");
+    }
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param key the key
+     * @return a copy of the value, or {@code null} if the key does not exist
+     * @throws UncheckedIOException if the value cannot be read
+     */
+    public byte[] get(String key) {
+        Mutation queued = pending.get(key);
+        if (queued != null) {
+            return queued.isDeletion() ? null : queued.value.clone();
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(keyBytes);
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            for (int slot = index.home(hash); !index.isEmpty(slot); slot = index.next(slot)) {
+                if (index.hash(slot) == hash) {
+                    StoreLog.Record record = log.read(index.offset(slot), index.length(slot));
+                    if (Arrays.equals(record.key(), keyBytes)) {
+                        return record.value();
+                    }
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + key + " from store " + name, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the value of a key as a string.
+     *
+     * @param key the key
+     * @return the value decoded as UTF-8, or {@code null} if the key does not exist
+     * @throws UncheckedIOException if the value cannot be read
+     */
+    public String getString(String key) {
+        byte[] value = get(key);
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns whether a key exists.
+     *
+     * @param key the key
+     * @return {@code true} if the key has a value
+     */
+    public boolean contains(String key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Sets the value of a key. The value is visible to reads immediately.
+     *
+     * @param key   the key
+     * @param value the value
+     * @return a future completed once the value is durable
+     */
+    public CompletableFuture<Void> put(String key, byte[] value) {
+        return putAll(Map.of(key, value));
+    }
+
+    /**
+     * Sets the value of a key to a string.
+     *
+     * @param key   the key
+     * @param value the value, encoded as UTF-8
+     * @return a future completed once the value is durable
+     */
+    public CompletableFuture<Void> putString(String key, String value) {
+        return put(key, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sets the values of several keys, which are committed together.
+     *
+     * @param values the values by key
+     * @return a future completed once all values are durable
+     */
+    public CompletableFuture<Void> putAll(Map<String, byte[]> values) {
+        List<Mutation> mutations = new ArrayList<>(values.size());
+        for (Map.Entry<String, byte[]> entry : values.entrySet()) {
+            mutations.add(new Mutation(entry.getKey(), entry.getValue().clone()));
+        }
+        return submit(mutations);
+    }
+
+    /**
+     * Removes a key.
+     *
+     * @param key the key
+     * @return a future completed once the removal is durable
+     */
+    public CompletableFuture<Void> delete(String key) {
+        return submit(List.of(new Mutation(key, null)));
+    }
+
+    private CompletableFuture<Void> submit(List<Mutation> mutations) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Store " + name + " is closed"));
+        }
+        for (Mutation mutation : mutations) {
+            pending.put(mutation.key, mutation);
+        }
+        Write write = new Write(mutations, new CompletableFuture<>());
+        queue.add(write);
+        return write.future();
+    }
+
+    /**
+     * Returns a future completed once all writes submitted so far are durable.
+     *
+     * @return the future
+     */
+    public CompletableFuture<Void> flush() {
+        return submit(List.of());
+    }
+
+    /**
+     * Copies all live records into a new log, removing overwritten and deleted records.
+     * Writes are queued while the store is compacted, reads continue on the old log.
+     *
+     * @return a future completed once the compaction finished
+     */
+    public CompletableFuture<Void> compact() {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Store " + name + " is closed"));
+        }
+        Compact compact = new Compact(new CompletableFuture<>());
+        queue.add(compact);
+        return compact.future();
+    }
+
+    /**
+     * Passes every key and its value to the given consumer, in no particular order.
+     * Only committed writes are visited, and writes are not committed while the store is iterated.
+     *
+     * @param consumer the consumer receiving every key and value
+     * @throws UncheckedIOException if a value cannot be read
+     */
+    public void forEach(BiConsumer<String, byte[]> consumer) {
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            for (int slot = 0; slot < index.capacity(); slot++) {
+                if (!index.isEmpty(slot) && !index.isDeleted(slot)) {
+                    StoreLog.Record record = log.read(index.offset(slot), index.length(slot));
+                    consumer.accept(new String(record.key(), StandardCharsets.UTF_8), record.value());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to iterate store " + name, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of keys, not counting writes that are not committed yet.
+     *
+     * @return the number of keys
+     */
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return closed ? 0 : index.liveKeys();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the size of the log.
+     *
+     * @return the size of the log in bytes
+     */
+    public long getLogBytes() {
+        lock.readLock().lock();
+        try {
+            return closed ? 0 : log.length();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns how often the log was flushed to the disk since the store was opened.
+     * With fsync enabled, this is the number of commits, which is lower than the number of writes when writes are batched.
+     *
+     * @return the number of flushes of the log
+     */
+    public long getLogFlushes() {
+        return logFlushes.get();
+    }
+
+    /**
+     * Returns the name of this store.
+     *
+     * @return the name of the store
+     */
+    public String getName() {
+        return name;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Store " + name + " is closed");
+        }
+    }
+
+    /**
+     * Commits all queued writes and closes the store.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        Close close = new Close(new CompletableFuture<>());
+        queue.add(close);
+        try {
+            close.future().get(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.error("Failed to close store {}", name, e);
+        }
+    }
+
+    private void runWriter() {
+        List<Operation> batch = new ArrayList<>();
+        List<Write> writes = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch, MAX_BATCH);
+            for (Operation operation : batch) {
+                if (operation instanceof Write write) {
+                    writes.add(write);
+                    continue;
+                }
+                commit(writes);
+                writes.clear();
+                if (operation instanceof Compact compact) {
+                    complete(compact.future(), this::compactNow);
+                } else if (operation instanceof Close close) {
+                    complete(close.future(), this::closeNow);
+                    failRemaining();
+                    return;
+                }
+            }
+            commit(writes);
+            writes.clear();
+            batch.clear();
+            maybeCompact();
+        }
+    }
+
+    private interface IOAction {
+        void run() throws IOException;
+    }
+
+    private static void complete(CompletableFuture<Void> future, IOAction action) {
+        try {
+            action.run();
+            future.complete(null);
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    private void failRemaining() {
+        List<Operation> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (Operation operation : remaining) {
+            operation.future().completeExceptionally(new IllegalStateException("Store " + name + " is closed"));
+        }
+    }
+
+    private void commit(List<Write> writes) {
+        if (writes.isEmpty()) {
+            return;
+        }
+        List<Mutation> mutations = new ArrayList<>();
+        for (Write write : writes) {
+            mutations.addAll(write.mutations());
+        }
+        try {
+            if (!mutations.isEmpty()) {
+                ByteBuffer[] records = new ByteBuffer[mutations.size()];
+                for (int i = 0; i < mutations.size(); i++) {
+                    records[i] = StoreLog.encode(mutations.get(i).keyBytes, mutations.get(i).value);
+                }
+                long offset = log.append(records);
+                if (fsync) {
+                    force(log);
+                }
+                lock.writeLock().lock();
+                try {
+                    for (int i = 0; i < records.length; i++) {
+                        int length = records[i].capacity();
+                        apply(mutations.get(i).keyBytes, offset, length, mutations.get(i).isDeletion(), false);
+                        offset += length;
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                if (log.length() - index.checkpoint() >= CHECKPOINT_BYTES) {
+                    if (!fsync) {
+                        force(log);
+                    }
+                    index.checkpoint(log.length(), false);
+                }
+            }
+            for (Write write : writes) {
+                write.future().complete(null);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to write to store {}", name, e);
+            for (Write write : writes) {
+                write.future().completeExceptionally(e);
+            }
+        } finally {
+            for (Mutation mutation : mutations) {
+                pending.remove(mutation.key, mutation);
+            }
+        }
+    }
+
+    /**
+     * Points the index to a record, keeping the counters of live keys and garbage up to date.
+     * During recovery, records the index already covers are skipped.
+     */
+    private void apply(byte[] key, long offset, int length, boolean deleted, boolean replay) throws IOException {
+        long hash = hash(key);
+        if (index.usedSlots() + 1 > index.capacity() * MAX_LOAD_FACTOR) {
+            resize(StoreIndex.capacityFor(index.liveKeys(), MAX_LOAD_FACTOR / 2));
+        }
+        int slot = index.home(hash);
+        for (; !index.isEmpty(slot); slot = index.next(slot)) {
+            if (index.hash(slot) != hash || !keyEquals(slot, key)) {
+                continue;
+            }
+            if (replay && index.offset(slot) >= offset) {
+                return;
+            }
+            long garbage = index.garbageBytes() + index.length(slot);
+            if (deleted) {
+                garbage += length;
+                if (!index.isDeleted(slot)) {
+                    index.setLiveKeys(index.liveKeys() - 1);
+                }
+            } else if (index.isDeleted(slot)) {
+                index.setLiveKeys(index.liveKeys() + 1);
+            }
+            index.setGarbageBytes(garbage);
+            index.set(slot, hash, offset, length, deleted);
+            return;
+        }
+        if (deleted) {
+            index.setGarbageBytes(index.garbageBytes() + length);
+            return;
+        }
+        index.set(slot, hash, offset, length, false);
+        index.setUsedSlots(index.usedSlots() + 1);
+        index.setLiveKeys(index.liveKeys() + 1);
+    }
+
+    private boolean keyEquals(int slot, byte[] key) throws IOException {
+        ByteBuffer header = log.readRaw(index.offset(slot), Math.min(index.length(slot), StoreLog.HEADER_BYTES + key.length));
+        if (header.getInt(4) != key.length) {
+            return false;
+        }
+        return Arrays.equals(header.array(), StoreLog.HEADER_BYTES, StoreLog.HEADER_BYTES + key.length, key, 0, key.length);
+    }
+
+    /**
+     * Copies all slots into a new index with the given capacity, dropping the slots of deleted keys.
+     * Must be called by the writer thread while holding the write lock or during recovery.
+     */
+    private void resize(int capacity) throws IOException {
+        Path temp = directory.resolve("data-" + generation + ".index.tmp");
+        StoreIndex resized = StoreIndex.create(temp, capacity);
+        long used = 0;
+        for (int slot = 0; slot < index.capacity(); slot++) {
+            if (!index.isEmpty(slot) && !index.isDeleted(slot)) {
+                int target = resized.home(index.hash(slot));
+                while (!resized.isEmpty(target)) {
+                    target = resized.next(target);
+                }
+                resized.set(target, index.hash(slot), index.offset(slot), index.length(slot), false);
+                used++;
+            }
+        }
+        resized.setUsedSlots(used);
+        resized.setLiveKeys(index.liveKeys());
+        resized.setGarbageBytes(index.garbageBytes());
+        resized.checkpoint(index.checkpoint(), false);
+        resized.close();
+        index.close();
+        Files.move(temp, indexFile(generation), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        index = StoreIndex.open(indexFile(generation));
+        if (index == null) {
+            throw new IOException("Resized index of store " + name + " is invalid");
+        }
+    }
+
+    private void maybeCompact() {
+        if (log.length() >= compactMinBytes && index.garbageBytes() >= log.length() * compactGarbageRatio) {
+            try {
+                compactNow();
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to compact store {}", name, e);
+            }
+        }
+    }
+
+    private void compactNow() throws IOException {
+        long startNanos = System.nanoTime();
+        long oldBytes = log.length();
+        long newGeneration = generation + 1;
+        Files.deleteIfExists(logFile(newGeneration));
+        Path tempIndex = directory.resolve("data-" + newGeneration + ".index.tmp");
+        StoreLog newLog = StoreLog.open(logFile(newGeneration));
+        StoreIndex newIndex = StoreIndex.create(tempIndex, StoreIndex.capacityFor(index.liveKeys(), MAX_LOAD_FACTOR / 2));
+        try {
+            List<ByteBuffer> chunk = new ArrayList<>();
+            List<long[]> chunkSlots = new ArrayList<>();
+            long chunkBytes = 0;
+            long live = 0;
+            for (int slot = 0; slot < index.capacity(); slot++) {
+                if (index.isEmpty(slot) || index.isDeleted(slot)) {
+                    continue;
+                }
+                chunk.add(log.readRaw(index.offset(slot), index.length(slot)));
+                chunkSlots.add(new long[]{index.hash(slot), index.length(slot)});
+                chunkBytes += index.length(slot);
+                live++;
+                if (chunkBytes >= 1 << 20) {
+                    appendChunk(newLog, newIndex, chunk, chunkSlots);
+                    chunkBytes = 0;
+                }
+            }
+            appendChunk(newLog, newIndex, chunk, chunkSlots);
+            force(newLog);
+            newIndex.setUsedSlots(live);
+            newIndex.setLiveKeys(live);
+            newIndex.setGarbageBytes(0);
+            newIndex.checkpoint(newLog.length(), false);
+        } catch (IOException | RuntimeException e) {
+            newLog.close();
+            newIndex.close();
+            Files.deleteIfExists(logFile(newGeneration));
+            Files.deleteIfExists(tempIndex);
+            throw e;
+        }
+        newIndex.close();
+        // The new generation becomes the current one with this move
+        Files.move(tempIndex, indexFile(newGeneration), StandardCopyOption.ATOMIC_MOVE);
+        StoreIndex openedIndex = StoreIndex.open(indexFile(newGeneration));
+        if (openedIndex == null) {
+            throw new IOException("Compacted index of store " + name + " is invalid");
+        }
+
+        long oldGeneration = generation;
+        StoreLog oldLog = log;
+        StoreIndex oldIndex = index;
+        lock.writeLock().lock();
+        try {
+            log = newLog;
+            index = openedIndex;
+            generation = newGeneration;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        oldLog.close();
+        oldIndex.close();
+        Files.deleteIfExists(logFile(oldGeneration));
+        Files.deleteIfExists(indexFile(oldGeneration));
+        logger.info("Compacted store {} from {} to {} bytes in {} ms", name, oldBytes, log.length(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    private static void appendChunk(StoreLog newLog, StoreIndex newIndex, List<ByteBuffer> chunk, List<long[]> chunkSlots) throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        long offset = newLog.append(chunk.toArray(new ByteBuffer[0]));
+        for (long[] slotInfo : chunkSlots) {
+            int slot = newIndex.home(slotInfo[0]);
+            while (!newIndex.isEmpty(slot)) {
+                slot = newIndex.next(slot);
+            }
+            newIndex.set(slot, slotInfo[0], offset, (int) slotInfo[1], false);
+            offset += slotInfo[1];
+        }
+        chunk.clear();
+        chunkSlots.clear();
+    }
+
+    private void force(StoreLog target) throws IOException {
+        target.force();
+        logFlushes.incrementAndGet();
+    }
+
+    private void closeNow() throws IOException {
+        lock.writeLock().lock();
+        try {
+            closed = true;
+            force(log);
+            index.checkpoint(log.length(), true);
+            log.close();
+            index.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static long hash(byte[] key) {
+        // FNV-1a, followed by the finalizer of MurmurHash3 to spread the bits over the whole long
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93fe53e9a63L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
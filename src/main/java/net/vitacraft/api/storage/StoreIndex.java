@@ -0,0 +1,227 @@
+package net.vitacraft.api.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The memory-mapped hash index of a {@link KeyValueStore}.
+ * <p>
+ * The index is an open-addressing hash table with linear probing, stored in a file and mapped into memory, so the
+ * keys of a store never have to be held on the heap. Every slot holds the 64-bit hash of a key and the position and
+ * length of its latest record in the log. Deleted keys keep their slot, pointing to the deletion record, until the
+ * store is compacted, so probe sequences are never interrupted.
+ * </p>
+ * <p>
+ * The header records up to which offset of the log the index is complete and durable (the checkpoint), and whether
+ * the store was closed cleanly. The index can always be rebuilt from the log.
+ * </p>
+ */
+final class StoreIndex implements Closeable {
+    static final int MIN_CAPACITY = 1024;
+    static final int MAX_CAPACITY = 1 << 26;
+
+    private static final int MAGIC = 0x4D424B56; // "MBKV"
+    private static final int VERSION = 1;
+    private static final int STATE_CLEAN = 1;
+    private static final int STATE_DIRTY = 2;
+
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 24;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int STATE_OFFSET = 8;
+    private static final int CAPACITY_OFFSET = 12;
+    private static final int USED_SLOTS_OFFSET = 16;
+    private static final int LIVE_KEYS_OFFSET = 24;
+    private static final int GARBAGE_BYTES_OFFSET = 32;
+    private static final int CHECKPOINT_OFFSET = 40;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final int mask;
+
+    private StoreIndex(FileChannel channel, MappedByteBuffer buffer, int capacity) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Creates a new, empty index, replacing any existing file.
+     *
+     * @param file     the index file
+     * @param capacity the number of slots, a power of two
+     * @return the new {@link StoreIndex}
+     * @throws IOException if the file cannot be created
+     */
+    static StoreIndex create(Path file, int capacity) throws IOException {
+        Files.deleteIfExists(file);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * SLOT_BYTES);
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+        buffer.putInt(VERSION_OFFSET, VERSION);
+        buffer.putInt(STATE_OFFSET, STATE_DIRTY);
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        return new StoreIndex(channel, buffer, capacity);
+    }
+
+    /**
+     * Opens an existing index.
+     *
+     * @param file the index file
+     * @return the {@link StoreIndex}, or {@code null} if the file does not exist or is not a valid index
+     * @throws IOException if the file cannot be opened
+     */
+    static StoreIndex open(Path file) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) < HEADER_BYTES) {
+            return null;
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+        int capacity = header.getInt(CAPACITY_OFFSET);
+        if (header.getInt(MAGIC_OFFSET) != MAGIC || header.getInt(VERSION_OFFSET) != VERSION
+                || capacity < MIN_CAPACITY || capacity > MAX_CAPACITY || Integer.bitCount(capacity) != 1
+                || channel.size() != HEADER_BYTES + (long) capacity * SLOT_BYTES) {
+            channel.close();
+            return null;
+        }
+        return new StoreIndex(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()), capacity);
+    }
+
+    /**
+     * Returns the smallest capacity that holds the given number of keys below the maximum load factor.
+     *
+     * @param keys          the number of keys
+     * @param maxLoadFactor the maximum share of occupied slots
+     * @return the capacity, a power of two
+     */
+    static int capacityFor(long keys, double maxLoadFactor) {
+        long needed = Math.max(MIN_CAPACITY, (long) Math.ceil((keys + 1) / maxLoadFactor));
+        if (needed > MAX_CAPACITY) {
+            throw new IllegalStateException("Key-value stores are limited to " + (long) (MAX_CAPACITY * maxLoadFactor) + " keys");
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    /**
+     * Returns the first slot of the probe sequence of a hash.
+     *
+     * @param hash the hash of a key
+     * @return the slot
+     */
+    int home(long hash) {
+        return (int) hash & mask;
+    }
+
+    /**
+     * Returns the slot after the given one in a probe sequence.
+     *
+     * @param slot the slot
+     * @return the next slot
+     */
+    int next(int slot) {
+        return (slot + 1) & mask;
+    }
+
+    boolean isEmpty(int slot) {
+        return buffer.getLong(position(slot) + 8) == 0;
+    }
+
+    long hash(int slot) {
+        return buffer.getLong(position(slot));
+    }
+
+    long offset(int slot) {
+        return buffer.getLong(position(slot) + 8) - 1;
+    }
+
+    int length(int slot) {
+        return buffer.getInt(position(slot) + 16);
+    }
+
+    boolean isDeleted(int slot) {
+        return buffer.getInt(position(slot) + 20) != 0;
+    }
+
+    /**
+     * Points a slot to a record.
+     *
+     * @param slot    the slot
+     * @param hash    the hash of the key
+     * @param offset  the offset of the record in the log
+     * @param length  the length of the record in bytes
+     * @param deleted whether the record is a deletion
+     */
+    void set(int slot, long hash, long offset, int length, boolean deleted) {
+        int position = position(slot);
+        buffer.putLong(position, hash);
+        buffer.putLong(position + 8, offset + 1);
+        buffer.putInt(position + 16, length);
+        buffer.putInt(position + 20, deleted ? 1 : 0);
+    }
+
+    private static int position(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    long usedSlots() {
+        return buffer.getLong(USED_SLOTS_OFFSET);
+    }
+
+    void setUsedSlots(long usedSlots) {
+        buffer.putLong(USED_SLOTS_OFFSET, usedSlots);
+    }
+
+    long liveKeys() {
+        return buffer.getLong(LIVE_KEYS_OFFSET);
+    }
+
+    void setLiveKeys(long liveKeys) {
+        buffer.putLong(LIVE_KEYS_OFFSET, liveKeys);
+    }
+
+    long garbageBytes() {
+        return buffer.getLong(GARBAGE_BYTES_OFFSET);
+    }
+
+    void setGarbageBytes(long garbageBytes) {
+        buffer.putLong(GARBAGE_BYTES_OFFSET, garbageBytes);
+    }
+
+    long checkpoint() {
+        return buffer.getLong(CHECKPOINT_OFFSET);
+    }
+
+    boolean isClean() {
+        return buffer.getInt(STATE_OFFSET) == STATE_CLEAN;
+    }
+
+    /**
+     * Flushes all slots to the disk and then records the checkpoint, so the index is known to be complete up to it.
+     *
+     * @param logLength the length of the log covered by the index
+     * @param clean     whether the store is being closed
+     */
+    void checkpoint(long logLength, boolean clean) {
+        buffer.force();
+        buffer.putLong(CHECKPOINT_OFFSET, logLength);
+        buffer.putInt(STATE_OFFSET, clean ? STATE_CLEAN : STATE_DIRTY);
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,254 @@
+package net.vitacraft.api.storage;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * The append-only log of a {@link KeyValueStore}.
+ * <p>
+ * Every write is appended as a record of a CRC32C checksum, the key length, the value length (-1 for a deletion),
+ * the key and the value. The checksum covers everything after itself, so a record torn by a crash is detected when
+ * the log is scanned during recovery and the log is cut off before it.
+ * </p>
+ */
+final class StoreLog implements Closeable {
+    static final int HEADER_BYTES = 12;
+    static final int MAX_KEY_BYTES = 64 * 1024;
+    static final int MAX_VALUE_BYTES = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private long length;
+
+    /**
+     * A record read from the log.
+     *
+     * @param key   the key
+     * @param value the value, or {@code null} if the record is a deletion
+     */
+    record Record(byte[] key, byte[] value) {
+    }
+
+    /**
+     * Receives the records of a scan.
+     */
+    @FunctionalInterface
+    interface RecordVisitor {
+
+        /**
+         * Called for every valid record.
+         *
+         * @param offset the offset of the record in the log
+         * @param length the length of the record in bytes
+         * @param record the record
+         * @throws IOException if the record cannot be processed
+         */
+        void visit(long offset, int length, Record record) throws IOException;
+    }
+
+    private StoreLog(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.length = channel.size();
+    }
+
+    /**
+     * Opens a log, creating it if it does not exist.
+     *
+     * @param file the log file
+     * @return the {@link StoreLog}
+     * @throws IOException if the file cannot be opened
+     */
+    static StoreLog open(Path file) throws IOException {
+        return new StoreLog(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+    }
+
+    /**
+     * Encodes a record.
+     *
+     * @param key   the key
+     * @param value the value, or {@code null} for a deletion
+     * @return a buffer containing the record, ready to be written
+     */
+    static ByteBuffer encode(byte[] key, byte[] value) {
+        int valueLength = value == null ? -1 : value.length;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + key.length + Math.max(0, valueLength));
+        buffer.putInt(0).putInt(key.length).putInt(valueLength).put(key);
+        if (value != null) {
+            buffer.put(value);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 4, buffer.capacity() - 4);
+        buffer.putInt(0, (int) crc.getValue());
+        return buffer.flip();
+    }
+
+    /**
+     * Appends records to the end of the log with a single gathering write.
+     * If the write fails, the log is cut back to its previous length, so no partial record is left behind.
+     *
+     * @param records the encoded records
+     * @return the offset of the first record
+     * @throws IOException if the records cannot be written
+     */
+    long append(ByteBuffer[] records) throws IOException {
+        long start = length;
+        long total = 0;
+        for (ByteBuffer record : records) {
+            total += record.remaining();
+        }
+        try {
+            channel.position(start);
+            long written = 0;
+            while (written < total) {
+                written += channel.write(records);
+            }
+        } catch (IOException e) {
+            try {
+                channel.truncate(start);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        length = start + total;
+        return start;
+    }
+
+    /**
+     * Reads and verifies a record.
+     *
+     * @param offset the offset of the record
+     * @param length the length of the record in bytes
+     * @return the {@link Record}
+     * @throws IOException if the record cannot be read or is corrupt
+     */
+    Record read(long offset, int length) throws IOException {
+        ByteBuffer buffer = readRaw(offset, length);
+        int checksum = buffer.getInt();
+        int keyLength = buffer.getInt();
+        int valueLength = buffer.getInt();
+        if (keyLength < 0 || HEADER_BYTES + keyLength + Math.max(0, valueLength) != length) {
+            throw new IOException("Corrupt record at offset " + offset);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 4, length - 4);
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("Checksum mismatch of record at offset " + offset);
+        }
+        byte[] key = new byte[keyLength];
+        buffer.get(key);
+        byte[] value = null;
+        if (valueLength >= 0) {
+            value = new byte[valueLength];
+            buffer.get(value);
+        }
+        return new Record(key, value);
+    }
+
+    /**
+     * Reads the bytes of a record without verifying them.
+     *
+     * @param offset the offset of the record
+     * @param length the length of the record in bytes
+     * @return a heap buffer containing the record
+     * @throws IOException if the record cannot be read
+     */
+    ByteBuffer readRaw(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Record at offset " + offset + " exceeds the log");
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Reads all records from an offset to the end of the log, stopping at the first torn or corrupt record.
+     *
+     * @param from    the offset to start at
+     * @param visitor the {@link RecordVisitor} receiving every valid record
+     * @return the offset after the last valid record
+     * @throws IOException if the log cannot be read or the visitor fails
+     */
+    long scan(long from, RecordVisitor visitor) throws IOException {
+        long offset = from;
+        DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(from)), 1 << 20));
+        CRC32C crc = new CRC32C();
+        byte[] header = new byte[HEADER_BYTES];
+        try {
+            while (offset + HEADER_BYTES <= length) {
+                input.readFully(header);
+                ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+                int checksum = headerBuffer.getInt();
+                int keyLength = headerBuffer.getInt();
+                int valueLength = headerBuffer.getInt();
+                if (keyLength < 0 || keyLength > MAX_KEY_BYTES || valueLength < -1 || valueLength > MAX_VALUE_BYTES) {
+                    break;
+                }
+                int recordLength = HEADER_BYTES + keyLength + Math.max(0, valueLength);
+                if (offset + recordLength > length) {
+                    break;
+                }
+                byte[] key = new byte[keyLength];
+                input.readFully(key);
+                byte[] value = valueLength >= 0 ? new byte[valueLength] : null;
+                if (value != null) {
+                    input.readFully(value);
+                }
+                crc.reset();
+                crc.update(header, 4, HEADER_BYTES - 4);
+                crc.update(key);
+                if (value != null) {
+                    crc.update(value);
+                }
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                visitor.visit(offset, recordLength, new Record(key, value));
+                offset += recordLength;
+            }
+        } catch (EOFException e) {
+            // The log is shorter than expected, the last record is torn
+        }
+        return offset;
+    }
+
+    /**
+     * Cuts off the log, for example after a torn record.
+     *
+     * @param newLength the new length of the log
+     * @throws IOException if the log cannot be truncated
+     */
+    void truncate(long newLength) throws IOException {
+        channel.truncate(newLength);
+        length = newLength;
+    }
+
+    /**
+     * Flushes all appended records to the disk.
+     *
+     * @throws IOException if the log cannot be flushed
+     */
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * Returns the length of the log.
+     *
+     * @return the length of the log in bytes
+     */
+    long length() {
+        return length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,114 @@
+package net.vitacraft.manager;
+
+import net.vitacraft.api.cache.CacheSpec;
+import net.vitacraft.api.cache.ModuleCache;
+import net.vitacraft.api.config.ConfigSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Creates and tracks the {@link ModuleCache}s of all modules.
+ * <p>
+ * Limits a module does not set are taken from the defaults in the {@code caches} section of bot.yml, and
+ * {@code caches.overrides.<module>.<cache>} replaces the limits of a single cache, so operators can bound the memory
+ * of every cache without changing the module. All caches of a module are dropped when the module is disabled.
+ * </p>
+ */
+public class CacheManager {
+    private static final Logger logger = LoggerFactory.getLogger("MoBot");
+
+    private final CacheSpec defaults;
+    private final ConfigSnapshot overrides;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("MoBot-Cache-", 0).factory());
+    private final Map<String, Map<String, ModuleCache<?, ?>>> caches = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new {@link CacheManager}.
+     *
+     * @param defaults  the limits used for every limit a cache does not set
+     * @param overrides the {@code caches.overrides} section of bot.yml, with the limits of single caches by module and cache name
+     */
+    public CacheManager(CacheSpec defaults, ConfigSnapshot overrides) {
+        this.defaults = defaults;
+        this.overrides = overrides;
+    }
+
+    /**
+     * Creates a cache for a module. A cache with the same name created earlier by the module is replaced.
+     *
+     * @param moduleName the name of the module owning the cache
+     * @param name       the name of the cache
+     * @param spec       the limits of the cache
+     * @param loader     the function computing missing entries, or {@code null} if entries are only added explicitly
+     * @param <K>        the type of the keys
+     * @param <V>        the type of the values
+     * @return the new {@link ModuleCache}
+     */
+    public <K, V> ModuleCache<K, V> createCache(String moduleName, String name, CacheSpec spec, Function<? super K, ? extends V> loader) {
+        ModuleCache<K, V> cache = new ModuleCache<>(moduleName, name, resolve(moduleName, name, spec), loader, executor);
+        ModuleCache<?, ?> previous = caches.computeIfAbsent(moduleName, key -> new ConcurrentHashMap<>()).put(name, cache);
+        if (previous != null) {
+            previous.invalidateAll();
+        }
+        logger.debug("Created cache {} of module {} with {}", name, moduleName, cache.getSpec());
+        return cache;
+    }
+
+    private CacheSpec resolve(String moduleName, String name, CacheSpec spec) {
+        ConfigSnapshot override = overrides.getSection(moduleName).getSection(name);
+        long maximumSize = override.getLong("maximum-size", spec.maximumSize() > 0 ? spec.maximumSize() : defaults.maximumSize());
+        Duration expireAfterWrite = seconds(override, "expire-after-write-seconds",
+                spec.expireAfterWrite() != null ? spec.expireAfterWrite() : defaults.expireAfterWrite());
+        Duration expireAfterAccess = seconds(override, "expire-after-access-seconds",
+                spec.expireAfterAccess() != null ? spec.expireAfterAccess() : defaults.expireAfterAccess());
+        return new CacheSpec(maximumSize, expireAfterWrite, expireAfterAccess);
+    }
+
+    private static Duration seconds(ConfigSnapshot config, String path, Duration def) {
+        return config.contains(path) ? Duration.ofSeconds(config.getLong(path, 0)) : def;
+    }
+
+    /**
+     * Removes all caches of a module and their entries.
+     *
+     * @param moduleName the name of the module
+     */
+    public void dropCaches(String moduleName) {
+        Map<String, ModuleCache<?, ?>> moduleCaches = caches.remove(moduleName);
+        if (moduleCaches == null) {
+            return;
+        }
+        for (ModuleCache<?, ?> cache : moduleCaches.values()) {
+            cache.invalidateAll();
+        }
+        logger.debug("Dropped {} caches of module {}", moduleCaches.size(), moduleName);
+    }
+
+    /**
+     * Returns all caches, sorted by module and cache name.
+     *
+     * @return the {@link ModuleCache}s of all modules
+     */
+    public List<ModuleCache<?, ?>> getCaches() {
+        List<ModuleCache<?, ?>> all = new ArrayList<>();
+        for (Map<String, ModuleCache<?, ?>> moduleCaches : caches.values()) {
+            all.addAll(moduleCaches.values());
+        }
+        all.sort(Comparator.<ModuleCache<?, ?>, String>comparing(ModuleCache::getModuleName).thenComparing(ModuleCache::getName));
+        return all;
+    }
+
+    /**
+     * Stops the executor loading cache entries.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,67 @@
+package net.vitacraft.manager;
+
+import net.dv8tion.jda.api.interactions.commands.Command;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Utility class for converting commands declared in a module configuration into {@link CommandData}.
+ * <p>
+ * Declarations use Discord's command structure, for example:
+ * </p>
+ * <pre>
+ * commands:
+ *   - name: ping
+ *     description: Replies with pong
+ *     options:
+ *       - name: target
+ *         type: USER
+ *         description: Who to ping
+ *         required: false
+ * </pre>
+ * <p>
+ * Command and option types may be given either by their numeric id or by their JDA enum name.
+ * </p>
+ */
+final class CommandDeclarations {
+
+    private CommandDeclarations() {
+    }
+
+    /**
+     * Converts a declared command into {@link CommandData}.
+     *
+     * @param declaration the declared command
+     * @return the {@link CommandData} of the command
+     * @throws IllegalArgumentException if the declaration is not a valid command
+     */
+    static CommandData toCommandData(Map<?, ?> declaration) {
+        return CommandData.fromData(toDataObject(declaration, true));
+    }
+
+    private static DataObject toDataObject(Map<?, ?> declaration, boolean command) {
+        DataObject data = DataObject.empty();
+        for (Map.Entry<?, ?> entry : declaration.entrySet()) {
+            String key = String.valueOf(entry.getKey());
+            Object value = entry.getValue();
+            if (key.equals("type") && value instanceof String typeName) {
+                String constant = typeName.toUpperCase(Locale.ROOT);
+                value = command ? Command.Type.valueOf(constant).getId() : OptionType.valueOf(constant).getKey();
+            } else if (key.equals("options") && value instanceof List<?> options) {
+                DataArray array = DataArray.empty();
+                for (Object option : options) {
+                    array.add(toDataObject((Map<?, ?>) option, false));
+                }
+                value = array;
+            }
+            data.put(key, value);
+        }
+        return data;
+    }
+}
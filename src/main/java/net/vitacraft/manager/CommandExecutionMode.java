@@ -0,0 +1,15 @@
+package net.vitacraft.manager;
+
+/**
+ * The {@code CommandExecutionMode} enum defines on which thread the {@link CommandManager} runs slash command handlers.
+ * <p>
+ * {@code INLINE} runs handlers directly on the JDA event thread, so a slow handler delays all other events of its shard.
+ * {@code PLATFORM} runs handlers on a fixed pool of platform threads.
+ * {@code VIRTUAL} runs every invocation on its own virtual thread, so handlers may block on I/O without tying up a thread.
+ * </p>
+ */
+public enum CommandExecutionMode {
+    INLINE,
+    PLATFORM,
+    VIRTUAL
+}
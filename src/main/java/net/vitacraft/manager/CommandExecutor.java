@@ -0,0 +1,189 @@
+package net.vitacraft.manager;
+
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.vitacraft.api.addons.SlashCommandAddon;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs slash command handlers in their configured {@link CommandExecutionMode}.
+ * <p>
+ * The default mode can be overridden per command, either for a top-level command or for a single subcommand
+ * given by its full command name. An override for a subcommand takes precedence over one for its command.
+ * </p>
+ * <p>
+ * The latency and outcome of every invocation is recorded in the {@link MetricsManager}, by full command name.
+ * </p>
+ * <p>
+ * Auto-defer is disabled by default. If it is enabled, the reply of every interaction is deferred once its handler
+ * returned or the auto-defer time passed, whichever comes first, so Discord does not consider the interaction failed
+ * after three seconds. Since the interaction can then be deferred at any time while the handler runs, handlers must
+ * not reply with {@link SlashCommandInteractionEvent#reply(String)} but only through
+ * {@link SlashCommandInteractionEvent#getHook()}, whose messages are sent once the interaction was deferred.
+ * </p>
+ */
+public class CommandExecutor {
+    private static final Logger logger = LoggerFactory.getLogger("MoBot");
+
+    private final CommandExecutionMode defaultMode;
+    private final Map<String, CommandExecutionMode> overrides = new HashMap<>();
+    private final long autoDeferMillis;
+    private final MetricsManager metricsManager;
+    private final ExecutorService virtualExecutor;
+    private final ExecutorService platformExecutor;
+    private final ScheduledExecutorService deferScheduler;
+
+    /**
+     * Constructs a new {@link CommandExecutor}.
+     *
+     * @param defaultMode     the {@link CommandExecutionMode} of all commands without an override
+     * @param overrides       the {@link CommandExecutionMode} of single commands, by command or full subcommand name
+     * @param platformThreads the number of threads of the platform pool
+     * @param autoDeferMillis the time in milliseconds after which unacknowledged interactions are deferred, 0 to disable
+     * @param metricsManager  the {@link MetricsManager} to record the invocations in
+     */
+    public CommandExecutor(CommandExecutionMode defaultMode, Map<String, CommandExecutionMode> overrides, int platformThreads, long autoDeferMillis, MetricsManager metricsManager) {
+        this.defaultMode = defaultMode;
+        for (Map.Entry<String, CommandExecutionMode> override : overrides.entrySet()) {
+            this.overrides.put(CommandRoute.normalize(override.getKey()).replaceAll("\\s+", " "), override.getValue());
+        }
+        this.autoDeferMillis = autoDeferMillis;
+        this.metricsManager = metricsManager;
+
+        this.virtualExecutor = uses(CommandExecutionMode.VIRTUAL)
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("MoBot-Command-", 0).factory())
+                : null;
+        if (uses(CommandExecutionMode.PLATFORM)) {
+            AtomicInteger threadCount = new AtomicInteger();
+            this.platformExecutor = Executors.newFixedThreadPool(Math.max(1, platformThreads), runnable -> {
+                Thread thread = new Thread(runnable, "MoBot-Command-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.platformExecutor = null;
+        }
+        this.deferScheduler = autoDeferMillis > 0 ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MoBot-CommandDefer");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    private boolean uses(CommandExecutionMode mode) {
+        return defaultMode == mode || overrides.containsValue(mode);
+    }
+
+    /**
+     * Runs a slash command handler in the {@link CommandExecutionMode} configured for the interaction.
+     *
+     * @param event             the interaction to handle
+     * @param slashCommandAddon the handler of the interaction
+     */
+    public void execute(SlashCommandInteractionEvent event, SlashCommandAddon slashCommandAddon) {
+        if (slashCommandAddon instanceof LazyCommandActivator activator) {
+            // Returns at once and runs the handler of the module through this executor once it is active
+            activator.execute(event);
+            return;
+        }
+        ScheduledFuture<?> autoDefer = deferScheduler == null ? null
+                : deferScheduler.schedule(() -> defer(event), autoDeferMillis, TimeUnit.MILLISECONDS);
+        Runnable invocation = () -> {
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                slashCommandAddon.execute(event);
+                failed = false;
+            } catch (Exception e) {
+                logger.error("Failed to execute command /{}", event.getFullCommandName(), e);
+            } finally {
+                metricsManager.getCommandMetrics(event.getFullCommandName()).record(System.nanoTime() - start, failed);
+                if (autoDefer != null && autoDefer.cancel(false)) {
+                    // Messages the handler sent through the hook are only delivered once the interaction is acknowledged
+                    defer(event);
+                }
+            }
+        };
+
+        try {
+            run(getMode(event), invocation);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Rejected command /{}: the command executor is shut down.", event.getFullCommandName());
+            if (autoDefer != null) {
+                autoDefer.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Runs the handler of a button, select menu or modal interaction in the default {@link CommandExecutionMode},
+     * so it does not block the event thread of its shard.
+     *
+     * @param name    the custom id of the interaction, used in log messages
+     * @param handler the handler of the interaction
+     */
+    public void execute(String name, Runnable handler) {
+        try {
+            run(defaultMode, handler);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Rejected interaction {}: the command executor is shut down.", name);
+        }
+    }
+
+    private void run(CommandExecutionMode mode, Runnable invocation) {
+        switch (mode) {
+            case INLINE -> invocation.run();
+            case PLATFORM -> platformExecutor.execute(invocation);
+            case VIRTUAL -> virtualExecutor.execute(invocation);
+        }
+    }
+
+    /**
+     * Returns the {@link CommandExecutionMode} configured for an interaction.
+     *
+     * @param event the interaction
+     * @return the {@link CommandExecutionMode} of the interaction
+     */
+    public CommandExecutionMode getMode(SlashCommandInteractionEvent event) {
+        if (overrides.isEmpty()) {
+            return defaultMode;
+        }
+        CommandExecutionMode mode = overrides.get(event.getFullCommandName());
+        if (mode == null) {
+            mode = overrides.getOrDefault(event.getName(), defaultMode);
+        }
+        return mode;
+    }
+
+    private void defer(SlashCommandInteractionEvent event) {
+        if (!event.isAcknowledged()) {
+            event.deferReply().queue(null, failure ->
+                    logger.debug("Could not defer command /{}: {}", event.getFullCommandName(), failure.getMessage()));
+        }
+    }
+
+    /**
+     * Stops accepting new invocations and waits briefly for running handlers to finish.
+     */
+    public void shutdown() {
+        for (ExecutorService executor : new ExecutorService[]{virtualExecutor, platformExecutor, deferScheduler}) {
+            if (executor == null) {
+                continue;
+            }
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
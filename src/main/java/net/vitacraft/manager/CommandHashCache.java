@@ -0,0 +1,116 @@
+package net.vitacraft.manager;
+
+import net.vitacraft.api.config.ConfigLoader;
+import org.simpleyaml.configuration.ConfigurationSection;
+import org.simpleyaml.configuration.file.FileConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persists the hashes of the command sets last pushed to Discord, globally and per guild.
+ * <p>
+ * The {@link CommandSyncScheduler} compares the current command set against these hashes and skips
+ * every update whose result is already known to Discord, which also holds across restarts.
+ * Deleting the cache file forces a full resynchronization on the next start.
+ * </p>
+ */
+public class CommandHashCache {
+    private static final Logger logger = LoggerFactory.getLogger("MoBot");
+
+    private final ConfigLoader configLoader;
+    private final Map<Long, String> guildHashes = new ConcurrentHashMap<>();
+    private volatile String globalHash;
+    private volatile boolean dirty;
+
+    /**
+     * Constructs a new {@link CommandHashCache} and loads all hashes stored in the given file.
+     *
+     * @param path the path to the cache file
+     */
+    public CommandHashCache(String path) {
+        this.configLoader = new ConfigLoader(path);
+        FileConfiguration config = configLoader.getConfig();
+        globalHash = config.getString("global");
+        ConfigurationSection guilds = config.getConfigurationSection("guilds");
+        if (guilds != null) {
+            for (String key : guilds.getKeys(false)) {
+                try {
+                    guildHashes.put(Long.parseLong(key), guilds.getString(key));
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring invalid guild id '{}' in command cache.", key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the hash of the command set last pushed globally.
+     *
+     * @return the hash, or {@code null} if unknown
+     */
+    public String getGlobalHash() {
+        return globalHash;
+    }
+
+    /**
+     * Sets the hash of the command set last pushed globally.
+     *
+     * @param hash the hash of the command set
+     */
+    public void setGlobalHash(String hash) {
+        globalHash = hash;
+        dirty = true;
+    }
+
+    /**
+     * Returns the hash of the command set last pushed to a guild.
+     *
+     * @param guildId the id of the guild
+     * @return the hash, or {@code null} if unknown
+     */
+    public String getGuildHash(long guildId) {
+        return guildHashes.get(guildId);
+    }
+
+    /**
+     * Sets the hash of the command set last pushed to a guild.
+     *
+     * @param guildId the id of the guild
+     * @param hash the hash of the command set
+     */
+    public void setGuildHash(long guildId, String hash) {
+        guildHashes.put(guildId, hash);
+        dirty = true;
+    }
+
+    /**
+     * Removes the stored hash of a guild.
+     *
+     * @param guildId the id of the guild
+     */
+    public void removeGuild(long guildId) {
+        if (guildHashes.remove(guildId) != null) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Writes the cache to disk if it changed since the last save.
+     */
+    public synchronized void save() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        FileConfiguration config = configLoader.getConfig();
+        config.set("global", globalHash);
+        config.set("guilds", null);
+        for (Map.Entry<Long, String> entry : guildHashes.entrySet()) {
+            config.set("guilds." + entry.getKey(), entry.getValue());
+        }
+        configLoader.save();
+    }
+}
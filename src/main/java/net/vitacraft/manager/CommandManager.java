@@ -1,88 +1,365 @@
 package net.vitacraft.manager;
 
-import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.events.guild.GuildJoinEvent;
+import net.dv8tion.jda.api.events.guild.GuildLeaveEvent;
 import net.dv8tion.jda.api.events.guild.GuildReadyEvent;
+import net.dv8tion.jda.api.events.interaction.command.CommandAutoCompleteInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import net.dv8tion.jda.api.interactions.commands.OptionType;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
 import net.dv8tion.jda.api.interactions.commands.build.Commands;
 import net.dv8tion.jda.api.interactions.commands.build.OptionData;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import net.vitacraft.api.addons.AutoCompleteAddon;
 import net.vitacraft.api.addons.SlashCommandAddon;
 import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * CommandManager is responsible for managing and registering slash commands within a Discord guild.
  * It handles the registration of commands when the bot joins a new guild or when the guild is ready.
  * It also processes interactions with slash commands.
+ * <p>
+ * Registered handlers are kept in a case-normalized dispatch index that also covers subcommand groups and
+ * subcommands, so resolving the handler of an interaction costs one lookup per command path segment,
+ * independent of the number of registered commands.
+ * </p>
+ * <p>
+ * Handlers are run by a {@link CommandExecutor}, so slow handlers can be moved off the JDA event thread.
+ * Autocomplete interactions are routed to the {@link AutoCompleteAddon} registered for the command and focused option.
+ * Commands and subcommands with a {@link RateLimit} are checked by a {@link CommandRateLimiter} before their handler runs.
+ * </p>
+ * <p>
+ * Command updates are pushed to Discord through a {@link CommandSyncScheduler}, which merges registrations
+ * made in quick succession into a single update per guild, or a single global update.
+ * </p>
  */
 public class CommandManager extends ListenerAdapter {
-    private final ArrayList<CommandData> commandDataList = new ArrayList<>();
-    private final HashMap<String, SlashCommandAddon> commands = new HashMap<>();
-    private final List<Guild> guilds = new ArrayList<>();
+    private static final Logger logger = LoggerFactory.getLogger("MoBot");
+
+    private final List<CommandData> commandDataList = new CopyOnWriteArrayList<>();
+    private final Map<String, CommandRoute<SlashCommandAddon>> commands = new ConcurrentHashMap<>();
+    private final Set<Long> guilds = ConcurrentHashMap.newKeySet();
+    private final CommandSyncScheduler syncScheduler;
+    private final CommandExecutor executor;
+    private final CommandRateLimiter rateLimiter;
+    private final Map<String, RateLimit> rateLimits = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, AutoCompleteAddon>> autoCompleters = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new {@link CommandManager}.
+     *
+     * @param shardManager the {@link ShardManager} the commands are registered with
+     * @param scope the {@link CommandScope} commands are registered in
+     * @param syncDebounceMillis the time window in milliseconds in which command registrations are merged
+     * @param hashCache the {@link CommandHashCache} storing the hashes of previous command updates
+     * @param executor the {@link CommandExecutor} running the command handlers
+     * @param rateLimiter the {@link CommandRateLimiter} enforcing the rate limits of commands
+     */
+    public CommandManager(ShardManager shardManager, CommandScope scope, long syncDebounceMillis, CommandHashCache hashCache, CommandExecutor executor, CommandRateLimiter rateLimiter) {
+        this.syncScheduler = new CommandSyncScheduler(shardManager, scope, syncDebounceMillis, this::getCommandData, hashCache);
+        this.executor = executor;
+        this.rateLimiter = rateLimiter;
+    }
 
     /**
      * This method is called when the guild is fully loaded and ready.
-     * It registers the slash commands with the guild.
+     * It schedules the registration of the slash commands with the guild.
      *
      * @param event the GuildReadyEvent containing information about the guild that is ready
      */
     @Override
     public void onGuildReady(@NotNull GuildReadyEvent event) {
-        event.getGuild().updateCommands()
-                .addCommands(commandDataList)
-                .queue();
-        if (!guilds.contains(event.getGuild())) { guilds.add(event.getGuild()); }
+        guilds.add(event.getGuild().getIdLong());
+        syncScheduler.requestGuildSync(event.getGuild().getIdLong());
     }
 
     /**
      * This method is called when the bot joins a new guild.
-     * It registers the slash commands with the new guild.
+     * It schedules the registration of the slash commands with the new guild.
+     * Commands cached for the guild from an earlier membership are discarded, as Discord removes them when the bot leaves.
      *
      * @param event the GuildJoinEvent containing information about the guild the bot has joined
      */
     @Override
     public void onGuildJoin(@NotNull GuildJoinEvent event) {
-        event.getGuild().updateCommands()
-                .addCommands(commandDataList)
-                .queue();
-        if (!guilds.contains(event.getGuild())) { guilds.add(event.getGuild()); }
+        guilds.add(event.getGuild().getIdLong());
+        syncScheduler.forgetGuild(event.getGuild().getIdLong());
+        syncScheduler.requestGuildSync(event.getGuild().getIdLong());
+    }
+
+    /**
+     * This method is called when the bot leaves a guild.
+     * It removes the guild from the set of guilds commands are synchronized with.
+     *
+     * @param event the GuildLeaveEvent containing information about the guild the bot has left
+     */
+    @Override
+    public void onGuildLeave(@NotNull GuildLeaveEvent event) {
+        guilds.remove(event.getGuild().getIdLong());
+        syncScheduler.forgetGuild(event.getGuild().getIdLong());
     }
 
     /**
      * This method is called when a slash command interaction is received.
-     * It delegates the command execution to the appropriate {@link SlashCommandAddon} based on the command name.
+     * It delegates the command execution to the appropriate {@link SlashCommandAddon} based on the full command name,
+     * which is run by the {@link CommandExecutor}.
      *
      * @param event the SlashCommandInteractionEvent containing information about the received command interaction
      */
     @Override
     public void onSlashCommandInteraction(@NotNull SlashCommandInteractionEvent event) {
-        for (String command : commands.keySet()) {
-            if (command.equalsIgnoreCase(event.getName())) {
-                commands.get(command).execute(event);
-                break;
-            }
+        SlashCommandAddon slashCommandAddon = resolveCommand(event);
+        if (slashCommandAddon == null || !checkRateLimit(event)) {
+            return;
         }
+        executor.execute(event, slashCommandAddon);
+    }
+
+    /**
+     * This method is called when a user types into an option with autocomplete enabled.
+     * It delegates the interaction to the {@link AutoCompleteAddon} registered for the command and the focused option.
+     *
+     * @param event the CommandAutoCompleteInteractionEvent containing the command and the focused option
+     */
+    @Override
+    public void onCommandAutoCompleteInteraction(@NotNull CommandAutoCompleteInteractionEvent event) {
+        Map<String, AutoCompleteAddon> options = autoCompleters.get(event.getFullCommandName());
+        AutoCompleteAddon autoCompleteAddon = options == null ? null : options.get(event.getFocusedOption().getName());
+        if (autoCompleteAddon == null) {
+            return;
+        }
+        try {
+            autoCompleteAddon.complete(event);
+        } catch (Exception e) {
+            logger.error("Failed to complete option {} of command /{}", event.getFocusedOption().getName(), event.getFullCommandName(), e);
+        }
+    }
+
+    /**
+     * Checks the rate limit of an interaction. The rate limit of a subcommand takes precedence over the one of its
+     * subcommand group, which takes precedence over the one of its command.
+     *
+     * @param event the interaction to check
+     * @return {@code true} if the interaction may be handled
+     */
+    private boolean checkRateLimit(SlashCommandInteractionEvent event) {
+        if (rateLimits.isEmpty()) {
+            return true;
+        }
+        String command = event.getFullCommandName();
+        RateLimit rateLimit = rateLimits.get(command);
+        if (rateLimit == null && event.getSubcommandGroup() != null) {
+            command = event.getName() + " " + event.getSubcommandGroup();
+            rateLimit = rateLimits.get(command);
+        }
+        if (rateLimit == null) {
+            command = event.getName();
+            rateLimit = rateLimits.get(command);
+        }
+        return rateLimit == null || rateLimiter.tryAcquire(event, command, rateLimit);
+    }
+
+    /**
+     * Resolves the {@link SlashCommandAddon} responsible for the given interaction.
+     * A handler registered for a subcommand takes precedence over the handler of its group or top-level command.
+     *
+     * @param event the SlashCommandInteractionEvent to resolve the handler for
+     * @return the responsible {@link SlashCommandAddon}, or {@code null} if no handler is registered
+     */
+    public SlashCommandAddon resolveCommand(@NotNull SlashCommandInteractionEvent event) {
+        CommandRoute<SlashCommandAddon> route = commands.get(event.getName());
+        if (route == null) {
+            return null;
+        }
+        return route.resolve(event.getSubcommandGroup(), event.getSubcommandName());
     }
 
     /**
      * Registers a custom {@link SlashCommandAddon} with the CommandManager.
      * The registered command will be handled in the {@link #onSlashCommandInteraction(SlashCommandInteractionEvent)} method.
+     * A previously registered command with the same name and type is replaced.
      *
+     * @param commandData the {@link CommandData} of the command to register
      * @param slashCommandAddon the {@link SlashCommandAddon} to register
      */
     public void registerCommand(CommandData commandData, SlashCommandAddon slashCommandAddon) {
-        commands.put(commandData.getName(), slashCommandAddon);
+        route(commandData.getName()).setHandler(slashCommandAddon);
+        commandDataList.removeIf(existing -> existing.getType() == commandData.getType() && existing.getName().equals(commandData.getName()));
         commandDataList.add(commandData);
-        for (Guild guild : guilds) {
-            guild.updateCommands()
-                    .addCommands(commandDataList)
-                    .queue();
+        syncScheduler.requestFullSync(guilds);
+    }
+
+    /**
+     * Registers a custom {@link SlashCommandAddon} with the CommandManager and limits how often it can be used.
+     *
+     * @param commandData the {@link CommandData} of the command to register
+     * @param slashCommandAddon the {@link SlashCommandAddon} to register
+     * @param rateLimit the {@link RateLimit} of the command
+     */
+    public void registerCommand(CommandData commandData, SlashCommandAddon slashCommandAddon, RateLimit rateLimit) {
+        setRateLimit(commandData.getName(), rateLimit);
+        registerCommand(commandData, slashCommandAddon);
+    }
+
+    /**
+     * Registers a {@link SlashCommandAddon} for a subcommand group or subcommand of an already registered command.
+     * <p>
+     * The full command name uses the same format as {@link SlashCommandInteractionEvent#getFullCommandName()},
+     * for example {@code "config channel set"}. The {@link CommandData} of the top-level command must contain
+     * the subcommand and be registered through {@link #registerCommand(CommandData, SlashCommandAddon)}.
+     * </p>
+     *
+     * @param fullCommandName the full name of the subcommand
+     * @param slashCommandAddon the {@link SlashCommandAddon} to register
+     */
+    public void registerSubcommand(String fullCommandName, SlashCommandAddon slashCommandAddon) {
+        String[] path = CommandRoute.normalize(fullCommandName).split("\\s+");
+        CommandRoute<SlashCommandAddon> route = route(path[0]);
+        for (int i = 1; i < path.length; i++) {
+            route = route.child(path[i]);
+        }
+        route.setHandler(slashCommandAddon);
+    }
+
+    /**
+     * Registers a {@link SlashCommandAddon} for a subcommand group or subcommand and limits how often it can be used.
+     *
+     * @param fullCommandName the full name of the subcommand
+     * @param slashCommandAddon the {@link SlashCommandAddon} to register
+     * @param rateLimit the {@link RateLimit} of the subcommand
+     */
+    public void registerSubcommand(String fullCommandName, SlashCommandAddon slashCommandAddon, RateLimit rateLimit) {
+        setRateLimit(fullCommandName, rateLimit);
+        registerSubcommand(fullCommandName, slashCommandAddon);
+    }
+
+    /**
+     * Registers an {@link AutoCompleteAddon} for an option of a command or subcommand.
+     * The option must be declared with autocomplete enabled in the {@link CommandData} of the command.
+     *
+     * @param fullCommandName the name of the command or the full name of the subcommand
+     * @param optionName the name of the option
+     * @param autoCompleteAddon the {@link AutoCompleteAddon} to register
+     */
+    public void registerAutoComplete(String fullCommandName, String optionName, AutoCompleteAddon autoCompleteAddon) {
+        autoCompleters.computeIfAbsent(commandKey(fullCommandName), key -> new ConcurrentHashMap<>())
+                .put(optionName, autoCompleteAddon);
+    }
+
+    /**
+     * Removes the {@link AutoCompleteAddon} of an option of a command or subcommand.
+     *
+     * @param fullCommandName the name of the command or the full name of the subcommand
+     * @param optionName the name of the option
+     */
+    public void unregisterAutoComplete(String fullCommandName, String optionName) {
+        Map<String, AutoCompleteAddon> options = autoCompleters.get(commandKey(fullCommandName));
+        if (options != null) {
+            options.remove(optionName);
         }
     }
+
+    /**
+     * Sets the {@link RateLimit} of a command, subcommand group or subcommand.
+     * The rate limit of a subcommand takes precedence over the rate limit of its group, which takes precedence over
+     * the rate limit of its command.
+     *
+     * @param fullCommandName the name of the command or the full name of the subcommand group or subcommand
+     * @param rateLimit the {@link RateLimit}, or {@code null} to remove the rate limit
+     */
+    public void setRateLimit(String fullCommandName, RateLimit rateLimit) {
+        String name = commandKey(fullCommandName);
+        if (rateLimit == null) {
+            rateLimits.remove(name);
+        } else {
+            rateLimits.put(name, rateLimit);
+        }
+    }
+
+    /**
+     * Removes a registered command together with all of its subcommand handlers.
+     * The command is removed from Discord with the next command synchronization.
+     *
+     * @param commandName the name of the command to remove
+     */
+    public void unregisterCommand(String commandName) {
+        String name = CommandRoute.normalize(commandName);
+        commands.remove(name);
+        rateLimits.keySet().removeIf(limited -> limited.equals(name) || limited.startsWith(name + " "));
+        autoCompleters.keySet().removeIf(completed -> completed.equals(name) || completed.startsWith(name + " "));
+        if (commandDataList.removeIf(existing -> CommandRoute.normalize(existing.getName()).equals(name))) {
+            syncScheduler.requestFullSync(guilds);
+        }
+    }
+
+    /**
+     * Removes the handler of a subcommand group or subcommand, without changing the registered {@link CommandData}.
+     *
+     * @param fullCommandName the full name of the subcommand
+     */
+    public void unregisterSubcommand(String fullCommandName) {
+        String[] path = CommandRoute.normalize(fullCommandName).split("\\s+");
+        CommandRoute<SlashCommandAddon> route = commands.get(path[0]);
+        for (int i = 1; i < path.length && route != null; i++) {
+            route = route.find(path[i]);
+        }
+        if (route != null) {
+            route.setHandler(null);
+        }
+        rateLimits.remove(String.join(" ", path));
+        autoCompleters.remove(String.join(" ", path));
+    }
+
+    private static String commandKey(String fullCommandName) {
+        return String.join(" ", CommandRoute.normalize(fullCommandName).split("\\s+"));
+    }
+
+    private CommandRoute<SlashCommandAddon> route(String commandName) {
+        return commands.computeIfAbsent(CommandRoute.normalize(commandName), key -> new CommandRoute<>());
+    }
+
+    /**
+     * Returns a snapshot of the {@link CommandData} of all registered commands.
+     *
+     * @return an unmodifiable list of the registered {@link CommandData}
+     */
+    public List<CommandData> getCommandData() {
+        return List.copyOf(commandDataList);
+    }
+
+    /**
+     * Returns the {@link CommandExecutor} running the command handlers.
+     *
+     * @return the {@link CommandExecutor}
+     */
+    public CommandExecutor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Returns the {@link CommandRateLimiter} enforcing the rate limits of commands.
+     *
+     * @return the {@link CommandRateLimiter}
+     */
+    public CommandRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * Returns the {@link CommandSyncScheduler} used to push command updates to Discord.
+     *
+     * @return the {@link CommandSyncScheduler}
+     */
+    public CommandSyncScheduler getSyncScheduler() {
+        return syncScheduler;
+    }
 }
@@ -0,0 +1,184 @@
+package net.vitacraft.manager;
+
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Enforces {@link RateLimit}s of slash commands without locking.
+ * <p>
+ * Every bucket is a single {@link AtomicLong} holding its theoretical arrival time, as in the generic cell rate
+ * algorithm: an invocation is allowed if it does not move the theoretical arrival time more than one period into
+ * the future, and is committed with a single compare-and-set. Buckets whose theoretical arrival time has passed
+ * hold all of their permits again and are indistinguishable from new buckets, so they are evicted in the background
+ * and memory only grows with the number of recently active users. A bucket is marked as evicted with a compare-and-set
+ * before it is removed, so a permit is never taken from a bucket that is no longer in the map.
+ * </p>
+ */
+public class CommandRateLimiter {
+    private static final Logger logger = LoggerFactory.getLogger("MoBot");
+    private static final long EVICTION_INTERVAL_SECONDS = 60;
+    // Theoretical arrival time of a bucket that was evicted and must not be used anymore
+    private static final long EVICTED = Long.MAX_VALUE;
+
+    private final Map<BucketKey, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile String rejectionMessage;
+    private final MetricsManager metricsManager;
+    private final ScheduledExecutorService evictionExecutor;
+
+    /**
+     * The key of a bucket.
+     *
+     * @param command the name of the rate limited command
+     * @param id      the id of the user or guild the bucket belongs to, or 0 for a global bucket
+     */
+    private record BucketKey(String command, long id) {
+    }
+
+    /**
+     * Constructs a new {@link CommandRateLimiter} and starts evicting idle buckets.
+     *
+     * @param rejectionMessage the ephemeral reply to rejected invocations, {@code {seconds}} is replaced with
+     *                         the number of seconds until the command can be used again
+     * @param metricsManager   the {@link MetricsManager} counting the rejected invocations per command
+     */
+    public CommandRateLimiter(String rejectionMessage, MetricsManager metricsManager) {
+        this.rejectionMessage = rejectionMessage;
+        this.metricsManager = metricsManager;
+        this.evictionExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MoBot-RateLimiter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictionExecutor.scheduleWithFixedDelay(this::evictIdleBuckets, EVICTION_INTERVAL_SECONDS, EVICTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Takes a permit for an interaction. A rejected interaction is answered with an ephemeral reply and counted.
+     *
+     * @param event     the interaction
+     * @param command   the name of the rate limited command, either the full command name, the name of the
+     *                  subcommand group or the top-level name
+     * @param rateLimit the {@link RateLimit} of the command
+     * @return {@code true} if the interaction may be handled
+     */
+    public boolean tryAcquire(SlashCommandInteractionEvent event, String command, RateLimit rateLimit) {
+        long id = switch (rateLimit.scope()) {
+            case USER -> event.getUser().getIdLong();
+            case GUILD -> event.getGuild() != null ? event.getGuild().getIdLong() : event.getUser().getIdLong();
+            case GLOBAL -> 0;
+        };
+        long waitNanos = tryAcquire(command, id, rateLimit);
+        if (waitNanos == 0) {
+            return true;
+        }
+        metricsManager.getCommandMetrics(event.getFullCommandName()).recordRejected();
+        event.reply(getRejectionMessage(waitNanos)).setEphemeral(true).queue(null, failure ->
+                logger.debug("Could not reply to rate limited command /{}: {}", event.getFullCommandName(), failure.getMessage()));
+        return false;
+    }
+
+    /**
+     * Takes a permit from a bucket.
+     *
+     * @param command   the name of the rate limited command
+     * @param id        the id of the user or guild the bucket belongs to
+     * @param rateLimit the {@link RateLimit} of the command
+     * @return 0 if the invocation is allowed, otherwise the time in nanoseconds until it would be allowed
+     */
+    public long tryAcquire(String command, long id, RateLimit rateLimit) {
+        long periodNanos = rateLimit.period().toNanos();
+        long intervalNanos = Math.max(1, periodNanos / rateLimit.permits());
+        BucketKey key = new BucketKey(command, id);
+        AtomicLong bucket = buckets.computeIfAbsent(key, ignored -> new AtomicLong(Long.MIN_VALUE));
+        while (true) {
+            long now = System.nanoTime();
+            long arrival = bucket.get();
+            if (arrival == EVICTED) {
+                buckets.remove(key, bucket);
+                bucket = buckets.computeIfAbsent(key, ignored -> new AtomicLong(Long.MIN_VALUE));
+                continue;
+            }
+            long next = (arrival == Long.MIN_VALUE || arrival - now < 0 ? now : arrival) + intervalNanos;
+            long wait = next - now - periodNanos;
+            if (wait > 0) {
+                rejected.incrementAndGet();
+                return wait;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    void evictIdleBuckets() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (Map.Entry<BucketKey, AtomicLong> entry : buckets.entrySet()) {
+            AtomicLong bucket = entry.getValue();
+            long arrival = bucket.get();
+            // Fails if a permit was taken since the bucket was read, which makes the bucket active again
+            if ((arrival == Long.MIN_VALUE || arrival - now < 0) && bucket.compareAndSet(arrival, EVICTED)) {
+                buckets.remove(entry.getKey(), bucket);
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            logger.debug("Evicted {} idle rate limit buckets", evicted);
+        }
+    }
+
+    /**
+     * Replaces the reply to rejected invocations.
+     *
+     * @param rejectionMessage the ephemeral reply to rejected invocations, {@code {seconds}} is replaced with
+     *                         the number of seconds until the command can be used again
+     */
+    public void setRejectionMessage(String rejectionMessage) {
+        this.rejectionMessage = rejectionMessage;
+    }
+
+    /**
+     * Returns the reply to a rejected invocation.
+     *
+     * @param waitNanos the time in nanoseconds until the command can be used again
+     * @return the reply
+     */
+    public String getRejectionMessage(long waitNanos) {
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999));
+        return rejectionMessage.replace("{seconds}", Long.toString(seconds));
+    }
+
+    /**
+     * Returns the number of rejected invocations.
+     *
+     * @return the number of rejected invocations
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Returns the number of buckets currently held in memory.
+     *
+     * @return the number of buckets
+     */
+    public int getBucketCount() {
+        return buckets.size();
+    }
+
+    /**
+     * Stops evicting idle buckets.
+     */
+    public void shutdown() {
+        evictionExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,108 @@
+package net.vitacraft.manager;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A node of the slash command dispatch index used by the {@link CommandManager}.
+ * <p>
+ * Every top-level command owns one route. Subcommand groups and subcommands are stored as child routes,
+ * so a handler for {@code /config set} or {@code /config channel set} can be resolved with one map lookup per
+ * path segment, without building the full command name of an interaction.
+ * </p>
+ *
+ * @param <T> the type of handler stored in the index
+ */
+final class CommandRoute<T> {
+    private final Map<String, CommandRoute<T>> children = new ConcurrentHashMap<>();
+    private volatile T handler;
+
+    /**
+     * Returns the handler registered directly on this route.
+     *
+     * @return the handler, or {@code null} if none is registered
+     */
+    T getHandler() {
+        return handler;
+    }
+
+    /**
+     * Sets the handler registered directly on this route.
+     *
+     * @param handler the handler, or {@code null} to clear it
+     */
+    void setHandler(T handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Returns the child route for the given name, creating it if it does not exist yet.
+     *
+     * @param name the already normalized name of the subcommand group or subcommand
+     * @return the child route
+     */
+    CommandRoute<T> child(String name) {
+        return children.computeIfAbsent(name, key -> new CommandRoute<>());
+    }
+
+    /**
+     * Returns the child route for the given name.
+     *
+     * @param name the already normalized name of the subcommand group or subcommand
+     * @return the child route, or {@code null} if it does not exist
+     */
+    CommandRoute<T> find(String name) {
+        return children.get(name);
+    }
+
+    /**
+     * Resolves the most specific handler for the given subcommand group and subcommand.
+     * <p>
+     * If no handler is registered for the subcommand, the handler of the group is used, and
+     * if that one is missing too, the handler of this route is used.
+     * </p>
+     *
+     * @param subcommandGroup the subcommand group of the interaction, or {@code null}
+     * @param subcommandName the subcommand of the interaction, or {@code null}
+     * @return the resolved handler, or {@code null} if none was found
+     */
+    T resolve(String subcommandGroup, String subcommandName) {
+        T resolved = handler;
+        if (children.isEmpty()) {
+            return resolved;
+        }
+
+        CommandRoute<T> node = this;
+        if (subcommandGroup != null) {
+            node = children.get(subcommandGroup);
+            if (node == null) {
+                return resolved;
+            }
+            if (node.handler != null) {
+                resolved = node.handler;
+            }
+        }
+        if (subcommandName != null) {
+            CommandRoute<T> leaf = node.children.get(subcommandName);
+            if (leaf != null && leaf.handler != null) {
+                resolved = leaf.handler;
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * Normalizes a command name for use as an index key.
+     * <p>
+     * Discord only delivers slash command names in lower case, so names are normalized once when they are
+     * registered and interactions can be looked up without allocating a new string.
+     * </p>
+     *
+     * @param name the command name
+     * @return the normalized command name
+     */
+    static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,14 @@
+package net.vitacraft.manager;
+
+/**
+ * The {@code CommandScope} enum defines where the {@link CommandManager} registers slash commands with Discord.
+ * <p>
+ * {@code GUILD} pushes the command set to every guild separately, so changes become visible immediately.
+ * {@code GLOBAL} pushes the command set once for the whole application, which needs a single request
+ * regardless of the number of guilds but may take a while to propagate.
+ * </p>
+ */
+public enum CommandScope {
+    GUILD,
+    GLOBAL
+}
@@ -0,0 +1,237 @@
+package net.vitacraft.manager;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Synchronizes the registered slash commands with Discord in batches.
+ * <p>
+ * Sync requests made within the debounce window are merged into a single update per guild, or into a single
+ * application-wide update when the {@link CommandScope} is {@code GLOBAL}. Guilds whose command set has not changed
+ * since their last successful update are skipped entirely. The hashes of successful updates are kept in a
+ * {@link CommandHashCache}, so unchanged guilds are also skipped after a restart. Since updates to the same guild can
+ * complete out of order, the hash of an update is only stored if no later update was sent in the meantime.
+ * </p>
+ */
+public class CommandSyncScheduler {
+    private static final Logger logger = LoggerFactory.getLogger("MoBot");
+    private static final long CACHE_SAVE_DELAY_MILLIS = 5000;
+
+    private final ShardManager shardManager;
+    private final CommandScope scope;
+    private final long debounceMillis;
+    private final Supplier<List<CommandData>> commandSupplier;
+    private final CommandHashCache hashCache;
+    private final ScheduledExecutorService executor;
+    private final Set<Long> pendingGuilds = ConcurrentHashMap.newKeySet();
+    private final Map<Long, String> sentGuildHashes = new ConcurrentHashMap<>();
+    private final AtomicReference<String> sentGlobalHash = new AtomicReference<>();
+    private final AtomicLong requestsSent = new AtomicLong();
+    private final AtomicLong requestsSkipped = new AtomicLong();
+    private boolean globalPending;
+    private ScheduledFuture<?> scheduledFlush;
+
+    /**
+     * Constructs a new {@link CommandSyncScheduler}.
+     *
+     * @param shardManager the {@link ShardManager} used to resolve guilds and shards
+     * @param scope the {@link CommandScope} commands are registered in
+     * @param debounceMillis the time window in milliseconds in which sync requests are merged
+     * @param commandSupplier supplies the current set of commands at the time of a flush
+     * @param hashCache the {@link CommandHashCache} storing the hashes of previous updates
+     */
+    public CommandSyncScheduler(ShardManager shardManager, CommandScope scope, long debounceMillis, Supplier<List<CommandData>> commandSupplier, CommandHashCache hashCache) {
+        this.shardManager = shardManager;
+        this.scope = scope;
+        this.debounceMillis = Math.max(0, debounceMillis);
+        this.commandSupplier = commandSupplier;
+        this.hashCache = hashCache;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MoBot-CommandSync");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Requests a sync of the command set for a single guild.
+     * Has no effect if the {@link CommandScope} is {@code GLOBAL}.
+     *
+     * @param guildId the id of the guild to sync
+     */
+    public void requestGuildSync(long guildId) {
+        if (scope == CommandScope.GLOBAL) {
+            return;
+        }
+        pendingGuilds.add(guildId);
+        scheduleFlush();
+    }
+
+    /**
+     * Requests a sync of the command set for all given guilds, or of the global command set
+     * if the {@link CommandScope} is {@code GLOBAL}.
+     *
+     * @param guildIds the ids of all guilds known to the bot
+     */
+    public void requestFullSync(Set<Long> guildIds) {
+        if (scope == CommandScope.GLOBAL) {
+            synchronized (this) {
+                globalPending = true;
+            }
+        } else {
+            pendingGuilds.addAll(guildIds);
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * Forgets the last synchronized state of a guild, for example after the bot left or joined it.
+     *
+     * @param guildId the id of the guild
+     */
+    public void forgetGuild(long guildId) {
+        pendingGuilds.remove(guildId);
+        sentGuildHashes.remove(guildId);
+        hashCache.removeGuild(guildId);
+    }
+
+    private synchronized void scheduleFlush() {
+        if (scheduledFlush == null || scheduledFlush.isDone()) {
+            scheduledFlush = executor.schedule(this::flush, debounceMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Pushes all pending command updates to Discord.
+     */
+    private void flush() {
+        boolean syncGlobal;
+        Set<Long> guildIds;
+        synchronized (this) {
+            // Requests made from now on are not guaranteed to be seen by this flush, so they schedule the next one
+            scheduledFlush = null;
+            syncGlobal = globalPending;
+            globalPending = false;
+            guildIds = Set.copyOf(pendingGuilds);
+            pendingGuilds.removeAll(guildIds);
+        }
+
+        List<CommandData> commands = commandSupplier.get();
+        String hash = hash(commands);
+        long sent = 0;
+        long skipped = 0;
+
+        if (syncGlobal) {
+            if (hash.equals(hashCache.getGlobalHash())) {
+                skipped++;
+            } else {
+                JDA jda = shardManager.getShards().stream().findFirst().orElse(null);
+                if (jda == null) {
+                    logger.warn("Could not synchronize global slash commands: no shard available.");
+                } else {
+                    sentGlobalHash.set(hash);
+                    jda.updateCommands()
+                            .addCommands(commands)
+                            .queue(success -> {
+                                if (sentGlobalHash.compareAndSet(hash, null)) {
+                                    hashCache.setGlobalHash(hash);
+                                }
+                            }, error -> {
+                                sentGlobalHash.compareAndSet(hash, null);
+                                logger.error("Failed to synchronize global slash commands.", error);
+                            });
+                    sent++;
+                }
+            }
+        }
+
+        for (Long guildId : guildIds) {
+            Guild guild = shardManager.getGuildById(guildId);
+            if (guild == null) {
+                continue;
+            }
+            if (hash.equals(hashCache.getGuildHash(guildId))) {
+                skipped++;
+                continue;
+            }
+            sentGuildHashes.put(guildId, hash);
+            guild.updateCommands()
+                    .addCommands(commands)
+                    .queue(success -> {
+                        if (sentGuildHashes.remove(guildId, hash)) {
+                            hashCache.setGuildHash(guildId, hash);
+                        }
+                    }, error -> {
+                        sentGuildHashes.remove(guildId, hash);
+                        logger.error("Failed to synchronize slash commands for guild {}.", guild.getName(), error);
+                    });
+            sent++;
+        }
+
+        requestsSent.addAndGet(sent);
+        requestsSkipped.addAndGet(skipped);
+        if (sent > 0) {
+            // Updates complete asynchronously, so give them time to finish before persisting their hashes
+            executor.schedule(hashCache::save, CACHE_SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        if (sent > 0 || skipped > 0) {
+            logger.info("Synchronized {} slash commands: {} updates sent, {} unchanged skipped.", commands.size(), sent, skipped);
+        }
+    }
+
+    /**
+     * Returns the number of command update requests sent to Discord since startup.
+     *
+     * @return the number of sent update requests
+     */
+    public long getRequestsSent() {
+        return requestsSent.get();
+    }
+
+    /**
+     * Returns the number of command update requests that were skipped because the command set did not change.
+     *
+     * @return the number of skipped update requests
+     */
+    public long getRequestsSkipped() {
+        return requestsSkipped.get();
+    }
+
+    /**
+     * Computes a stable hash over the serialized form of the given commands.
+     *
+     * @param commands the commands to hash
+     * @return the hex encoded SHA-256 hash of the commands
+     */
+    public static String hash(List<CommandData> commands) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (CommandData command : commands) {
+                digest.update(command.toData().toJson());
+                digest.update((byte) '\n');
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this JVM.", e);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package net.vitacraft.manager;
+
+import net.dv8tion.jda.api.events.interaction.ModalInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.EntitySelectInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.GenericSelectMenuInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.StringSelectInteractionEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import net.vitacraft.api.addons.ButtonAddon;
+import net.vitacraft.api.addons.ModalAddon;
+import net.vitacraft.api.addons.SelectMenuAddon;
+import net.vitacraft.utils.ComponentState;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ComponentRouter is responsible for routing button, select menu and modal interactions to their handlers.
+ * <p>
+ * Handlers are registered for a namespace, which is the part of a custom id before the first {@code ':'}.
+ * The rest of the custom id is decoded into a {@link ComponentState} and passed to the handler, so a handler can
+ * be stateless and answer an interaction on any shard. Custom ids are built with {@link ComponentState#write(String, int)}.
+ * </p>
+ * <p>
+ * Interactions with a namespace that no handler is registered for are ignored, so modules can still handle
+ * their own components with a listener.
+ * </p>
+ * <p>
+ * Every handler belongs to the module that registered it. A namespace can only be used by one module per component
+ * type, and a module unloading only removes its own handlers.
+ * </p>
+ * <p>
+ * Handlers are run by the {@link CommandExecutor} in its default {@link CommandExecutionMode}, like slash commands,
+ * so a slow handler does not block the event thread of its shard.
+ * </p>
+ */
+public class ComponentRouter extends ListenerAdapter {
+    private static final Logger logger = LoggerFactory.getLogger("MoBot");
+
+    private final CommandExecutor executor;
+    private final Map<String, Registration<ButtonAddon>> buttons = new ConcurrentHashMap<>();
+    private final Map<String, Registration<SelectMenuAddon>> selectMenus = new ConcurrentHashMap<>();
+    private final Map<String, Registration<ModalAddon>> modals = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new {@link ComponentRouter}.
+     *
+     * @param executor the {@link CommandExecutor} running the handlers
+     */
+    public ComponentRouter(CommandExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * This method is called when a button is clicked.
+     * It delegates the interaction to the {@link ButtonAddon} registered for the namespace of the custom id.
+     *
+     * @param event the ButtonInteractionEvent containing information about the click
+     */
+    @Override
+    public void onButtonInteraction(@NotNull ButtonInteractionEvent event) {
+        Registration<ButtonAddon> registration = buttons.get(ComponentState.namespaceOf(event.getComponentId()));
+        if (registration != null) {
+            ComponentState state = parse(event, event.getComponentId());
+            if (state != null) {
+                executor.execute(event.getComponentId(), () -> {
+                    try {
+                        registration.addon().execute(event, state);
+                    } catch (Exception e) {
+                        logger.error("Failed to handle button {}", event.getComponentId(), e);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * This method is called when values are selected in a string select menu.
+     *
+     * @param event the StringSelectInteractionEvent containing the selected values
+     */
+    @Override
+    public void onStringSelectInteraction(@NotNull StringSelectInteractionEvent event) {
+        routeSelectMenu(event);
+    }
+
+    /**
+     * This method is called when users, roles, channels or mentionables are selected in an entity select menu.
+     *
+     * @param event the EntitySelectInteractionEvent containing the selected entities
+     */
+    @Override
+    public void onEntitySelectInteraction(@NotNull EntitySelectInteractionEvent event) {
+        routeSelectMenu(event);
+    }
+
+    private void routeSelectMenu(GenericSelectMenuInteractionEvent<?, ?> event) {
+        Registration<SelectMenuAddon> registration = selectMenus.get(ComponentState.namespaceOf(event.getComponentId()));
+        if (registration != null) {
+            ComponentState state = parse(event, event.getComponentId());
+            if (state != null) {
+                executor.execute(event.getComponentId(), () -> {
+                    try {
+                        registration.addon().execute(event, state);
+                    } catch (Exception e) {
+                        logger.error("Failed to handle select menu {}", event.getComponentId(), e);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * This method is called when a modal is submitted.
+     * It delegates the interaction to the {@link ModalAddon} registered for the namespace of the custom id.
+     *
+     * @param event the ModalInteractionEvent containing the submitted values
+     */
+    @Override
+    public void onModalInteraction(@NotNull ModalInteractionEvent event) {
+        Registration<ModalAddon> registration = modals.get(ComponentState.namespaceOf(event.getModalId()));
+        if (registration != null) {
+            ComponentState state = parse(event, event.getModalId());
+            if (state != null) {
+                executor.execute(event.getModalId(), () -> {
+                    try {
+                        registration.addon().execute(event, state);
+                    } catch (Exception e) {
+                        logger.error("Failed to handle modal {}", event.getModalId(), e);
+                    }
+                });
+            }
+        }
+    }
+
+    private ComponentState parse(IReplyCallback event, String customId) {
+        try {
+            return ComponentState.parse(customId);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring interaction with malformed custom id {}: {}", customId, e.getMessage());
+            event.reply("This component is no longer valid.").setEphemeral(true).queue();
+            return null;
+        }
+    }
+
+    /**
+     * Registers a {@link ButtonAddon} for all buttons with the given namespace.
+     *
+     * @param moduleName the name of the module registering the handler
+     * @param namespace the namespace of the custom ids
+     * @param buttonAddon the {@link ButtonAddon} to register
+     * @throws IllegalStateException if another module already registered a button handler for the namespace
+     */
+    public void registerButton(String moduleName, String namespace, ButtonAddon buttonAddon) {
+        register(buttons, "Button", moduleName, namespace, buttonAddon);
+    }
+
+    /**
+     * Registers a {@link SelectMenuAddon} for all select menus with the given namespace.
+     *
+     * @param moduleName the name of the module registering the handler
+     * @param namespace the namespace of the custom ids
+     * @param selectMenuAddon the {@link SelectMenuAddon} to register
+     * @throws IllegalStateException if another module already registered a select menu handler for the namespace
+     */
+    public void registerSelectMenu(String moduleName, String namespace, SelectMenuAddon selectMenuAddon) {
+        register(selectMenus, "Select menu", moduleName, namespace, selectMenuAddon);
+    }
+
+    /**
+     * Registers a {@link ModalAddon} for all modals with the given namespace.
+     *
+     * @param moduleName the name of the module registering the handler
+     * @param namespace the namespace of the custom ids
+     * @param modalAddon the {@link ModalAddon} to register
+     * @throws IllegalStateException if another module already registered a modal handler for the namespace
+     */
+    public void registerModal(String moduleName, String namespace, ModalAddon modalAddon) {
+        register(modals, "Modal", moduleName, namespace, modalAddon);
+    }
+
+    /**
+     * Removes the handlers a module registered for the given namespace. Handlers of other modules are kept.
+     *
+     * @param moduleName the name of the module that registered the handlers
+     * @param namespace the namespace of the custom ids
+     */
+    public void unregister(String moduleName, String namespace) {
+        unregister(buttons, moduleName, namespace);
+        unregister(selectMenus, moduleName, namespace);
+        unregister(modals, moduleName, namespace);
+    }
+
+    private static <T> void register(Map<String, Registration<T>> handlers, String type, String moduleName, String namespace, T addon) {
+        handlers.compute(checkNamespace(namespace), (key, existing) -> {
+            if (existing != null && !existing.moduleName().equals(moduleName)) {
+                throw new IllegalStateException(type + " namespace " + key + " is already registered by module " + existing.moduleName());
+            }
+            return new Registration<>(moduleName, addon);
+        });
+    }
+
+    private static <T> void unregister(Map<String, Registration<T>> handlers, String moduleName, String namespace) {
+        handlers.computeIfPresent(namespace, (key, existing) -> existing.moduleName().equals(moduleName) ? null : existing);
+    }
+
+    private static String checkNamespace(String namespace) {
+        if (namespace.isEmpty() || namespace.indexOf(ComponentState.SEPARATOR) >= 0) {
+            throw new IllegalArgumentException("Invalid component namespace: " + namespace);
+        }
+        return namespace;
+    }
+
+    private record Registration<T>(String moduleName, T addon) {
+    }
+}
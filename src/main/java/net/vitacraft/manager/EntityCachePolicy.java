@@ -0,0 +1,218 @@
+package net.vitacraft.manager;
+
+import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
+import net.dv8tion.jda.api.utils.ChunkingFilter;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
+import net.vitacraft.api.config.ConfigSnapshot;
+import net.vitacraft.api.info.EntityCacheRequirements;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Computes which JDA entity caches the bot enables, from the {@code entity-cache} section of bot.yml and the
+ * requirements of all modules.
+ * <p>
+ * The entity caches are the largest part of the heap of a bot in many guilds, so only the cache flags and member
+ * cache policies that bot.yml or at least one module asks for are enabled, and everything else is disabled. Modules
+ * declare their requirements in the {@code entity-cache} section of their {@code module.yml} or in
+ * {@link net.vitacraft.api.MBModule#preEnable(net.vitacraft.api.PrimitiveBotEnvironment)}. The policy is applied
+ * once before the shard manager is built, so modules loaded later can only use the caches enabled at startup.
+ * </p>
+ * <p>
+ * If bot.yml has no {@code entity-cache} section, the defaults of JDA are kept and only extended by the requirements
+ * of the modules. The intents required by the caches JDA enables by default are then required as well, so they are
+ * kept up to date even if only the required intents are enabled.
+ * </p>
+ */
+public class EntityCachePolicy {
+    private static final Logger logger = LoggerFactory.getLogger("MoBot");
+
+    private final boolean configured;
+    private final Set<CacheFlag> cacheFlags = EnumSet.noneOf(CacheFlag.class);
+    private final Set<String> memberCachePolicyNames = new TreeSet<>();
+    private final List<MemberCachePolicy> memberCachePolicies = new ArrayList<>();
+    private final String chunkingMode;
+    private final long[] chunkingGuilds;
+    private final int largeThreshold;
+    private boolean chunkingRequired;
+
+    /**
+     * Constructs a new {@link EntityCachePolicy}.
+     *
+     * @param config the {@code entity-cache} section of bot.yml, empty to keep the defaults of JDA
+     */
+    public EntityCachePolicy(ConfigSnapshot config) {
+        this.configured = !config.getKeys("").isEmpty();
+        for (String flag : config.getStringList("cache-flags")) {
+            requireCacheFlag("bot.yml", flag);
+        }
+        for (String policy : config.getStringList("member-cache-policy")) {
+            requireMemberCachePolicy("bot.yml", policy);
+        }
+        this.chunkingMode = config.getString("chunking-filter", "NONE").toUpperCase(Locale.ROOT);
+        List<String> guilds = config.getStringList("chunking-guilds");
+        this.chunkingGuilds = new long[guilds.size()];
+        for (int index = 0; index < guilds.size(); index++) {
+            try {
+                chunkingGuilds[index] = Long.parseLong(guilds.get(index).trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring invalid guild id '{}' in entity-cache.chunking-guilds.", guilds.get(index));
+            }
+        }
+        this.largeThreshold = Math.max(50, Math.min(250, config.getInt("large-threshold", 250)));
+    }
+
+    /**
+     * Adds the entity caches a module declared in its {@code module.yml}.
+     *
+     * @param moduleName   the name of the module
+     * @param requirements the {@link EntityCacheRequirements} of the module
+     */
+    public synchronized void require(String moduleName, EntityCacheRequirements requirements) {
+        for (String flag : requirements.cacheFlags()) {
+            requireCacheFlag(moduleName, flag);
+        }
+        for (String policy : requirements.memberCachePolicies()) {
+            requireMemberCachePolicy(moduleName, policy);
+        }
+        if (requirements.chunking()) {
+            requireChunking();
+        }
+    }
+
+    /**
+     * Enables cache flags.
+     *
+     * @param flags the {@link CacheFlag}s to enable
+     */
+    public synchronized void requireCacheFlags(CacheFlag... flags) {
+        cacheFlags.addAll(List.of(flags));
+    }
+
+    /**
+     * Caches the members matching a policy, in addition to the members cached for other policies.
+     *
+     * @param policy the {@link MemberCachePolicy}
+     */
+    public synchronized void requireMemberCachePolicy(MemberCachePolicy policy) {
+        memberCachePolicyNames.add("custom");
+        memberCachePolicies.add(policy);
+    }
+
+    /**
+     * Requests the complete member list of every guild when it becomes available,
+     * unless bot.yml already selects the guilds whose members are requested.
+     */
+    public synchronized void requireChunking() {
+        chunkingRequired = true;
+    }
+
+    private void requireCacheFlag(String source, String name) {
+        try {
+            cacheFlags.add(CacheFlag.valueOf(name.toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring unknown cache flag '{}' required by {}.", name, source);
+        }
+    }
+
+    private void requireMemberCachePolicy(String source, String name) {
+        MemberCachePolicy policy = switch (name.toUpperCase(Locale.ROOT)) {
+            case "NONE" -> MemberCachePolicy.NONE;
+            case "ALL" -> MemberCachePolicy.ALL;
+            case "OWNER" -> MemberCachePolicy.OWNER;
+            case "ONLINE" -> MemberCachePolicy.ONLINE;
+            case "VOICE" -> MemberCachePolicy.VOICE;
+            case "PENDING" -> MemberCachePolicy.PENDING;
+            case "BOOSTER" -> MemberCachePolicy.BOOSTER;
+            case "DEFAULT" -> MemberCachePolicy.DEFAULT;
+            default -> null;
+        };
+        if (policy == null) {
+            logger.warn("Ignoring unknown member cache policy '{}' required by {}.", name, source);
+            return;
+        }
+        if (policy == MemberCachePolicy.VOICE || policy == MemberCachePolicy.DEFAULT) {
+            // Members in voice channels are only known from the voice state cache
+            cacheFlags.add(CacheFlag.VOICE_STATE);
+        }
+        memberCachePolicyNames.add(name.toUpperCase(Locale.ROOT));
+        memberCachePolicies.add(policy);
+    }
+
+    /**
+     * Returns the cache flags enabled by this policy.
+     *
+     * @return an unmodifiable set of the required {@link CacheFlag}s
+     */
+    public synchronized Set<CacheFlag> getCacheFlags() {
+        return Collections.unmodifiableSet(EnumSet.copyOf(cacheFlags));
+    }
+
+    /**
+     * Returns the gateway intents without which the enabled caches would not be kept up to date.
+     *
+     * @return the {@link GatewayIntent}s required by the cache flags, member cache policies and chunking of this policy
+     */
+    public synchronized Set<GatewayIntent> getRequiredIntents() {
+        Set<GatewayIntent> intents = EnumSet.noneOf(GatewayIntent.class);
+        Set<CacheFlag> enabledFlags = EnumSet.copyOf(cacheFlags);
+        if (!configured) {
+            // JDA enables every cache flag except the ones needing privileged intents by default
+            enabledFlags.addAll(EnumSet.complementOf(CacheFlag.getPrivileged()));
+        }
+        for (CacheFlag flag : enabledFlags) {
+            if (flag.getRequiredIntent() != null) {
+                intents.add(flag.getRequiredIntent());
+            }
+        }
+        if (memberCachePolicyNames.contains("ONLINE")) {
+            intents.add(GatewayIntent.GUILD_PRESENCES);
+        }
+        if (chunkingRequired || !chunkingMode.equals("NONE") || memberCachePolicyNames.contains("ALL")
+                || memberCachePolicyNames.contains("ONLINE") || memberCachePolicyNames.contains("PENDING")) {
+            intents.add(GatewayIntent.GUILD_MEMBERS);
+        }
+        return intents;
+    }
+
+    /**
+     * Configures the entity caches of a shard manager builder.
+     *
+     * @param builder the {@link DefaultShardManagerBuilder} to configure
+     */
+    public synchronized void apply(DefaultShardManagerBuilder builder) {
+        MemberCachePolicy memberCachePolicy = configured ? MemberCachePolicy.NONE : MemberCachePolicy.DEFAULT;
+        for (MemberCachePolicy policy : memberCachePolicies) {
+            memberCachePolicy = memberCachePolicy.or(policy);
+        }
+        ChunkingFilter chunkingFilter = switch (chunkingMode) {
+            case "ALL" -> ChunkingFilter.ALL;
+            case "INCLUDE" -> ChunkingFilter.include(chunkingGuilds);
+            case "EXCLUDE" -> ChunkingFilter.exclude(chunkingGuilds);
+            default -> chunkingRequired ? ChunkingFilter.ALL : ChunkingFilter.NONE;
+        };
+
+        synchronized (builder) {
+            if (configured) {
+                builder.disableCache(EnumSet.complementOf(EnumSet.copyOf(cacheFlags)));
+                builder.setLargeThreshold(largeThreshold);
+            }
+            if (!cacheFlags.isEmpty()) {
+                builder.enableCache(cacheFlags);
+            }
+            if (configured || !memberCachePolicies.isEmpty()) {
+                builder.setMemberCachePolicy(memberCachePolicy);
+            }
+            if (configured || chunkingRequired) {
+                builder.setChunkingFilter(chunkingFilter);
+            }
+        }
+        logger.info("Entity caches: flags {}, members {}, chunking {}",
+                cacheFlags, memberCachePolicyNames.isEmpty() ? (configured ? "[NONE]" : "[DEFAULT]") : memberCachePolicyNames,
+                chunkingFilter == ChunkingFilter.NONE ? "NONE" : chunkingMode.equals("NONE") ? "ALL" : chunkingMode);
+    }
+}
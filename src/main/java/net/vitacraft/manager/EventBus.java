@@ -0,0 +1,253 @@
+package net.vitacraft.manager;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+import net.dv8tion.jda.api.requests.GatewayIntent;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Fans the events received from JDA out to the modules, each through its own {@link ModuleEventQueue}.
+ * <p>
+ * Every module handles its events on its own worker thread, so a slow or misbehaving listener only delays
+ * the events of its own module. The event bus is registered with the {@link net.dv8tion.jda.api.sharding.ShardManager}
+ * as a single listener. Events can also be injected through {@link #publish(GenericEvent)}, which does not need
+ * a gateway connection.
+ * </p>
+ * <p>
+ * Interceptors run on the publishing thread before an event is queued, so modules they register are already
+ * included in the delivery of that event.
+ * </p>
+ * <p>
+ * The events of a module can be held back with {@link #hold(String, Set)} while the module is being loaded, and are
+ * delivered in their original order by {@link #release(String)} once its listeners are registered.
+ * </p>
+ */
+public class EventBus implements EventListener {
+    private static final Logger logger = LoggerFactory.getLogger("MoBot");
+
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private final MetricsManager metricsManager;
+    private final Set<GatewayIntent> enabledIntents;
+    private final Map<String, ModuleEventQueue> queues = new ConcurrentHashMap<>();
+    private final List<EventListener> interceptors = new CopyOnWriteArrayList<>();
+    private final Map<String, HeldEvents> heldEvents = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new {@link EventBus}.
+     *
+     * @param queueCapacity  the maximum number of queued events per module
+     * @param overflowPolicy the {@link OverflowPolicy} applied when the queue of a module is full
+     * @param metricsManager the {@link MetricsManager} recording the event handling times of the modules
+     * @param enabledIntents the enabled {@link GatewayIntent}s, used to warn about listeners handling events that are never sent
+     */
+    public EventBus(int queueCapacity, OverflowPolicy overflowPolicy, MetricsManager metricsManager, Set<GatewayIntent> enabledIntents) {
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
+        this.metricsManager = metricsManager;
+        this.enabledIntents = enabledIntents;
+    }
+
+    @Override
+    public void onEvent(@NotNull GenericEvent event) {
+        publish(event);
+    }
+
+    /**
+     * Publishes an event to all interceptors and to the queue of every module handling the event.
+     *
+     * @param event the event to publish
+     */
+    public void publish(GenericEvent event) {
+        for (EventListener interceptor : interceptors) {
+            try {
+                interceptor.onEvent(event);
+            } catch (Exception e) {
+                logger.error("Event interceptor failed to handle {}", event.getClass().getSimpleName(), e);
+            }
+        }
+        Class<?> eventClass = event.getClass();
+        for (ModuleEventQueue queue : queues.values()) {
+            if (queue.handles(eventClass)) {
+                HeldEvents held = heldEvents.isEmpty() ? null : heldEvents.get(queue.getModuleName());
+                if (held == null || !held.hold(event)) {
+                    queue.offer(event);
+                }
+            }
+        }
+        if (!heldEvents.isEmpty()) {
+            // Modules that are still being loaded may not have a queue yet
+            for (HeldEvents held : heldEvents.values()) {
+                if (held.isSubscribed(eventClass)) {
+                    held.hold(event);
+                }
+            }
+        }
+    }
+
+    /**
+     * Holds back all events of a module until {@link #release(String)} is called, including the events of the given
+     * types that arrive before the module registered its listeners.
+     *
+     * @param moduleName the name of the module
+     * @param eventTypes the event types to hold before the module registered its listeners
+     */
+    public void hold(String moduleName, Set<Class<?>> eventTypes) {
+        heldEvents.putIfAbsent(moduleName, new HeldEvents(eventTypes));
+    }
+
+    /**
+     * Delivers all held events of a module to its listeners, in the order they arrived, and stops holding its events.
+     * Held events the module has no listener for are dropped.
+     *
+     * @param moduleName the name of the module
+     * @return the number of held events that were dropped
+     */
+    public int release(String moduleName) {
+        HeldEvents held = heldEvents.get(moduleName);
+        if (held == null) {
+            return 0;
+        }
+        int dropped = held.release(queues.get(moduleName));
+        heldEvents.remove(moduleName, held);
+        return dropped;
+    }
+
+    /**
+     * Registers event listeners of a module. The queue of the module is created with its first listener.
+     * Listeners may implement {@link EventListener} or annotate their methods with {@link net.dv8tion.jda.api.hooks.SubscribeEvent}.
+     *
+     * @param moduleName the name of the module
+     * @param listeners  the listeners to register
+     */
+    public synchronized void register(String moduleName, Object... listeners) {
+        ModuleEventQueue queue = queues.computeIfAbsent(moduleName, name ->
+                new ModuleEventQueue(name, queueCapacity, overflowPolicy, metricsManager.getModuleMetrics(name)));
+        for (Object listener : listeners) {
+            queue.addListener(listener);
+            IntentPolicy.findUnreachableEvents(listener, enabledIntents).forEach((eventType, intents) ->
+                    logger.warn("{} of module {} handles {}, which is never received without one of the intents {}. Add them to the intents of the module.",
+                            listener.getClass().getSimpleName(), moduleName, eventType.getSimpleName(), intents));
+        }
+    }
+
+    /**
+     * Removes event listeners of a module. The queue of the module is stopped once it has no listeners left.
+     *
+     * @param moduleName the name of the module
+     * @param listeners  the listeners to remove
+     */
+    public synchronized void unregister(String moduleName, Collection<?> listeners) {
+        ModuleEventQueue queue = queues.get(moduleName);
+        if (queue != null && queue.removeListeners(listeners)) {
+            queues.remove(moduleName);
+            queue.stop();
+        }
+    }
+
+    /**
+     * Adds a listener that receives every event on the publishing thread, before it is queued for the modules.
+     *
+     * @param interceptor the listener to add
+     */
+    public void addInterceptor(EventListener interceptor) {
+        interceptors.add(interceptor);
+    }
+
+    /**
+     * Returns the gateway intents enabled for the bot.
+     *
+     * @return the enabled {@link GatewayIntent}s
+     */
+    public Set<GatewayIntent> getEnabledIntents() {
+        return enabledIntents;
+    }
+
+    /**
+     * Returns the event queues of all modules with registered listeners, sorted by module name.
+     *
+     * @return the {@link ModuleEventQueue}s of all modules
+     */
+    public List<ModuleEventQueue> getQueues() {
+        List<ModuleEventQueue> list = new ArrayList<>(queues.values());
+        list.sort(Comparator.comparing(ModuleEventQueue::getModuleName));
+        return list;
+    }
+
+    /**
+     * Stops the worker threads of all modules.
+     */
+    public synchronized void shutdown() {
+        for (ModuleEventQueue queue : queues.values()) {
+            queue.stop();
+        }
+        queues.clear();
+    }
+
+    /**
+     * The events held back for a module while it is being loaded.
+     */
+    private static final class HeldEvents {
+        private final Set<Class<?>> eventTypes;
+        private final List<GenericEvent> events = new ArrayList<>();
+        // An event matching both the queue and the event types of the module is offered twice by publish()
+        private final Set<GenericEvent> held = Collections.newSetFromMap(new IdentityHashMap<>());
+        private boolean released;
+
+        private HeldEvents(Set<Class<?>> eventTypes) {
+            this.eventTypes = eventTypes;
+        }
+
+        private boolean isSubscribed(Class<?> eventClass) {
+            for (Class<?> eventType : eventTypes) {
+                if (eventType.isAssignableFrom(eventClass)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Holds an event, unless the events were already released.
+         *
+         * @return {@code true} if the event is held, {@code false} if it has to be delivered right away
+         */
+        private synchronized boolean hold(GenericEvent event) {
+            if (released) {
+                return false;
+            }
+            if (held.add(event)) {
+                events.add(event);
+            }
+            return true;
+        }
+
+        private synchronized int release(ModuleEventQueue queue) {
+            int dropped = 0;
+            for (GenericEvent event : events) {
+                if (queue != null && queue.handles(event.getClass())) {
+                    queue.offer(event);
+                } else {
+                    dropped++;
+                }
+            }
+            events.clear();
+            held.clear();
+            released = true;
+            return dropped;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package net.vitacraft.manager;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.hooks.IEventManager;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * An {@link IEventManager} that only passes events to the listener methods handling them.
+ * <p>
+ * JDA's default {@code InterfacedEventManager} passes every event to every listener, and every {@code ListenerAdapter}
+ * then looks up its own handler for the event. This event manager keeps its listeners in a {@link ListenerIndex},
+ * so an event only reaches the methods that handle it. Listeners may either implement
+ * {@link net.dv8tion.jda.api.hooks.EventListener} or annotate their methods with
+ * {@link net.dv8tion.jda.api.hooks.SubscribeEvent}.
+ * </p>
+ */
+public class IndexedEventManager implements IEventManager {
+    private final ListenerIndex listenerIndex = new ListenerIndex();
+
+    @Override
+    public void register(@NotNull Object listener) {
+        listenerIndex.register(listener);
+    }
+
+    @Override
+    public void unregister(@NotNull Object listener) {
+        listenerIndex.unregister(listener);
+    }
+
+    @Override
+    public void handle(@NotNull GenericEvent event) {
+        listenerIndex.dispatch(event);
+    }
+
+    @NotNull
+    @Override
+    public List<Object> getRegisteredListeners() {
+        return listenerIndex.getListeners();
+    }
+}
@@ -0,0 +1,126 @@
+package net.vitacraft.manager;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Computes the gateway intents of the bot from {@code gateway-intents} in bot.yml and the intents the modules need.
+ * <p>
+ * Discord only sends the events of enabled intents, so every intent no module needs costs gateway traffic and event
+ * handling time for nothing. Modules declare their intents in the {@code intents} list of their {@code module.yml}
+ * or in {@link net.vitacraft.api.MBModule#preEnable(net.vitacraft.api.PrimitiveBotEnvironment)}, and the intents
+ * required by the enabled entity caches are added automatically. With {@code minimize-intents} enabled, exactly this
+ * union is enabled and all other intents are disabled, otherwise the union is enabled in addition to the default
+ * intents of JDA.
+ * </p>
+ */
+public class IntentPolicy {
+    private static final Logger logger = LoggerFactory.getLogger("MoBot");
+    private static final Set<GatewayIntent> PRIVILEGED = EnumSet.of(GatewayIntent.GUILD_MEMBERS, GatewayIntent.GUILD_PRESENCES, GatewayIntent.MESSAGE_CONTENT);
+
+    private final boolean minimize;
+    private final Map<GatewayIntent, Set<String>> intents = new EnumMap<>(GatewayIntent.class);
+
+    /**
+     * Constructs a new {@link IntentPolicy}.
+     *
+     * @param configuredIntents the names of the intents listed in bot.yml
+     * @param minimize          whether all intents that are not required are disabled
+     */
+    public IntentPolicy(List<String> configuredIntents, boolean minimize) {
+        this.minimize = minimize;
+        // The guilds intent, needed to register commands and route interactions, is always enabled by JDA
+        require("bot.yml", configuredIntents);
+    }
+
+    /**
+     * Adds the intents a module declared in its {@code module.yml}.
+     *
+     * @param source the name of the module
+     * @param names  the names of the intents
+     */
+    public synchronized void require(String source, List<String> names) {
+        for (String name : names) {
+            try {
+                add(source, GatewayIntent.valueOf(name.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Ignoring unknown gateway intent '{}' required by {}.", name, source);
+            }
+        }
+    }
+
+    /**
+     * Adds intents.
+     *
+     * @param source  the name of the module or component requiring the intents
+     * @param intents the {@link GatewayIntent}s to enable
+     */
+    public synchronized void require(String source, Collection<GatewayIntent> intents) {
+        for (GatewayIntent intent : intents) {
+            add(source, intent);
+        }
+    }
+
+    private void add(String source, GatewayIntent intent) {
+        intents.computeIfAbsent(intent, key -> new TreeSet<>()).add(source);
+    }
+
+    /**
+     * Returns the intents that are enabled when this policy is applied.
+     *
+     * @return an unmodifiable set of the enabled {@link GatewayIntent}s
+     */
+    public synchronized Set<GatewayIntent> getEnabledIntents() {
+        Set<GatewayIntent> enabled = intents.isEmpty() ? EnumSet.noneOf(GatewayIntent.class) : EnumSet.copyOf(intents.keySet());
+        if (!minimize) {
+            enabled.addAll(GatewayIntent.getIntents(GatewayIntent.DEFAULT));
+        }
+        return Collections.unmodifiableSet(enabled);
+    }
+
+    /**
+     * Enables the intents of this policy on a shard manager builder.
+     *
+     * @param builder the {@link DefaultShardManagerBuilder} to configure
+     */
+    public synchronized void apply(DefaultShardManagerBuilder builder) {
+        synchronized (builder) {
+            if (minimize) {
+                builder.setEnabledIntents(getEnabledIntents());
+            } else if (!intents.isEmpty()) {
+                builder.enableIntents(intents.keySet());
+            }
+        }
+        logger.info("Gateway intents: {}", getEnabledIntents());
+        for (Map.Entry<GatewayIntent, Set<String>> entry : intents.entrySet()) {
+            if (PRIVILEGED.contains(entry.getKey())) {
+                logger.info("Privileged intent {} is required by {}", entry.getKey(), String.join(", ", entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Returns the events handled by a listener that can never be received, because none of the intents
+     * Discord sends them for is enabled.
+     *
+     * @param listener       the listener
+     * @param enabledIntents the enabled {@link GatewayIntent}s
+     * @return a map of the unreachable event types to the intents of which at least one must be enabled
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<Class<?>, Set<GatewayIntent>> findUnreachableEvents(Object listener, Set<GatewayIntent> enabledIntents) {
+        Map<Class<?>, Set<GatewayIntent>> unreachable = new LinkedHashMap<>();
+        for (Class<?> eventType : ListenerIndex.eventTypesOf(listener)) {
+            EnumSet<GatewayIntent> required = GatewayIntent.fromEvents((Class<? extends GenericEvent>) eventType);
+            if (!required.isEmpty() && Collections.disjoint(required, enabledIntents)) {
+                unreachable.put(eventType, required);
+            }
+        }
+        return unreachable;
+    }
+}
@@ -0,0 +1,13 @@
+package net.vitacraft.manager;
+
+import net.vitacraft.api.addons.SlashCommandAddon;
+
+/**
+ * A slash command handler standing in for the commands of a lazy module until the module is active.
+ * <p>
+ * An activator acknowledges the interaction itself and hands it to the handler of the module once the module was
+ * activated, so the {@link CommandExecutor} runs it directly and does not record it as an invocation of the command.
+ * </p>
+ */
+interface LazyCommandActivator extends SlashCommandAddon {
+}
@@ -0,0 +1,249 @@
+package net.vitacraft.manager;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.hooks.SubscribeEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An index of event listeners by the event types they handle.
+ * <p>
+ * When a listener is registered, the index determines which events it actually handles:
+ * </p>
+ * <ul>
+ *     <li>for a {@link ListenerAdapter}, every {@code on...} method it overrides</li>
+ *     <li>for any object, every method annotated with {@link SubscribeEvent}</li>
+ *     <li>for any other {@link EventListener}, all events</li>
+ * </ul>
+ * <p>
+ * The handlers of every concrete event class are resolved once and cached in a dispatch table, so an event is only
+ * passed to the methods that handle it, without walking the class hierarchy of the event for every listener.
+ * Handlers of one listener are called in the same order as {@link ListenerAdapter} calls them: the handler of
+ * {@link GenericEvent} first, then handlers of other event interfaces, then handlers of event classes from the most
+ * specific to the most general one.
+ * </p>
+ */
+public class ListenerIndex {
+    private static final Logger logger = LoggerFactory.getLogger("MoBot");
+    private static final Handler[] NO_HANDLERS = new Handler[0];
+
+    private final List<Object> listeners = new ArrayList<>();
+    private final List<Handler> handlers = new ArrayList<>();
+    private volatile Map<Class<?>, Handler[]> dispatchTable = new ConcurrentHashMap<>();
+
+    /**
+     * A single event handling method.
+     *
+     * @param listener   the listener the method belongs to
+     * @param eventType  the type of events the method handles
+     * @param rank       the position of the handler among the handlers of its listener
+     * @param invoker    the method handle bound to the listener
+     */
+    private record Handler(Object listener, Class<?> eventType, int rank, MethodHandle invoker) {
+    }
+
+    /**
+     * Registers a listener.
+     *
+     * @param listener the listener to register
+     * @return {@code true} if the listener handles at least one type of event
+     */
+    public synchronized boolean register(Object listener) {
+        List<Handler> found = handlersOf(listener);
+        if (found.isEmpty()) {
+            logger.warn("Listener {} does not handle any events.", listener.getClass().getName());
+            return false;
+        }
+        listeners.add(listener);
+        handlers.addAll(found);
+        dispatchTable = new ConcurrentHashMap<>();
+        return true;
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener the listener to remove
+     */
+    public synchronized void unregister(Object listener) {
+        if (listeners.remove(listener)) {
+            handlers.removeIf(handler -> handler.listener() == listener);
+            dispatchTable = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Returns whether any registered listener handles events of the given class.
+     *
+     * @param eventClass the concrete class of an event
+     * @return {@code true} if at least one handler would be called
+     */
+    public boolean handles(Class<?> eventClass) {
+        return resolve(eventClass).length > 0;
+    }
+
+    /**
+     * Passes an event to every handler of its class. A failing handler does not prevent the other handlers from being called.
+     *
+     * @param event the event to dispatch
+     * @return {@code true} if no handler failed
+     */
+    public boolean dispatch(GenericEvent event) {
+        boolean succeeded = true;
+        for (Handler handler : resolve(event.getClass())) {
+            try {
+                handler.invoker().invoke(event);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                succeeded = false;
+                logger.error("{} failed to handle {}", handler.listener().getClass().getName(), event.getClass().getSimpleName(), e);
+            }
+        }
+        return succeeded;
+    }
+
+    /**
+     * Returns all registered listeners.
+     *
+     * @return a snapshot of the registered listeners, in registration order
+     */
+    public synchronized List<Object> getListeners() {
+        return List.copyOf(listeners);
+    }
+
+    /**
+     * Returns whether no listener is registered.
+     *
+     * @return {@code true} if the index is empty
+     */
+    public synchronized boolean isEmpty() {
+        return listeners.isEmpty();
+    }
+
+    private Handler[] resolve(Class<?> eventClass) {
+        Map<Class<?>, Handler[]> table = dispatchTable;
+        Handler[] resolved = table.get(eventClass);
+        if (resolved == null) {
+            resolved = collect(eventClass);
+            table.put(eventClass, resolved);
+        }
+        return resolved;
+    }
+
+    private synchronized Handler[] collect(Class<?> eventClass) {
+        List<Handler> matching = new ArrayList<>();
+        for (Handler handler : handlers) {
+            if (handler.eventType().isAssignableFrom(eventClass)) {
+                matching.add(handler);
+            }
+        }
+        if (matching.isEmpty()) {
+            return NO_HANDLERS;
+        }
+        // Listeners stay in registration order, handlers of one listener are ordered by rank
+        Map<Object, Integer> order = new IdentityHashMap<>();
+        for (Object listener : listeners) {
+            order.put(listener, order.size());
+        }
+        matching.sort(Comparator.<Handler>comparingInt(handler -> order.get(handler.listener())).thenComparingInt(Handler::rank));
+        return matching.toArray(NO_HANDLERS);
+    }
+
+    /**
+     * Returns the event types a listener handles, as determined when it is registered.
+     *
+     * @param listener the listener
+     * @return the event types handled by the listener, {@link GenericEvent} if it handles all events
+     */
+    public static Set<Class<?>> eventTypesOf(Object listener) {
+        Set<Class<?>> eventTypes = new LinkedHashSet<>();
+        for (Handler handler : handlersOf(listener)) {
+            eventTypes.add(handler.eventType());
+        }
+        return eventTypes;
+    }
+
+    private static List<Handler> handlersOf(Object listener) {
+        List<Handler> found = new ArrayList<>();
+        try {
+            for (Class<?> type = listener.getClass(); type != null && type != Object.class; type = type.getSuperclass()) {
+                for (Method method : type.getDeclaredMethods()) {
+                    if (method.isAnnotationPresent(SubscribeEvent.class) && isEventMethod(method)) {
+                        method.setAccessible(true);
+                        Class<?> eventType = method.getParameterTypes()[0];
+                        found.add(new Handler(listener, eventType, rank(eventType), MethodHandles.lookup().unreflect(method).bindTo(listener)));
+                    }
+                }
+            }
+
+            if (listener instanceof ListenerAdapter adapter) {
+                Set<String> seen = new HashSet<>();
+                for (Class<?> type = adapter.getClass(); type != ListenerAdapter.class; type = type.getSuperclass()) {
+                    for (Method method : type.getDeclaredMethods()) {
+                        if (!method.getName().startsWith("on") || !isEventMethod(method) || Modifier.isStatic(method.getModifiers())
+                                || !seen.add(method.getName() + method.getParameterTypes()[0].getName())) {
+                            continue;
+                        }
+                        Class<?> eventType = method.getParameterTypes()[0];
+                        MethodHandle invoker;
+                        try {
+                            invoker = MethodHandles.publicLookup()
+                                    .findVirtual(ListenerAdapter.class, method.getName(), MethodType.methodType(void.class, eventType));
+                        } catch (NoSuchMethodException e) {
+                            continue;
+                        }
+                        found.add(new Handler(listener, eventType, rank(eventType), invoker.bindTo(listener)));
+                    }
+                }
+            } else if (listener instanceof EventListener eventListener && found.isEmpty()) {
+                found.add(catchAll(eventListener));
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.warn("Failed to index listener {}, it receives all events: {}", listener.getClass().getName(), e.getMessage());
+            found.clear();
+            if (listener instanceof EventListener eventListener) {
+                found.add(catchAll(eventListener));
+            }
+        }
+        return found;
+    }
+
+    private static Handler catchAll(EventListener listener) {
+        try {
+            MethodHandle invoker = MethodHandles.publicLookup()
+                    .findVirtual(EventListener.class, "onEvent", MethodType.methodType(void.class, GenericEvent.class));
+            return new Handler(listener, GenericEvent.class, 0, invoker.bindTo(listener));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("EventListener#onEvent is not accessible", e);
+        }
+    }
+
+    private static boolean isEventMethod(Method method) {
+        return method.getParameterCount() == 1 && GenericEvent.class.isAssignableFrom(method.getParameterTypes()[0]);
+    }
+
+    private static int rank(Class<?> eventType) {
+        if (eventType == GenericEvent.class) {
+            return 0;
+        }
+        if (eventType.isInterface()) {
+            return 1;
+        }
+        int depth = 0;
+        for (Class<?> type = eventType; type != null; type = type.getSuperclass()) {
+            depth++;
+        }
+        return Integer.MAX_VALUE - depth;
+    }
+}
@@ -0,0 +1,100 @@
+package net.vitacraft.manager;
+
+import net.vitacraft.api.metrics.InvocationMetrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects the {@link InvocationMetrics} of all slash commands and modules.
+ * <p>
+ * Command metrics are recorded by the {@link CommandExecutor} for every handled interaction, by full command name.
+ * Module metrics are recorded for every slash command and event handled by a module, by module name.
+ * Activation metrics are recorded for every activation of a lazy module, by module name.
+ * </p>
+ */
+public class MetricsManager {
+    private final Map<String, InvocationMetrics> commandMetrics = new ConcurrentHashMap<>();
+    private final Map<String, InvocationMetrics> moduleMetrics = new ConcurrentHashMap<>();
+    private final Map<String, InvocationMetrics> activationMetrics = new ConcurrentHashMap<>();
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * Returns the {@link InvocationMetrics} of a slash command, creating them if they do not exist yet.
+     *
+     * @param fullCommandName the full name of the command
+     * @return the {@link InvocationMetrics} of the command
+     */
+    public InvocationMetrics getCommandMetrics(String fullCommandName) {
+        InvocationMetrics metrics = commandMetrics.get(fullCommandName);
+        return metrics != null ? metrics : commandMetrics.computeIfAbsent(fullCommandName, InvocationMetrics::new);
+    }
+
+    /**
+     * Returns the {@link InvocationMetrics} of a module, creating them if they do not exist yet.
+     *
+     * @param moduleName the name of the module
+     * @return the {@link InvocationMetrics} of the module
+     */
+    public InvocationMetrics getModuleMetrics(String moduleName) {
+        InvocationMetrics metrics = moduleMetrics.get(moduleName);
+        return metrics != null ? metrics : moduleMetrics.computeIfAbsent(moduleName, InvocationMetrics::new);
+    }
+
+    /**
+     * Returns the {@link InvocationMetrics} of the activations of a lazy module, creating them if they do not exist yet.
+     *
+     * @param moduleName the name of the lazy module
+     * @return the {@link InvocationMetrics} of the activations of the module
+     */
+    public InvocationMetrics getActivationMetrics(String moduleName) {
+        InvocationMetrics metrics = activationMetrics.get(moduleName);
+        return metrics != null ? metrics : activationMetrics.computeIfAbsent(moduleName, InvocationMetrics::new);
+    }
+
+    /**
+     * Returns the metrics of all slash commands that were invoked at least once, sorted by name.
+     *
+     * @return the {@link InvocationMetrics} of all commands
+     */
+    public List<InvocationMetrics> getAllCommandMetrics() {
+        return sorted(commandMetrics.values());
+    }
+
+    /**
+     * Returns the metrics of all modules that handled at least one command or event, sorted by name.
+     *
+     * @return the {@link InvocationMetrics} of all modules
+     */
+    public List<InvocationMetrics> getAllModuleMetrics() {
+        return sorted(moduleMetrics.values());
+    }
+
+    /**
+     * Returns the activation metrics of all lazy modules that were activated at least once, sorted by name.
+     *
+     * @return the {@link InvocationMetrics} of all lazy module activations
+     */
+    public List<InvocationMetrics> getAllActivationMetrics() {
+        return sorted(activationMetrics.values());
+    }
+
+    /**
+     * Returns the time since the metrics were started.
+     *
+     * @return the uptime in nanoseconds
+     */
+    public long getUptimeNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    private static List<InvocationMetrics> sorted(Collection<InvocationMetrics> metrics) {
+        List<InvocationMetrics> list = new ArrayList<>(metrics);
+        list.sort(Comparator.comparing(InvocationMetrics::getName));
+        return list;
+    }
+}
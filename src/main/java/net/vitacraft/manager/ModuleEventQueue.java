@@ -0,0 +1,166 @@
+package net.vitacraft.manager;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.vitacraft.api.metrics.InvocationMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The bounded event queue of a single module, drained by a dedicated worker thread.
+ * <p>
+ * Events are delivered to the listeners of the module in the order they were published. Listeners are kept in a
+ * {@link ListenerIndex}, so only events the module handles are queued at all. If the queue is full,
+ * the {@link OverflowPolicy} decides whether an event is dropped or the publisher waits.
+ * The time the module takes to handle every event is recorded in its {@link InvocationMetrics}.
+ * </p>
+ */
+public class ModuleEventQueue {
+    private static final Logger logger = LoggerFactory.getLogger("MoBot");
+
+    private final String moduleName;
+    private final OverflowPolicy overflowPolicy;
+    private final BlockingQueue<GenericEvent> queue;
+    private final ListenerIndex listenerIndex = new ListenerIndex();
+    private final InvocationMetrics metrics;
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread worker;
+
+    /**
+     * Constructs a new {@link ModuleEventQueue} and starts its worker thread.
+     *
+     * @param moduleName     the name of the module
+     * @param capacity       the maximum number of queued events
+     * @param overflowPolicy the {@link OverflowPolicy} applied when the queue is full
+     * @param metrics        the {@link InvocationMetrics} of the module
+     */
+    public ModuleEventQueue(String moduleName, int capacity, OverflowPolicy overflowPolicy, InvocationMetrics metrics) {
+        this.moduleName = moduleName;
+        this.overflowPolicy = overflowPolicy;
+        this.metrics = metrics;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.worker = new Thread(this::drain, "MoBot-Events-" + moduleName);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Returns whether any listener of the module handles events of the given class.
+     *
+     * @param eventClass the concrete class of an event
+     * @return {@code true} if events of the class are delivered to the module
+     */
+    public boolean handles(Class<?> eventClass) {
+        return listenerIndex.handles(eventClass);
+    }
+
+    /**
+     * Queues an event for the listeners of the module.
+     *
+     * @param event the event to queue
+     */
+    public void offer(GenericEvent event) {
+        switch (overflowPolicy) {
+            case DROP_NEWEST -> {
+                if (!queue.offer(event)) {
+                    dropped.incrementAndGet();
+                }
+            }
+            case DROP_OLDEST -> {
+                while (!queue.offer(event)) {
+                    if (queue.poll() != null) {
+                        dropped.incrementAndGet();
+                    }
+                }
+            }
+            case BLOCK -> {
+                try {
+                    queue.put(event);
+                } catch (InterruptedException e) {
+                    dropped.incrementAndGet();
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                GenericEvent event = queue.take();
+                long start = System.nanoTime();
+                boolean succeeded = false;
+                try {
+                    succeeded = listenerIndex.dispatch(event);
+                } catch (Error e) {
+                    logger.error("Module {} failed to handle {}", moduleName, event.getClass().getSimpleName(), e);
+                } finally {
+                    metrics.record(System.nanoTime() - start, !succeeded);
+                }
+                delivered.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void addListener(Object listener) {
+        listenerIndex.register(listener);
+    }
+
+    boolean removeListeners(Collection<?> removed) {
+        for (Object listener : removed) {
+            listenerIndex.unregister(listener);
+        }
+        return listenerIndex.isEmpty();
+    }
+
+    /**
+     * Stops the worker thread. Events still queued are discarded.
+     */
+    void stop() {
+        worker.interrupt();
+        queue.clear();
+    }
+
+    /**
+     * Returns the name of the module.
+     *
+     * @return the module name
+     */
+    public String getModuleName() {
+        return moduleName;
+    }
+
+    /**
+     * Returns the number of events currently waiting in the queue.
+     *
+     * @return the queue depth
+     */
+    public int getDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the number of events delivered to the listeners of the module.
+     *
+     * @return the number of delivered events
+     */
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    /**
+     * Returns the number of events dropped because the queue was full.
+     *
+     * @return the number of dropped events
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,810 @@
+package net.vitacraft.manager;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.vitacraft.api.BotEnvironment;
+import net.vitacraft.api.MBModule;
+import net.vitacraft.api.PrimitiveBotEnvironment;
+import net.vitacraft.api.addons.SlashCommandAddon;
+import net.vitacraft.api.classloader.ModuleClassLoader;
+import net.vitacraft.api.classloader.ModuleConfigReader;
+import net.vitacraft.api.classloader.ModuleDescriptor;
+import net.vitacraft.api.classloader.ModuleLoader;
+import net.vitacraft.api.info.ModuleInfo;
+import net.vitacraft.api.info.StartUpPriority;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * ModuleManager is responsible for the lifecycle of all loaded {@link MBModule} instances.
+ * <p>
+ * Modules are kept in dependency layers as produced by the {@link ModuleLoader}. Every lifecycle phase runs
+ * layer by layer: within a layer, modules are grouped by {@link StartUpPriority} and the modules of one
+ * priority group run in parallel on a bounded executor. A module that fails or exceeds the per-module
+ * timeout is disabled, together with every module that depends on it, without affecting other modules.
+ * </p>
+ * <p>
+ * Modules declaring {@code lazy: true} in their {@code module.yml} are not loaded at startup. Only the commands they
+ * declare are registered, and the module is loaded and enabled when its first command or subscribed event arrives.
+ * Activation runs on the module executor under the same per-module timeout, so the event threads of JDA are never
+ * blocked, and the events of the module are held back until it is enabled.
+ * Lazy modules are never pre-enabled, since the shard manager is already built by then.
+ * </p>
+ */
+public class ModuleManager {
+    private static final Logger logger = LoggerFactory.getLogger("MoBot");
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final List<List<MBModule>> layers = new CopyOnWriteArrayList<>();
+    private final Set<MBModule> failedModules = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final Map<String, ModuleDescriptor> lazyModules = new ConcurrentHashMap<>();
+    private final Map<String, Set<Class<?>>> lazyEventTriggers = new ConcurrentHashMap<>();
+    private final Map<String, Long> activationLatencies = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<MBModule>> activations = new ConcurrentHashMap<>();
+    private final LazyEventTrigger lazyEventTrigger = new LazyEventTrigger();
+    private volatile boolean lazyEventTriggerRegistered;
+    private volatile BotEnvironment botEnvironment;
+    private String modulesPath;
+
+    /**
+     * Constructs a new {@link ModuleManager}.
+     *
+     * @param threads the maximum number of modules processed in parallel
+     * @param timeoutMillis the maximum time in milliseconds a single module may take per lifecycle phase
+     */
+    public ModuleManager(int threads, long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "MoBot-Modules-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Loads all modules from the given directory.
+     *
+     * @param modulesPath the path to the modules directory
+     */
+    public void loadModules(String modulesPath) {
+        this.modulesPath = modulesPath;
+        List<List<ModuleDescriptor>> resolvedLayers = ModuleLoader.resolveModules(modulesPath, executor);
+
+        // Walk the layers backwards, so lazy modules required by an eager module are loaded eagerly as well
+        Set<String> required = new HashSet<>();
+        List<List<ModuleDescriptor>> eagerLayers = new ArrayList<>();
+        for (int i = resolvedLayers.size() - 1; i >= 0; i--) {
+            List<ModuleDescriptor> eagerLayer = new ArrayList<>();
+            for (ModuleDescriptor descriptor : resolvedLayers.get(i)) {
+                ModuleInfo moduleInfo = descriptor.moduleInfo();
+                boolean isRequired = required.contains(descriptor.mainClass()) || required.contains(moduleInfo.name());
+                if (moduleInfo.lazy() && !isRequired) {
+                    lazyModules.put(descriptor.mainClass(), descriptor);
+                    continue;
+                }
+                if (moduleInfo.lazy()) {
+                    logger.info("Lazy module {} is required by another module and will be enabled at startup.", moduleInfo.name());
+                }
+                eagerLayer.add(descriptor);
+                required.addAll(moduleInfo.dependencies());
+            }
+            eagerLayers.add(0, eagerLayer);
+        }
+
+        for (List<ModuleDescriptor> layer : eagerLayers) {
+            layers.add(ModuleLoader.instantiateLayer(layer, executor, timeoutMillis));
+        }
+    }
+
+    /**
+     * Calls {@link MBModule#preEnable(PrimitiveBotEnvironment)} on all modules.
+     *
+     * @param primitiveBotEnvironment the {@link PrimitiveBotEnvironment} passed to the modules
+     * @return the names of all successfully pre-enabled modules
+     */
+    public List<String> preEnableModules(PrimitiveBotEnvironment primitiveBotEnvironment) {
+        return runPhase("pre-enable", module -> module.preEnable(primitiveBotEnvironment));
+    }
+
+    /**
+     * Calls {@link MBModule#onEnable()} on all modules that were pre-enabled successfully.
+     *
+     * @param botEnvironment the {@link BotEnvironment} passed to the modules
+     * @return the names of all successfully enabled modules
+     */
+    public List<String> enableModules(BotEnvironment botEnvironment) {
+        this.botEnvironment = botEnvironment;
+        return runPhase("enable", module -> {
+            module.setBotEnvironment(botEnvironment);
+            module.onEnable();
+            logger.info("Successfully Enabled module {}", module.getModuleInfo().name() + " by " + module.getModuleInfo().authors());
+        });
+    }
+
+    /**
+     * Registers the declared commands and subscribed events of all lazy modules, so they are activated on first use.
+     * Must be called after {@link #enableModules(BotEnvironment)}.
+     */
+    public void registerLazyModules() {
+        for (ModuleDescriptor descriptor : lazyModules.values()) {
+            registerLazyModule(descriptor);
+        }
+        if (!lazyModules.isEmpty()) {
+            logger.info("Registered lazy modules: {}", lazyModules.size());
+        }
+    }
+
+    private void registerLazyModule(ModuleDescriptor descriptor) {
+        ModuleInfo moduleInfo = descriptor.moduleInfo();
+        SlashCommandAddon activator = new LazyCommandActivator() {
+            @Override
+            public void execute(@NotNull SlashCommandInteractionEvent event) {
+                // Activating the module can take longer than the three seconds Discord waits for a response
+                event.deferReply().queue(null, failure ->
+                        logger.debug("Could not defer command /{}: {}", event.getFullCommandName(), failure.getMessage()));
+                activateAsync(descriptor.mainClass()).thenAccept(module -> {
+                    CommandManager commandManager = botEnvironment.getCommandManager();
+                    SlashCommandAddon handler = module == null ? null : commandManager.resolveCommand(event);
+                    if (handler != null && !(handler instanceof LazyCommandActivator)) {
+                        commandManager.getExecutor().execute(event, handler);
+                    } else {
+                        event.getHook().sendMessage("This command is currently unavailable.").setEphemeral(true).queue();
+                    }
+                });
+            }
+        };
+        for (Map<String, Object> declaration : moduleInfo.commands()) {
+            try {
+                botEnvironment.getCommandManager().registerCommand(CommandDeclarations.toCommandData(declaration), activator);
+            } catch (RuntimeException e) {
+                logger.error("Invalid command declaration {} in lazy module {}", declaration.get("name"), moduleInfo.name(), e);
+            }
+        }
+
+        Set<Class<?>> eventClasses = new HashSet<>();
+        for (String eventName : moduleInfo.events()) {
+            try {
+                Class<?> eventClass = Class.forName(eventName, false, GenericEvent.class.getClassLoader());
+                if (GenericEvent.class.isAssignableFrom(eventClass)) {
+                    eventClasses.add(eventClass);
+                } else {
+                    logger.error("Subscribed event {} of lazy module {} is not an event.", eventName, moduleInfo.name());
+                }
+            } catch (ClassNotFoundException e) {
+                logger.error("Unknown subscribed event {} in lazy module {}", eventName, moduleInfo.name());
+            }
+        }
+        if (!eventClasses.isEmpty()) {
+            lazyEventTriggers.put(descriptor.mainClass(), eventClasses);
+            if (!lazyEventTriggerRegistered) {
+                lazyEventTriggerRegistered = true;
+                botEnvironment.getEventBus().addInterceptor(lazyEventTrigger);
+            }
+        }
+    }
+
+    /**
+     * Loads and enables a lazy module on the module executor, including all lazy modules it depends on.
+     * <p>
+     * The events of the module are held back until the activation has finished, and are then delivered to its listeners.
+     * If the activation does not finish within the module timeout, the returned future completes with {@code null}
+     * and the module is unloaded as soon as its activation returns. Concurrent calls share one activation.
+     * </p>
+     *
+     * @param mainClass the main class name of the lazy module
+     * @return a future completed with the active module, or with {@code null} if it could not be activated
+     */
+    public CompletableFuture<MBModule> activateAsync(String mainClass) {
+        ModuleDescriptor descriptor = lazyModules.get(mainClass);
+        if (descriptor == null) {
+            CompletableFuture<MBModule> activation = activations.get(mainClass);
+            return activation != null ? activation : CompletableFuture.completedFuture(findActiveModule(mainClass));
+        }
+        CompletableFuture<MBModule> activation = new CompletableFuture<>();
+        CompletableFuture<MBModule> running = activations.putIfAbsent(mainClass, activation);
+        if (running != null) {
+            return running;
+        }
+
+        String name = descriptor.moduleInfo().name();
+        long start = System.nanoTime();
+        botEnvironment.getEventBus().hold(name, lazyEventTriggers.getOrDefault(mainClass, Set.of()));
+        activation.whenComplete((module, error) -> {
+            activations.remove(mainClass, activation);
+            botEnvironment.getMetricsManager().getActivationMetrics(name).record(System.nanoTime() - start, module == null);
+            int dropped = botEnvironment.getEventBus().release(name);
+            if (dropped > 0) {
+                logger.warn("Dropped {} events that arrived while lazy module {} was activated.", dropped, name);
+            }
+        });
+        Future<?> task = executor.submit(() -> {
+            MBModule module = null;
+            try {
+                module = activate(mainClass);
+            } finally {
+                if (!activation.complete(module) && module != null) {
+                    logger.warn("Unloading lazy module {}, which finished activating after the timeout.", name);
+                    unloadActivatedModule(module);
+                }
+            }
+        });
+        CompletableFuture.delayedExecutor(timeoutMillis, TimeUnit.MILLISECONDS, Runnable::run).execute(() -> {
+            if (activation.complete(null)) {
+                task.cancel(true);
+                logger.error("Lazy module {} did not finish activating within {} ms.", name, timeoutMillis);
+            }
+        });
+        return activation;
+    }
+
+    private synchronized void unloadActivatedModule(MBModule module) {
+        if (getModules().contains(module)) {
+            disableModule(module);
+            removeModule(module);
+        }
+    }
+
+    /**
+     * Loads and enables a lazy module, including all lazy modules it depends on.
+     * Has no effect if the module is already active.
+     *
+     * @param mainClass the main class name of the lazy module
+     * @return the active module, or {@code null} if it could not be activated
+     */
+    private synchronized MBModule activate(String mainClass) {
+        ModuleDescriptor descriptor = lazyModules.get(mainClass);
+        if (descriptor == null) {
+            return findActiveModule(mainClass);
+        }
+
+        long start = System.nanoTime();
+        ModuleInfo moduleInfo = descriptor.moduleInfo();
+        for (String dependency : moduleInfo.dependencies()) {
+            for (ModuleDescriptor candidate : lazyModules.values()) {
+                if (dependency.equals(candidate.mainClass()) || dependency.equals(candidate.moduleInfo().name())) {
+                    activate(candidate.mainClass());
+                }
+            }
+        }
+
+        lazyModules.remove(mainClass);
+        lazyEventTriggers.remove(mainClass);
+        MBModule module;
+        try {
+            module = ModuleLoader.instantiate(descriptor);
+        } catch (Exception | LinkageError e) {
+            logger.error("Failed to instantiate lazy module {}", moduleInfo.name(), e);
+            return null;
+        }
+        if (hasFailedDependency(module)) {
+            logger.error("Cannot activate lazy module {}: a dependency is not available.", moduleInfo.name());
+            closeClassLoader(module);
+            return null;
+        }
+        // Added before onEnable(), so everything the module registered is removed again if it fails
+        layers.add(List.of(module));
+        try {
+            module.setBotEnvironment(botEnvironment);
+            module.onEnable();
+        } catch (Exception | LinkageError e) {
+            logger.error("Failed to activate lazy module {}", moduleInfo.name(), e);
+            removeModule(module);
+            return null;
+        }
+
+        long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        activationLatencies.put(moduleInfo.name(), latencyMillis);
+        logger.info("Activated lazy module {} in {} ms.", moduleInfo.name(), latencyMillis);
+        return module;
+    }
+
+    /**
+     * Loads and enables a module from a JAR file while the bot is running.
+     * Lazy modules are only registered, and activated on first use as usual.
+     *
+     * @param jarFile the module JAR file
+     * @return {@code true} if the module was loaded successfully
+     */
+    public synchronized boolean loadModule(File jarFile) {
+        ModuleDescriptor descriptor;
+        try {
+            descriptor = ModuleConfigReader.scanJar(jarFile);
+        } catch (IOException e) {
+            logger.error("Failed to load JAR file: {}", jarFile.getName(), e);
+            return false;
+        }
+        ModuleInfo moduleInfo = descriptor.moduleInfo();
+        if (findModule(descriptor.mainClass()) != null || lazyModules.containsKey(descriptor.mainClass())) {
+            logger.warn("Module {} is already loaded.", moduleInfo.name());
+            return false;
+        }
+
+        warnMissingIntents(moduleInfo);
+
+        if (moduleInfo.lazy()) {
+            lazyModules.put(descriptor.mainClass(), descriptor);
+            registerLazyModule(descriptor);
+            logger.info("Registered lazy module {}", moduleInfo.name());
+            return true;
+        }
+
+        MBModule module;
+        try {
+            module = ModuleLoader.instantiate(descriptor);
+        } catch (Exception | LinkageError e) {
+            logger.error("Failed to instantiate module: {}", moduleInfo.name(), e);
+            return false;
+        }
+        if (hasFailedDependency(module)) {
+            logger.error("Cannot load module {}: a dependency is not available.", moduleInfo.name());
+            closeClassLoader(module);
+            return false;
+        }
+
+        layers.add(List.of(module));
+        if (runGroup("enable", List.of(module), active -> {
+            active.setBotEnvironment(botEnvironment);
+            active.onEnable();
+        }).isEmpty()) {
+            removeModule(module);
+            return false;
+        }
+        logger.info("Successfully loaded module {}", moduleInfo.name() + " by " + moduleInfo.authors());
+        return true;
+    }
+
+    private void warnMissingIntents(ModuleInfo moduleInfo) {
+        Set<String> missing = new TreeSet<>();
+        for (String intent : moduleInfo.intents()) {
+            try {
+                if (!botEnvironment.getEventBus().getEnabledIntents().contains(GatewayIntent.valueOf(intent.toUpperCase(Locale.ROOT)))) {
+                    missing.add(intent);
+                }
+            } catch (IllegalArgumentException e) {
+                logger.warn("Module {} requires unknown gateway intent '{}'.", moduleInfo.name(), intent);
+            }
+        }
+        if (!missing.isEmpty()) {
+            logger.warn("Module {} requires the gateway intents {}, which are only enabled after a restart.", moduleInfo.name(), missing);
+        }
+    }
+
+    /**
+     * Disables and unloads a module while the bot is running.
+     * <p>
+     * All commands and event listeners registered by the module are removed and its class loader is closed,
+     * so the module's classes can be garbage collected. A module that other active modules depend on is not unloaded.
+     * </p>
+     *
+     * @param name the name or main class name of the module
+     * @return {@code true} if the module was unloaded
+     */
+    public synchronized boolean unloadModule(String name) {
+        for (ModuleDescriptor descriptor : lazyModules.values()) {
+            if (name.equals(descriptor.mainClass()) || name.equals(descriptor.moduleInfo().name())) {
+                lazyModules.remove(descriptor.mainClass());
+                lazyEventTriggers.remove(descriptor.mainClass());
+                for (Map<String, Object> declaration : descriptor.moduleInfo().commands()) {
+                    botEnvironment.getCommandManager().unregisterCommand(String.valueOf(declaration.get("name")));
+                }
+                logger.info("Unloaded lazy module {}", descriptor.moduleInfo().name());
+                return true;
+            }
+        }
+
+        MBModule module = findModule(name);
+        if (module == null) {
+            logger.warn("Module {} is not loaded.", name);
+            return false;
+        }
+        List<String> dependents = new ArrayList<>();
+        for (MBModule candidate : getActiveModules()) {
+            List<String> dependencies = candidate.getModuleInfo().dependencies();
+            if (dependencies.contains(module.getModuleInfo().name()) || dependencies.contains(module.getClass().getName())) {
+                dependents.add(candidate.getModuleInfo().name());
+            }
+        }
+        if (!dependents.isEmpty()) {
+            logger.warn("Cannot unload module {}: required by {}", module.getModuleInfo().name(), dependents);
+            return false;
+        }
+
+        disableModule(module);
+        removeModule(module);
+        logger.info("Unloaded module {}", module.getModuleInfo().name());
+        return true;
+    }
+
+    private void disableModule(MBModule module) {
+        if (failedModules.contains(module)) {
+            return;
+        }
+        try {
+            module.onDisable();
+        } catch (Exception e) {
+            logger.error("Failed to disable module {}", module.getModuleInfo().name(), e);
+        }
+        try {
+            module.postDisable();
+        } catch (Exception e) {
+            logger.error("Failed to post-disable module {}", module.getModuleInfo().name(), e);
+        }
+    }
+
+    /**
+     * Unloads a module and loads it again from its JAR file, picking up a new version of the JAR file.
+     *
+     * @param name the name or main class name of the module
+     * @return {@code true} if the module was reloaded successfully
+     */
+    public synchronized boolean reloadModule(String name) {
+        File jarFile = findJarFile(name);
+        if (jarFile == null) {
+            logger.warn("Module {} is not loaded.", name);
+            return false;
+        }
+        return unloadModule(name) && loadModule(jarFile);
+    }
+
+    /**
+     * Brings the loaded modules in line with a changed JAR file: a new JAR file is loaded, a changed one
+     * is reloaded and the module of a deleted one is unloaded.
+     *
+     * @param jarFile the changed module JAR file
+     */
+    public synchronized void syncJarFile(File jarFile) {
+        String loadedName = null;
+        for (MBModule module : getModules()) {
+            if (module.getClass().getClassLoader() instanceof ModuleClassLoader classLoader && classLoader.getJarFile().equals(jarFile)) {
+                loadedName = module.getClass().getName();
+            }
+        }
+        for (ModuleDescriptor descriptor : lazyModules.values()) {
+            if (descriptor.jarFile().equals(jarFile)) {
+                loadedName = descriptor.mainClass();
+            }
+        }
+
+        if (loadedName == null) {
+            if (jarFile.isFile()) {
+                loadModule(jarFile);
+            }
+        } else if (jarFile.isFile()) {
+            reloadModule(loadedName);
+        } else {
+            unloadModule(loadedName);
+        }
+    }
+
+    /**
+     * Returns the loaded module with the given name.
+     *
+     * @param name the name or main class name of the module
+     * @return the module, or {@code null} if no such module is loaded
+     */
+    public MBModule findModule(String name) {
+        for (MBModule module : getModules()) {
+            if (name.equals(module.getModuleInfo().name()) || name.equals(module.getClass().getName())) {
+                return module;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the directory modules were loaded from.
+     *
+     * @return the path to the modules directory
+     */
+    public String getModulesPath() {
+        return modulesPath;
+    }
+
+    private File findJarFile(String name) {
+        MBModule module = findModule(name);
+        if (module != null) {
+            return module.getClass().getClassLoader() instanceof ModuleClassLoader classLoader ? classLoader.getJarFile() : null;
+        }
+        for (ModuleDescriptor descriptor : lazyModules.values()) {
+            if (name.equals(descriptor.mainClass()) || name.equals(descriptor.moduleInfo().name())) {
+                return descriptor.jarFile();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes every reference the bot holds to a module: its commands, autocomplete handlers, event listeners, caches, stores,
+     * configuration listeners and class loader.
+     *
+     * @param module the module to remove
+     */
+    private void removeModule(MBModule module) {
+        CommandManager commandManager = botEnvironment.getCommandManager();
+        for (String subcommand : module.getRegisteredSubcommands()) {
+            commandManager.unregisterSubcommand(subcommand);
+        }
+        for (String command : module.getRegisteredCommands()) {
+            commandManager.unregisterCommand(command);
+        }
+        module.getRegisteredAutoCompletes().forEach((command, options) -> options.forEach(option -> commandManager.unregisterAutoComplete(command, option)));
+        for (String namespace : module.getRegisteredComponents()) {
+            botEnvironment.getComponentRouter().unregister(module.getModuleInfo().name(), namespace);
+        }
+        if (!module.getEventListeners().isEmpty()) {
+            botEnvironment.getEventBus().unregister(module.getModuleInfo().name(), module.getEventListeners());
+        }
+        botEnvironment.getCacheManager().dropCaches(module.getModuleInfo().name());
+        botEnvironment.getStorageManager().closeStores(module.getModuleInfo().name());
+        module.getConfigChangeListeners().forEach((configLoader, listeners) -> listeners.forEach(configLoader::removeChangeListener));
+
+        List<List<MBModule>> remainingLayers = new ArrayList<>();
+        for (List<MBModule> layer : layers) {
+            List<MBModule> remaining = new ArrayList<>(layer);
+            remaining.remove(module);
+            if (!remaining.isEmpty()) {
+                remainingLayers.add(remaining);
+            }
+        }
+        layers.clear();
+        layers.addAll(remainingLayers);
+        failedModules.remove(module);
+        closeClassLoader(module);
+    }
+
+    private void closeClassLoader(MBModule module) {
+        if (module.getClass().getClassLoader() instanceof ModuleClassLoader classLoader) {
+            try {
+                classLoader.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close class loader of module {}", module.getModuleInfo().name(), e);
+            }
+        }
+    }
+
+    private MBModule findActiveModule(String mainClass) {
+        for (MBModule module : getActiveModules()) {
+            if (module.getClass().getName().equals(mainClass)) {
+                return module;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the descriptors of all lazy modules that have not been activated yet.
+     *
+     * @return an unmodifiable collection of the pending lazy modules
+     */
+    public Collection<ModuleDescriptor> getLazyModules() {
+        return Collections.unmodifiableCollection(lazyModules.values());
+    }
+
+    /**
+     * Returns the time each activated lazy module took from its first use until it was enabled.
+     *
+     * @return an unmodifiable map of activation latencies in milliseconds, by module name
+     */
+    public Map<String, Long> getActivationLatencies() {
+        return Collections.unmodifiableMap(activationLatencies);
+    }
+
+    /**
+     * Activates lazy modules when an event they subscribed to arrives.
+     * Runs as an interceptor of the {@link EventBus}, before the event is queued, so the event is held for the module
+     * and its listeners receive it once they are registered.
+     */
+    private class LazyEventTrigger implements EventListener {
+        @Override
+        public void onEvent(@NotNull GenericEvent event) {
+            if (lazyEventTriggers.isEmpty()) {
+                return;
+            }
+            for (Map.Entry<String, Set<Class<?>>> entry : lazyEventTriggers.entrySet()) {
+                if (!isSubscribed(entry.getValue(), event)) {
+                    continue;
+                }
+                // The event is held by the event bus and delivered once the module is enabled
+                activateAsync(entry.getKey());
+            }
+        }
+
+        private boolean isSubscribed(Set<Class<?>> eventClasses, GenericEvent event) {
+            for (Class<?> eventClass : eventClasses) {
+                if (eventClass.isInstance(event)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Calls {@link MBModule#onDisable()} on all active modules, in reverse dependency order, drops their caches and closes their stores.
+     */
+    public void disableModules() {
+        for (MBModule module : getActiveModulesReversed()) {
+            try {
+                module.onDisable();
+            } catch (Exception e) {
+                logger.error("Failed to disable module {}", module.getModuleInfo().name(), e);
+            }
+            if (botEnvironment != null) {
+                botEnvironment.getCacheManager().dropCaches(module.getModuleInfo().name());
+                botEnvironment.getStorageManager().closeStores(module.getModuleInfo().name());
+            }
+        }
+    }
+
+    /**
+     * Calls {@link MBModule#postDisable()} on all active modules, in reverse dependency order.
+     */
+    public void postDisableModules() {
+        for (MBModule module : getActiveModulesReversed()) {
+            try {
+                module.postDisable();
+            } catch (Exception e) {
+                logger.error("Failed to post-disable module {}", module.getModuleInfo().name(), e);
+            }
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Returns all loaded modules in dependency order.
+     *
+     * @return an unmodifiable list of all loaded modules
+     */
+    public List<MBModule> getModules() {
+        List<MBModule> modules = new ArrayList<>();
+        for (List<MBModule> layer : layers) {
+            modules.addAll(layer);
+        }
+        return Collections.unmodifiableList(modules);
+    }
+
+    /**
+     * Returns the {@link ModuleInfo} of every active module and every lazy module that has not been activated yet,
+     * so requirements declared in {@code module.yml} can be applied before lazy modules are loaded.
+     *
+     * @return an unmodifiable list of the module information
+     */
+    public List<ModuleInfo> getModuleInfos() {
+        List<ModuleInfo> moduleInfos = new ArrayList<>();
+        for (MBModule module : getActiveModules()) {
+            moduleInfos.add(module.getModuleInfo());
+        }
+        for (ModuleDescriptor descriptor : lazyModules.values()) {
+            moduleInfos.add(descriptor.moduleInfo());
+        }
+        return Collections.unmodifiableList(moduleInfos);
+    }
+
+    /**
+     * Returns all modules that have not failed during a lifecycle phase, in dependency order.
+     *
+     * @return an unmodifiable list of all active modules
+     */
+    public List<MBModule> getActiveModules() {
+        List<MBModule> modules = new ArrayList<>();
+        for (List<MBModule> layer : layers) {
+            for (MBModule module : layer) {
+                if (!failedModules.contains(module)) {
+                    modules.add(module);
+                }
+            }
+        }
+        return Collections.unmodifiableList(modules);
+    }
+
+    private List<MBModule> getActiveModulesReversed() {
+        List<MBModule> modules = new ArrayList<>(getActiveModules());
+        Collections.reverse(modules);
+        return modules;
+    }
+
+    /**
+     * Runs a lifecycle phase on all active modules, layer by layer and priority group by priority group.
+     *
+     * @param phase the name of the phase, used for logging
+     * @param action the action to run for each module
+     * @return the names of all modules that completed the phase successfully
+     */
+    private List<String> runPhase(String phase, Consumer<MBModule> action) {
+        List<String> completed = new ArrayList<>();
+        for (List<MBModule> layer : layers) {
+            Map<StartUpPriority, List<MBModule>> priorityGroups = new TreeMap<>();
+            for (MBModule module : layer) {
+                if (failedModules.contains(module)) {
+                    continue;
+                }
+                if (hasFailedDependency(module)) {
+                    logger.error("Skipping {} of module {}: a dependency is not available.", phase, module.getModuleInfo().name());
+                    failedModules.add(module);
+                    continue;
+                }
+                priorityGroups.computeIfAbsent(module.getModuleInfo().priority(), key -> new ArrayList<>()).add(module);
+            }
+            for (List<MBModule> group : priorityGroups.values()) {
+                completed.addAll(runGroup(phase, group, action));
+            }
+        }
+        return completed;
+    }
+
+    private List<String> runGroup(String phase, List<MBModule> group, Consumer<MBModule> action) {
+        Map<MBModule, Future<?>> futures = new LinkedHashMap<>();
+        for (MBModule module : group) {
+            futures.put(module, executor.submit(() -> action.accept(module)));
+        }
+
+        List<String> completed = new ArrayList<>();
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        long start = System.nanoTime();
+        for (Map.Entry<MBModule, Future<?>> entry : futures.entrySet()) {
+            MBModule module = entry.getKey();
+            try {
+                long remaining = Math.max(0, timeoutNanos - (System.nanoTime() - start));
+                entry.getValue().get(remaining, TimeUnit.NANOSECONDS);
+                completed.add(module.getModuleInfo().name());
+            } catch (TimeoutException e) {
+                entry.getValue().cancel(true);
+                failedModules.add(module);
+                logger.error("Module {} did not finish {} within {} ms.", module.getModuleInfo().name(), phase, timeoutMillis);
+            } catch (ExecutionException e) {
+                failedModules.add(module);
+                logger.error("Failed to {} module {}", phase, module.getModuleInfo().name(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failedModules.add(module);
+                logger.error("Interrupted during {} of module {}", phase, module.getModuleInfo().name());
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * Checks whether any dependency of the given module is missing or has failed.
+     * Dependencies are matched against both the module name and the main class name.
+     *
+     * @param module the module to check
+     * @return {@code true} if a dependency is unavailable
+     */
+    private boolean hasFailedDependency(MBModule module) {
+        List<String> dependencies = module.getModuleInfo().dependencies();
+        if (dependencies == null || dependencies.isEmpty()) {
+            return false;
+        }
+        Set<String> available = new HashSet<>();
+        for (List<MBModule> layer : layers) {
+            for (MBModule candidate : layer) {
+                if (!failedModules.contains(candidate)) {
+                    available.add(candidate.getModuleInfo().name());
+                    available.add(candidate.getClass().getName());
+                }
+            }
+        }
+        return !available.containsAll(dependencies);
+    }
+}
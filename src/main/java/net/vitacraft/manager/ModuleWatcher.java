@@ -0,0 +1,114 @@
+package net.vitacraft.manager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the modules directory and loads, reloads or unloads modules when their JAR files change.
+ * <p>
+ * Copying a JAR file usually causes several file system events. Changes are therefore only applied once a
+ * JAR file has not changed for the debounce time, so a module is never loaded from a half-written file.
+ * </p>
+ */
+public class ModuleWatcher {
+    private static final Logger logger = LoggerFactory.getLogger("MoBot");
+    private static final long DEBOUNCE_MILLIS = 1000;
+
+    private final ModuleManager moduleManager;
+    private final Path modulesPath;
+    private final Map<Path, Long> pendingChanges = new HashMap<>();
+    private WatchService watchService;
+    private Thread thread;
+
+    /**
+     * Constructs a new {@link ModuleWatcher}.
+     *
+     * @param moduleManager the {@link ModuleManager} to apply the changes to
+     * @param modulesPath   the modules directory to watch
+     */
+    public ModuleWatcher(ModuleManager moduleManager, String modulesPath) {
+        this.moduleManager = moduleManager;
+        this.modulesPath = Path.of(modulesPath);
+    }
+
+    /**
+     * Starts watching the modules directory in a background thread.
+     */
+    public void start() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            modulesPath.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            logger.error("Failed to watch modules directory {}", modulesPath, e);
+            return;
+        }
+        thread = new Thread(this::watch, "MoBot-ModuleWatcher");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Watching {} for module changes.", modulesPath);
+    }
+
+    /**
+     * Stops watching the modules directory.
+     */
+    public void stop() {
+        if (thread != null) {
+            thread.interrupt();
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close module watcher", e);
+            }
+        }
+    }
+
+    private void watch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = pendingChanges.isEmpty()
+                        ? watchService.take()
+                        : watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.context() instanceof Path name && name.toString().endsWith(".jar")) {
+                            pendingChanges.put(modulesPath.resolve(name), System.currentTimeMillis());
+                        }
+                    }
+                    key.reset();
+                }
+                applySettledChanges();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void applySettledChanges() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Path, Long>> iterator = pendingChanges.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, Long> change = iterator.next();
+            if (now - change.getValue() < DEBOUNCE_MILLIS) {
+                continue;
+            }
+            iterator.remove();
+            File jarFile = change.getKey().toFile();
+            try {
+                moduleManager.syncJarFile(jarFile);
+            } catch (RuntimeException e) {
+                logger.error("Failed to apply changes of module JAR file {}", jarFile.getName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package net.vitacraft.manager;
+
+/**
+ * The {@code OverflowPolicy} enum defines what the {@link EventBus} does when the event queue of a module is full.
+ * <p>
+ * {@code DROP_OLDEST} discards the oldest queued event to make room for the new one.
+ * {@code DROP_NEWEST} discards the new event.
+ * {@code BLOCK} waits until the module has made room, which delays the delivery of events to all other modules.
+ * </p>
+ */
+public enum OverflowPolicy {
+    DROP_OLDEST,
+    DROP_NEWEST,
+    BLOCK
+}
@@ -0,0 +1,201 @@
+package net.vitacraft.manager;
+
+import com.sun.net.httpserver.HttpServer;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import net.vitacraft.api.metrics.InvocationMetrics;
+import net.vitacraft.api.metrics.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports the metrics of a {@link MetricsManager} in the Prometheus text format.
+ * <p>
+ * Besides the command and module metrics, the connection status, gateway ping and guild count of every shard of
+ * this process are exported, so the shards of all processes of a cluster can be monitored together.
+ * The metrics can be written to a file in a fixed interval, for example for the textfile collector of the
+ * node exporter, and served on {@code /metrics} by an HTTP server that only listens on the loopback address.
+ * </p>
+ */
+public class PrometheusExporter {
+    private static final Logger logger = LoggerFactory.getLogger("MoBot");
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private final MetricsManager metricsManager;
+    private final ShardManager shardManager;
+    private ScheduledExecutorService fileExecutor;
+    private HttpServer httpServer;
+
+    /**
+     * Constructs a new {@link PrometheusExporter}.
+     *
+     * @param metricsManager the {@link MetricsManager} to export
+     * @param shardManager   the {@link ShardManager} whose shards are exported, or {@code null} to export no shards
+     */
+    public PrometheusExporter(MetricsManager metricsManager, ShardManager shardManager) {
+        this.metricsManager = metricsManager;
+        this.shardManager = shardManager;
+    }
+
+    /**
+     * Starts writing the metrics to a file in a fixed interval.
+     * The file is replaced atomically, so readers never see a partially written file.
+     *
+     * @param file            the file to write to
+     * @param intervalSeconds the interval in seconds
+     */
+    public void startFileExport(Path file, long intervalSeconds) {
+        fileExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MoBot-Metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        fileExecutor.scheduleAtFixedRate(() -> writeFile(file), intervalSeconds, Math.max(1, intervalSeconds), TimeUnit.SECONDS);
+        logger.info("Writing metrics to {}", file);
+    }
+
+    private void writeFile(Path file) {
+        try {
+            Path absolute = file.toAbsolutePath();
+            Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+            Files.writeString(temp, export());
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to write metrics to {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Starts serving the metrics on {@code http://127.0.0.1:<port>/metrics}.
+     *
+     * @param port the port to listen on
+     */
+    public void startHttpServer(int port) {
+        try {
+            httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException e) {
+            logger.error("Failed to start metrics endpoint on port {}", port, e);
+            return;
+        }
+        httpServer.createContext("/metrics", exchange -> {
+            byte[] body = export().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        });
+        httpServer.start();
+        logger.info("Serving metrics on http://127.0.0.1:{}/metrics", port);
+    }
+
+    /**
+     * Stops the file export and the HTTP server.
+     */
+    public void stop() {
+        if (fileExecutor != null) {
+            fileExecutor.shutdownNow();
+        }
+        if (httpServer != null) {
+            httpServer.stop(0);
+        }
+    }
+
+    /**
+     * Renders all metrics in the Prometheus text format.
+     *
+     * @return the metrics in the Prometheus text format
+     */
+    public String export() {
+        StringBuilder builder = new StringBuilder();
+        append(builder, "command", "command", metricsManager.getAllCommandMetrics());
+        append(builder, "module", "module", metricsManager.getAllModuleMetrics());
+        append(builder, "module_activation", "module", metricsManager.getAllActivationMetrics());
+        if (shardManager != null) {
+            appendShards(builder, shardManager.getShards());
+        }
+        return builder.toString();
+    }
+
+    private static void appendShards(StringBuilder builder, List<JDA> shards) {
+        builder.append("# HELP mobot_shard_connected Whether the shard is connected to the gateway.\n");
+        builder.append("# TYPE mobot_shard_connected gauge\n");
+        for (JDA shard : shards) {
+            sample(builder, "mobot_shard_connected", "shard", shardId(shard), null, shard.getStatus() == JDA.Status.CONNECTED ? "1" : "0");
+        }
+        builder.append("# HELP mobot_shard_gateway_ping_seconds Time of the last heartbeat of the shard.\n");
+        builder.append("# TYPE mobot_shard_gateway_ping_seconds gauge\n");
+        for (JDA shard : shards) {
+            sample(builder, "mobot_shard_gateway_ping_seconds", "shard", shardId(shard), null, seconds(shard.getGatewayPing() * 1_000_000));
+        }
+        builder.append("# HELP mobot_shard_guilds Number of guilds of the shard.\n");
+        builder.append("# TYPE mobot_shard_guilds gauge\n");
+        for (JDA shard : shards) {
+            sample(builder, "mobot_shard_guilds", "shard", shardId(shard), null, Long.toString(shard.getGuildCache().size()));
+        }
+    }
+
+    private static String shardId(JDA shard) {
+        return Integer.toString(shard.getShardInfo().getShardId());
+    }
+
+    private static void append(StringBuilder builder, String name, String label, List<InvocationMetrics> metrics) {
+        String prefix = "mobot_" + name;
+        builder.append("# HELP ").append(prefix).append("_invocations_total Number of handled invocations.\n");
+        builder.append("# TYPE ").append(prefix).append("_invocations_total counter\n");
+        for (InvocationMetrics metric : metrics) {
+            sample(builder, prefix + "_invocations_total", label, metric.getName(), null, Long.toString(metric.getInvocations()));
+        }
+        builder.append("# HELP ").append(prefix).append("_errors_total Number of failed invocations.\n");
+        builder.append("# TYPE ").append(prefix).append("_errors_total counter\n");
+        for (InvocationMetrics metric : metrics) {
+            sample(builder, prefix + "_errors_total", label, metric.getName(), null, Long.toString(metric.getErrors()));
+        }
+        builder.append("# HELP ").append(prefix).append("_rejected_total Number of rejected invocations.\n");
+        builder.append("# TYPE ").append(prefix).append("_rejected_total counter\n");
+        for (InvocationMetrics metric : metrics) {
+            sample(builder, prefix + "_rejected_total", label, metric.getName(), null, Long.toString(metric.getRejected()));
+        }
+        builder.append("# HELP ").append(prefix).append("_latency_seconds Latency of handled invocations.\n");
+        builder.append("# TYPE ").append(prefix).append("_latency_seconds summary\n");
+        for (InvocationMetrics metric : metrics) {
+            LatencyHistogram latencies = metric.getLatencies();
+            for (double quantile : QUANTILES) {
+                sample(builder, prefix + "_latency_seconds", label, metric.getName(), Double.toString(quantile),
+                        seconds(latencies.getPercentile(quantile * 100)));
+            }
+            sample(builder, prefix + "_latency_seconds_sum", label, metric.getName(), null, seconds(latencies.getTotalNanos()));
+            sample(builder, prefix + "_latency_seconds_count", label, metric.getName(), null, Long.toString(latencies.getCount()));
+        }
+    }
+
+    private static void sample(StringBuilder builder, String metric, String label, String name, String quantile, String value) {
+        builder.append(metric).append('{').append(label).append("=\"").append(escape(name)).append('"');
+        if (quantile != null) {
+            builder.append(",quantile=\"").append(quantile).append('"');
+        }
+        builder.append("} ").append(value).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,63 @@
+package net.vitacraft.manager;
+
+import java.time.Duration;
+
+/**
+ * A rate limit of a slash command: at most {@code permits} invocations per {@code period} and {@link Scope}.
+ * <p>
+ * Invocations are spread evenly over the period, but up to {@code permits} invocations may be made in a burst
+ * after a period without any invocation.
+ * </p>
+ *
+ * @param permits the number of invocations allowed per period
+ * @param period  the period the permits are granted for
+ * @param scope   the {@link Scope} the limit applies to
+ */
+public record RateLimit(int permits, Duration period, Scope scope) {
+
+    /**
+     * The {@code Scope} enum defines who shares the permits of a {@link RateLimit}.
+     * <p>
+     * {@code USER} gives every user their own permits, {@code GUILD} shares the permits between all users of a guild,
+     * and {@code GLOBAL} shares them between everyone.
+     * </p>
+     */
+    public enum Scope {
+        USER,
+        GUILD,
+        GLOBAL
+    }
+
+    /**
+     * Constructs a new {@link RateLimit}.
+     *
+     * @throws IllegalArgumentException if permits or period are not positive
+     */
+    public RateLimit {
+        if (permits <= 0 || period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("A rate limit needs at least one permit and a positive period.");
+        }
+    }
+
+    /**
+     * Creates a {@link RateLimit} giving every user their own permits.
+     *
+     * @param permits the number of invocations allowed per period
+     * @param period  the period the permits are granted for
+     * @return the {@link RateLimit}
+     */
+    public static RateLimit perUser(int permits, Duration period) {
+        return new RateLimit(permits, period, Scope.USER);
+    }
+
+    /**
+     * Creates a {@link RateLimit} sharing the permits between all users of a guild.
+     *
+     * @param permits the number of invocations allowed per period
+     * @param period  the period the permits are granted for
+     * @return the {@link RateLimit}
+     */
+    public static RateLimit perGuild(int permits, Duration period) {
+        return new RateLimit(permits, period, Scope.GUILD);
+    }
+}
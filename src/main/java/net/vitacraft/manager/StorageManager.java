@@ -0,0 +1,107 @@
+package net.vitacraft.manager;
+
+import net.vitacraft.api.storage.KeyValueStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opens and tracks the {@link KeyValueStore}s of all modules.
+ * <p>
+ * The store {@code <name>} of a module is kept in {@code modules/<module>/data/<name>/}. A store is opened once and
+ * shared by every call asking for it, and all stores of a module are closed when the module is disabled, so their
+ * queued writes are committed before the module goes away. The durability and compaction settings are taken from
+ * the {@code storage} section of bot.yml.
+ * </p>
+ */
+public class StorageManager {
+    private static final Logger logger = LoggerFactory.getLogger("MoBot");
+
+    private final Path baseDirectory;
+    private final boolean fsync;
+    private final double compactGarbageRatio;
+    private final long compactMinBytes;
+    private final Map<String, Map<String, KeyValueStore>> stores = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new {@link StorageManager}.
+     *
+     * @param baseDirectory       the directory containing the directories of all modules
+     * @param fsync               whether writes are flushed to the disk before their future completes
+     * @param compactGarbageRatio the share of overwritten and deleted records in a log from which it is compacted
+     * @param compactMinBytes     the size in bytes a log must reach before it is compacted
+     */
+    public StorageManager(Path baseDirectory, boolean fsync, double compactGarbageRatio, long compactMinBytes) {
+        this.baseDirectory = baseDirectory;
+        this.fsync = fsync;
+        this.compactGarbageRatio = compactGarbageRatio;
+        this.compactMinBytes = compactMinBytes;
+    }
+
+    /**
+     * Returns a store of a module, opening it if it is not open yet.
+     *
+     * @param moduleName the name of the module owning the store
+     * @param name       the name of the store, which is used as a directory name
+     * @return the open {@link KeyValueStore}
+     * @throws IllegalArgumentException if the name is not a valid store name
+     * @throws UncheckedIOException     if the store cannot be opened
+     */
+    public KeyValueStore getStore(String moduleName, String name) {
+        if (name.isEmpty() || !name.matches("[A-Za-z0-9._-]+") || name.startsWith(".")) {
+            throw new IllegalArgumentException("Invalid store name: " + name);
+        }
+        return stores.computeIfAbsent(moduleName, key -> new ConcurrentHashMap<>()).computeIfAbsent(name, key -> {
+            Path directory = baseDirectory.resolve(moduleName).resolve("data").resolve(name);
+            try {
+                return new KeyValueStore(moduleName + "/" + name, directory, fsync, compactGarbageRatio, compactMinBytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open store " + name + " of module " + moduleName, e);
+            }
+        });
+    }
+
+    /**
+     * Commits the queued writes of all stores of a module and closes them.
+     *
+     * @param moduleName the name of the module
+     */
+    public void closeStores(String moduleName) {
+        Map<String, KeyValueStore> moduleStores = stores.remove(moduleName);
+        if (moduleStores == null) {
+            return;
+        }
+        for (KeyValueStore store : moduleStores.values()) {
+            store.close();
+        }
+        logger.debug("Closed {} stores of module {}", moduleStores.size(), moduleName);
+    }
+
+    /**
+     * Returns all open stores, sorted by name.
+     *
+     * @return the open {@link KeyValueStore}s of all modules
+     */
+    public List<KeyValueStore> getStores() {
+        List<KeyValueStore> all = new ArrayList<>();
+        for (Map<String, KeyValueStore> moduleStores : stores.values()) {
+            all.addAll(moduleStores.values());
+        }
+        all.sort(Comparator.comparing(KeyValueStore::getName));
+        return all;
+    }
+
+    /**
+     * Closes the stores of all modules.
+     */
+    public void shutdown() {
+        for (String moduleName : List.copyOf(stores.keySet())) {
+            closeStores(moduleName);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package net.vitacraft.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * State packed into the custom id of a button, select menu or modal.
+ * <p>
+ * A custom id consists of a namespace, which the {@code ComponentRouter} uses to find the handler, and an encoded state:
+ * {@code <namespace>:<state>}. The state is a version byte followed by the written values as variable-length integers
+ * and length-prefixed UTF-8 strings, encoded in URL-safe base64. Small numbers and Discord ids therefore take only a
+ * few characters, and handlers can read everything they need from the interaction itself instead of storing it on the server.
+ * </p>
+ * <p>
+ * Values are read in the order they were written. The version allows handlers to keep reading custom ids of
+ * components sent before the layout of their state changed.
+ * </p>
+ */
+public final class ComponentState {
+    /**
+     * The maximum length of a custom id allowed by Discord.
+     */
+    public static final int MAX_LENGTH = 100;
+    /**
+     * The character separating the namespace from the state.
+     */
+    public static final char SEPARATOR = ':';
+
+    private final String namespace;
+    private final byte[] data;
+    private int position;
+
+    private ComponentState(String namespace, byte[] data) {
+        this.namespace = namespace;
+        this.data = data;
+        this.position = 1;
+    }
+
+    /**
+     * Starts writing the custom id of a component.
+     *
+     * @param namespace the namespace of the handler, which must not contain {@value #SEPARATOR}
+     * @param version   the version of the state layout, between 0 and 255
+     * @return a {@link Writer} for the state
+     */
+    public static Writer write(String namespace, int version) {
+        if (namespace.isEmpty() || namespace.indexOf(SEPARATOR) >= 0) {
+            throw new IllegalArgumentException("Invalid component namespace: " + namespace);
+        }
+        if (version < 0 || version > 255) {
+            throw new IllegalArgumentException("The state version must be between 0 and 255.");
+        }
+        return new Writer(namespace, version);
+    }
+
+    /**
+     * Returns the namespace of a custom id.
+     *
+     * @param customId the custom id
+     * @return the namespace, which is the whole custom id if it contains no state
+     */
+    public static String namespaceOf(String customId) {
+        int separator = customId.indexOf(SEPARATOR);
+        return separator < 0 ? customId : customId.substring(0, separator);
+    }
+
+    /**
+     * Parses a custom id.
+     *
+     * @param customId the custom id
+     * @return the {@link ComponentState} of the custom id
+     * @throws IllegalArgumentException if the state is not validly encoded
+     */
+    public static ComponentState parse(String customId) {
+        int separator = customId.indexOf(SEPARATOR);
+        if (separator < 0) {
+            return new ComponentState(customId, new byte[1]);
+        }
+        byte[] data = Base64.getUrlDecoder().decode(customId.substring(separator + 1));
+        if (data.length == 0) {
+            throw new IllegalArgumentException("Missing state version in custom id " + customId);
+        }
+        return new ComponentState(customId.substring(0, separator), data);
+    }
+
+    /**
+     * Returns the namespace of the custom id.
+     *
+     * @return the namespace
+     */
+    public String getNamespace() {
+        return namespace;
+    }
+
+    /**
+     * Returns the version of the state layout.
+     *
+     * @return the version
+     */
+    public int getVersion() {
+        return data[0] & 0xFF;
+    }
+
+    /**
+     * Returns whether any values are left to read.
+     *
+     * @return {@code true} if there are unread values
+     */
+    public boolean hasRemaining() {
+        return position < data.length;
+    }
+
+    /**
+     * Reads the next value written with {@link Writer#writeLong(long)}.
+     *
+     * @return the value
+     * @throws IllegalArgumentException if no value is left
+     */
+    public long readLong() {
+        long zigzag = readUnsigned();
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    /**
+     * Reads the next value written with {@link Writer#writeInt(int)}.
+     *
+     * @return the value
+     * @throws IllegalArgumentException if no value is left
+     */
+    public int readInt() {
+        return (int) readLong();
+    }
+
+    /**
+     * Reads the next value written with {@link Writer#writeBoolean(boolean)}.
+     *
+     * @return the value
+     * @throws IllegalArgumentException if no value is left
+     */
+    public boolean readBoolean() {
+        return readUnsigned() != 0;
+    }
+
+    /**
+     * Reads the next value written with {@link Writer#writeString(String)}.
+     *
+     * @return the value
+     * @throws IllegalArgumentException if no value is left
+     */
+    public String readString() {
+        int length = (int) readUnsigned();
+        if (length < 0 || position + length > data.length) {
+            throw new IllegalArgumentException("Truncated component state");
+        }
+        String value = new String(data, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    private long readUnsigned() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("Truncated component state");
+            }
+            byte next = data[position++];
+            value |= (long) (next & 0x7F) << shift;
+            if (next >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed component state");
+    }
+
+    /**
+     * Writes the state of a custom id.
+     */
+    public static final class Writer {
+        private final String namespace;
+        private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+
+        private Writer(String namespace, int version) {
+            this.namespace = namespace;
+            data.write(version);
+        }
+
+        /**
+         * Writes a number, using fewer bytes the closer it is to 0.
+         *
+         * @param value the value
+         * @return this {@link Writer}
+         */
+        public Writer writeLong(long value) {
+            writeUnsigned((value << 1) ^ (value >> 63));
+            return this;
+        }
+
+        /**
+         * Writes a number, using fewer bytes the closer it is to 0.
+         *
+         * @param value the value
+         * @return this {@link Writer}
+         */
+        public Writer writeInt(int value) {
+            return writeLong(value);
+        }
+
+        /**
+         * Writes a boolean as a single byte.
+         *
+         * @param value the value
+         * @return this {@link Writer}
+         */
+        public Writer writeBoolean(boolean value) {
+            data.write(value ? 1 : 0);
+            return this;
+        }
+
+        /**
+         * Writes a string as its UTF-8 bytes, prefixed by their length.
+         *
+         * @param value the value
+         * @return this {@link Writer}
+         */
+        public Writer writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeUnsigned(bytes.length);
+            data.write(bytes, 0, bytes.length);
+            return this;
+        }
+
+        private void writeUnsigned(long value) {
+            while ((value & ~0x7FL) != 0) {
+                data.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            data.write((int) value);
+        }
+
+        /**
+         * Builds the custom id.
+         *
+         * @return the custom id
+         * @throws IllegalStateException if the custom id is longer than {@value ComponentState#MAX_LENGTH} characters
+         */
+        public String build() {
+            String customId = namespace + SEPARATOR + Base64.getUrlEncoder().withoutPadding().encodeToString(data.toByteArray());
+            if (customId.length() > MAX_LENGTH) {
+                throw new IllegalStateException("Custom id exceeds " + MAX_LENGTH + " characters: " + customId.length());
+            }
+            return customId;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package net.vitacraft.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * An immutable index of strings for case-insensitive prefix searches, for example for autocomplete suggestions.
+ * <p>
+ * The values are kept in a single array sorted by their lower-case form, so a search is a binary search for the
+ * first match followed by a scan over the matches. Lower-case keys are only stored separately for values that are
+ * not lower case already, which keeps the index close to the size of the values themselves.
+ * </p>
+ */
+public final class PrefixIndex {
+    private final String[] keys;
+    private final String[] values;
+
+    private PrefixIndex(String[] keys, String[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * Builds an index over the given values. Duplicate values are only indexed once.
+     *
+     * @param values the values to index
+     * @return the {@link PrefixIndex}
+     */
+    public static PrefixIndex of(Collection<String> values) {
+        String[] sorted = values.stream().distinct().toArray(String[]::new);
+        String[] keys = new String[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            String key = sorted[i].toLowerCase(Locale.ROOT);
+            keys[i] = key.equals(sorted[i]) ? sorted[i] : key;
+        }
+        Integer[] order = new Integer[sorted.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int compared = keys[a].compareTo(keys[b]);
+            return compared != 0 ? compared : sorted[a].compareTo(sorted[b]);
+        });
+        String[] sortedKeys = new String[order.length];
+        String[] sortedValues = new String[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedKeys[i] = keys[order[i]];
+            sortedValues[i] = sorted[order[i]];
+        }
+        return new PrefixIndex(sortedKeys, sortedValues);
+    }
+
+    /**
+     * Returns the values starting with the given prefix, ignoring case, in alphabetical order.
+     *
+     * @param prefix the prefix to search for
+     * @param limit  the maximum number of values to return
+     * @return the matching values
+     */
+    public List<String> search(String prefix, int limit) {
+        String key = prefix.toLowerCase(Locale.ROOT);
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle].compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        List<String> matches = new ArrayList<>(Math.min(limit, 32));
+        for (int i = low; i < keys.length && matches.size() < limit && keys[i].startsWith(key); i++) {
+            matches.add(values[i]);
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the number of indexed values.
+     *
+     * @return the number of indexed values
+     */
+    public int size() {
+        return values.length;
+    }
+}
@@ -0,0 +1,75 @@
+package net.vitacraft.api.classloader;
+
+import net.vitacraft.exceptions.CircularDependencyException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link ModuleSorter#sort(Map)} with the recursive depth-first sorter it replaced.
+ * <p>
+ * Run with {@code mvn -P benchmarks test-compile exec:exec -Djmh.args=ModuleSorterBenchmark}.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xss16m")
+@State(Scope.Benchmark)
+public class ModuleSorterBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int modules;
+
+    private Map<String, Set<String>> graph;
+
+    @Setup
+    public void setup() {
+        graph = ModuleSorterTest.randomDag(new Random(42), modules, 5);
+    }
+
+    @Benchmark
+    public ModuleSorter.SortResult kahn() {
+        return ModuleSorter.sort(graph);
+    }
+
+    @Benchmark
+    public List<String> recursive() throws CircularDependencyException {
+        return recursiveSort(graph);
+    }
+
+    /**
+     * The depth-first sorter {@link ModuleSorter} used before, kept here as the baseline.
+     */
+    static List<String> recursiveSort(Map<String, Set<String>> graph) throws CircularDependencyException {
+        Set<String> visited = new HashSet<>();
+        Set<String> recursionStack = new HashSet<>();
+        Stack<String> stack = new Stack<>();
+        for (String node : graph.keySet()) {
+            if (!visited.contains(node)) {
+                visit(node, visited, recursionStack, stack, graph);
+            }
+        }
+        List<String> sortedList = new ArrayList<>();
+        while (!stack.isEmpty()) {
+            sortedList.add(stack.pop());
+        }
+        return sortedList;
+    }
+
+    private static void visit(String node, Set<String> visited, Set<String> recursionStack, Stack<String> stack, Map<String, Set<String>> graph) throws CircularDependencyException {
+        visited.add(node);
+        recursionStack.add(node);
+        for (String neighbor : graph.get(node)) {
+            if (!visited.contains(neighbor)) {
+                visit(neighbor, visited, recursionStack, stack, graph);
+            } else if (recursionStack.contains(neighbor)) {
+                throw new CircularDependencyException("Circular dependency detected: " + node + " <-> " + neighbor);
+            }
+        }
+        recursionStack.remove(node);
+        stack.push(node);
+    }
+}
@@ -0,0 +1,205 @@
+package net.vitacraft.api.classloader;
+
+import net.vitacraft.exceptions.CircularDependencyException;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the properties of {@link ModuleSorter} on randomly generated dependency graphs.
+ * Every property is checked on several graphs, each generated from a fixed seed so failures can be reproduced.
+ */
+class ModuleSorterTest {
+    private static final int NODES = 10_000;
+    private static final long[] SEEDS = {1, 42, 1337, 20240601, 987654321};
+
+    /**
+     * Generates a random DAG in which every module only depends on modules with a lower index.
+     */
+    static Map<String, Set<String>> randomDag(Random random, int nodes, int maxDependencies) {
+        Map<String, Set<String>> graph = new LinkedHashMap<>();
+        for (int node = 0; node < nodes; node++) {
+            Set<String> dependencies = new HashSet<>();
+            if (node > 0) {
+                int count = random.nextInt(maxDependencies + 1);
+                for (int i = 0; i < count; i++) {
+                    // Prefer nearby modules, so the graph has deep dependency chains as well as wide layers
+                    int dependency = random.nextBoolean() ? random.nextInt(node) : Math.max(0, node - 1 - random.nextInt(Math.min(node, 20)));
+                    dependencies.add(name(dependency));
+                }
+            }
+            graph.put(name(node), dependencies);
+        }
+        return graph;
+    }
+
+    static String name(int node) {
+        return "module-" + node;
+    }
+
+    /**
+     * Asserts that every module of the layers appears once, only after all of its dependencies within the graph,
+     * and in the first layer that satisfies this.
+     */
+    private static Map<String, Integer> assertValidLayers(Map<String, Set<String>> graph, List<List<String>> layers) {
+        Map<String, Integer> layerOf = new HashMap<>();
+        for (int layer = 0; layer < layers.size(); layer++) {
+            assertFalse(layers.get(layer).isEmpty(), "Layer " + layer + " is empty");
+            for (String module : layers.get(layer)) {
+                assertNull(layerOf.put(module, layer), module + " appears more than once");
+            }
+        }
+        for (Map.Entry<String, Integer> entry : layerOf.entrySet()) {
+            int expected = 0;
+            for (String dependency : graph.get(entry.getKey())) {
+                if (graph.containsKey(dependency)) {
+                    Integer dependencyLayer = layerOf.get(dependency);
+                    assertNotNull(dependencyLayer, entry.getKey() + " is sorted but its dependency " + dependency + " is not");
+                    expected = Math.max(expected, dependencyLayer + 1);
+                }
+            }
+            assertEquals(expected, (int) entry.getValue(), entry.getKey() + " is not in the first layer after its dependencies");
+        }
+        return layerOf;
+    }
+
+    @Test
+    void sortsRandomDags() throws CircularDependencyException {
+        for (long seed : SEEDS) {
+            Map<String, Set<String>> graph = randomDag(new Random(seed), NODES, 5);
+            ModuleSorter.SortResult result = ModuleSorter.sort(graph);
+
+            assertFalse(result.hasCycles(), "seed " + seed);
+            assertTrue(result.blocked().isEmpty(), "seed " + seed);
+            assertTrue(result.missingDependencies().isEmpty(), "seed " + seed);
+            assertEquals(NODES, assertValidLayers(graph, result.layers()).size(), "seed " + seed);
+
+            List<String> order = ModuleSorter.topologicalSort(graph);
+            Map<String, Integer> position = new HashMap<>();
+            for (int i = 0; i < order.size(); i++) {
+                position.put(order.get(i), i);
+            }
+            assertEquals(NODES, position.size(), "seed " + seed);
+            for (Map.Entry<String, Set<String>> entry : graph.entrySet()) {
+                for (String dependency : entry.getValue()) {
+                    assertTrue(position.get(dependency) < position.get(entry.getKey()), entry.getKey() + " is ordered before " + dependency);
+                }
+            }
+        }
+    }
+
+    @Test
+    void sortsLongChainsWithoutRecursion() {
+        Map<String, Set<String>> graph = new HashMap<>();
+        graph.put(name(0), Set.of());
+        for (int node = 1; node < 100_000; node++) {
+            graph.put(name(node), Set.of(name(node - 1)));
+        }
+        ModuleSorter.SortResult result = ModuleSorter.sort(graph);
+        assertEquals(100_000, result.layers().size());
+        assertEquals(List.of(name(99_999)), result.layers().get(99_999));
+    }
+
+    @Test
+    void reportsEveryMissingDependency() {
+        for (long seed : SEEDS) {
+            Random random = new Random(seed);
+            Map<String, Set<String>> graph = randomDag(random, NODES, 5);
+            Map<String, Set<String>> expected = new HashMap<>();
+            for (int i = 0; i < 200; i++) {
+                String module = name(random.nextInt(NODES));
+                String missing = "missing-" + random.nextInt(50);
+                graph.get(module).add(missing);
+                expected.computeIfAbsent(module, key -> new HashSet<>()).add(missing);
+            }
+            ModuleSorter.SortResult result = ModuleSorter.sort(graph);
+
+            assertFalse(result.hasCycles(), "seed " + seed);
+            assertEquals(expected.keySet(), result.missingDependencies().keySet(), "seed " + seed);
+            expected.forEach((module, missing) -> assertEquals(missing, result.missingDependencies().get(module), module));
+            // Missing dependencies are ignored for the order
+            assertEquals(NODES, assertValidLayers(graph, result.layers()).size(), "seed " + seed);
+        }
+    }
+
+    @Test
+    void reportsCyclesAndTheModulesBlockedByThem() {
+        for (long seed : SEEDS) {
+            Random random = new Random(seed);
+            Map<String, Set<String>> graph = randomDag(random, NODES, 3);
+            int cycleSize = 2 + random.nextInt(5);
+            SortedSet<Integer> chosen = new TreeSet<>();
+            while (chosen.size() < cycleSize) {
+                chosen.add(random.nextInt(NODES));
+            }
+            List<Integer> members = new ArrayList<>(chosen);
+            // Chain the members and close the chain, a_1 -> a_n -> ... -> a_2 -> a_1
+            for (int i = 1; i < members.size(); i++) {
+                graph.get(name(members.get(i))).add(name(members.get(i - 1)));
+            }
+            graph.get(name(members.get(0))).add(name(members.get(members.size() - 1)));
+
+            ModuleSorter.SortResult result = ModuleSorter.sort(graph);
+
+            Set<String> expectedCycle = stronglyConnected(graph, name(members.get(0)));
+            Set<String> expectedBlocked = dependingOn(graph, expectedCycle);
+            expectedBlocked.removeAll(expectedCycle);
+
+            assertEquals(1, result.cycles().size(), "seed " + seed);
+            assertEquals(expectedCycle, new HashSet<>(result.cycles().get(0)), "seed " + seed);
+            assertEquals(expectedBlocked, new HashSet<>(result.blocked()), "seed " + seed);
+            assertEquals(NODES - expectedCycle.size() - expectedBlocked.size(), assertValidLayers(graph, result.layers()).size(), "seed " + seed);
+            assertThrows(CircularDependencyException.class, () -> ModuleSorter.topologicalSort(graph));
+        }
+    }
+
+    @Test
+    void reportsModulesDependingOnThemselves() {
+        Map<String, Set<String>> graph = randomDag(new Random(7), NODES, 3);
+        graph.get(name(500)).add(name(500));
+        ModuleSorter.SortResult result = ModuleSorter.sort(graph);
+
+        assertEquals(List.of(List.of(name(500))), result.cycles());
+        Set<String> expectedBlocked = dependingOn(graph, Set.of(name(500)));
+        expectedBlocked.remove(name(500));
+        assertEquals(expectedBlocked, new HashSet<>(result.blocked()));
+    }
+
+    /**
+     * Returns all modules that transitively depend on one of the given modules, including the modules themselves.
+     */
+    private static Set<String> dependingOn(Map<String, Set<String>> graph, Set<String> modules) {
+        Map<String, List<String>> dependents = new HashMap<>();
+        graph.forEach((module, dependencies) -> dependencies.forEach(dependency -> dependents.computeIfAbsent(dependency, key -> new ArrayList<>()).add(module)));
+        Set<String> reached = new HashSet<>(modules);
+        Deque<String> queue = new ArrayDeque<>(modules);
+        while (!queue.isEmpty()) {
+            for (String dependent : dependents.getOrDefault(queue.poll(), List.of())) {
+                if (reached.add(dependent)) {
+                    queue.add(dependent);
+                }
+            }
+        }
+        return reached;
+    }
+
+    /**
+     * Returns all modules in the same strongly connected component as the given module.
+     */
+    private static Set<String> stronglyConnected(Map<String, Set<String>> graph, String module) {
+        Set<String> dependencies = new HashSet<>(Set.of(module));
+        Deque<String> queue = new ArrayDeque<>(Set.of(module));
+        while (!queue.isEmpty()) {
+            for (String dependency : graph.getOrDefault(queue.poll(), Set.of())) {
+                if (graph.containsKey(dependency) && dependencies.add(dependency)) {
+                    queue.add(dependency);
+                }
+            }
+        }
+        Set<String> component = dependingOn(graph, Set.of(module));
+        component.retainAll(dependencies);
+        return component;
+    }
+}
@@ -0,0 +1,172 @@
+package net.vitacraft.api.classloader;
+
+import net.vitacraft.api.MBModule;
+import net.vitacraft.api.config.ConfigLoader;
+import org.openjdk.jmh.annotations.*;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+/**
+ * Measures the startup of 100 module JARs: scanning the JARs, sorting them into dependency layers and instantiating
+ * every module in its own class loader, as {@code ModuleManager.loadModules} does.
+ * <p>
+ * The modules are compiled and packaged when the benchmark starts, each depending on up to two of the modules before
+ * it. {@code coldStart} runs without a module index, as on the first start or after the index was deleted, and
+ * {@code warmStart} with the index written by the previous start, so unchanged JARs are not opened again.
+ * </p>
+ * <p>
+ * Run with {@code mvn -P benchmarks test-compile exec:exec -Djmh.args=ModuleStartupBenchmark}.
+ * </p>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ModuleStartupBenchmark {
+    private static final int MODULES = 100;
+    private static final String NAME_PREFIX = "StartupBenchmark";
+
+    private Path directory;
+    private Path modulesDirectory;
+    private ExecutorService executor;
+    private List<MBModule> modules = List.of();
+
+    @Setup
+    public void setup() throws IOException, URISyntaxException {
+        directory = Files.createTempDirectory("mobot-startup-benchmark");
+        modulesDirectory = Files.createDirectories(directory.resolve("modules"));
+        buildModules();
+        executor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Compiles all modules at once and packages every module into its own JAR file.
+     */
+    private void buildModules() throws IOException, URISyntaxException {
+        Path sources = Files.createDirectories(directory.resolve("src/startup"));
+        Path classes = Files.createDirectories(directory.resolve("classes"));
+        List<String> sourceFiles = new ArrayList<>();
+        for (int i = 0; i < MODULES; i++) {
+            Path source = sources.resolve(NAME_PREFIX + i + ".java");
+            Files.writeString(source, """
+                    package startup;
+
+                    public class %s%d extends net.vitacraft.api.MBModule {
+                        @Override
+                        public void onEnable() {
+                            getLogger().info("Enabled");
+                        }
+                    }
+                    """.formatted(NAME_PREFIX, i));
+            sourceFiles.add(source.toString());
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        String classPath = System.getProperty("java.class.path") + File.pathSeparator
+                + Path.of(MBModule.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        List<String> arguments = new ArrayList<>(List.of("-proc:none", "-d", classes.toString(), "-classpath", classPath));
+        arguments.addAll(sourceFiles);
+        if (compiler.run(null, null, null, arguments.toArray(String[]::new)) != 0) {
+            throw new IllegalStateException("Failed to compile the benchmark modules");
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < MODULES; i++) {
+            String name = NAME_PREFIX + i;
+            Set<String> dependencies = new TreeSet<>();
+            for (int dependency = 0; dependency < 2 && i > 0; dependency++) {
+                dependencies.add(NAME_PREFIX + random.nextInt(i));
+            }
+            try (JarOutputStream jar = new JarOutputStream(Files.newOutputStream(modulesDirectory.resolve(name + ".jar")))) {
+                write(jar, "startup/" + name + ".class", Files.readAllBytes(classes.resolve("startup/" + name + ".class")));
+                write(jar, "META-INF/services/" + MBModule.class.getName(), "startup." + name + "\n");
+                write(jar, "module.yml", "name: " + name + "\nversion: 1.0\nauthors: [benchmark]\ndependencies: ["
+                        + String.join(", ", dependencies) + "]\n");
+                write(jar, "config.yml", "enabled: true\n");
+            }
+        }
+    }
+
+    private static void write(JarOutputStream jar, String name, String content) throws IOException {
+        write(jar, name, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void write(JarOutputStream jar, String name, byte[] content) throws IOException {
+        jar.putNextEntry(new JarEntry(name));
+        jar.write(content);
+        jar.closeEntry();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        executor.shutdown();
+        deleteRecursively(directory);
+        // Modules write their configuration to modules/<name> in the working directory
+        for (int i = 0; i < MODULES; i++) {
+            deleteRecursively(Path.of("modules", NAME_PREFIX + i));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void awaitIndex() {
+        // The module index of the previous start is saved in the background
+        ConfigLoader.flushSaves(10_000);
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeModules() throws IOException {
+        for (MBModule module : modules) {
+            ((ModuleClassLoader) module.getClass().getClassLoader()).close();
+        }
+        modules = List.of();
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<MBModule> coldStart() throws IOException {
+        Files.deleteIfExists(modulesDirectory.resolve(".module-index.yml"));
+        return start();
+    }
+
+    @Benchmark
+    public List<MBModule> warmStart() {
+        return start();
+    }
+
+    private List<MBModule> start() {
+        List<MBModule> started = new ArrayList<>();
+        for (List<ModuleDescriptor> layer : ModuleLoader.resolveModules(modulesDirectory.toString(), executor)) {
+            started.addAll(ModuleLoader.instantiateLayer(layer, executor, 10_000));
+        }
+        if (started.size() != MODULES) {
+            throw new IllegalStateException("Started " + started.size() + " of " + MODULES + " modules");
+        }
+        modules = started;
+        return started;
+    }
+}
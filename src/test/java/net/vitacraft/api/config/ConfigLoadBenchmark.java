@@ -0,0 +1,121 @@
+package net.vitacraft.api.config;
+
+import org.openjdk.jmh.annotations.*;
+import org.simpleyaml.configuration.file.YamlConfiguration;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares loading a large configuration file from its YAML file with loading it from its binary snapshot,
+ * for a 10 MB and a 100 MB file of per-guild settings.
+ * <p>
+ * Every invocation loads the file with a new {@link ConfigLoader} and takes its {@link ConfigSnapshot}, as on startup.
+ * The heap the loaded configuration retains is printed after every iteration, measured after a full garbage
+ * collection while the loader is still referenced, since that is what stays in memory for the lifetime of the bot.
+ * </p>
+ * <p>
+ * Run with {@code mvn -P benchmarks test-compile exec:exec -Djmh.args=ConfigLoadBenchmark}.
+ * </p>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+@State(Scope.Benchmark)
+public class ConfigLoadBenchmark {
+    private static final String FILE_NAME = "guilds.yml";
+
+    @Param({"10", "100"})
+    public int megabytes;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private Path directory;
+    private long heapBefore;
+    private Object loaded;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("mobot-config-benchmark");
+        Path yamlFile = directory.resolve(FILE_NAME);
+        writeGuilds(yamlFile, megabytes * 1024L * 1024L);
+        ConfigSnapshotCodec.write(yamlFile, ConfigSnapshotCodec.Fingerprint.of(yamlFile),
+                ConfigSnapshot.of(YamlConfiguration.loadConfiguration(yamlFile.toFile())));
+    }
+
+    private static void writeGuilds(Path file, long size) throws IOException {
+        Random random = new Random(42);
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("guilds:\n");
+            long written = 8;
+            for (long guild = 100_000_000_000_000_000L; written < size; guild++) {
+                String entry = "  '" + guild + "':\n"
+                        + "    prefix: '!'\n"
+                        + "    welcome-channel: " + (guild + random.nextInt(1_000_000)) + "\n"
+                        + "    welcome-message: Welcome to the server, {user}!\n"
+                        + "    moderator-roles:\n"
+                        + "    - " + (guild + random.nextInt(1_000_000)) + "\n"
+                        + "    - " + (guild + random.nextInt(1_000_000)) + "\n"
+                        + "    xp-multiplier: " + random.nextInt(100) / 10.0 + "\n"
+                        + "    leveling: " + random.nextBoolean() + "\n";
+                writer.write(entry);
+                written += entry.length();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void measureHeapBefore() {
+        loaded = null;
+        heapBefore = usedHeapAfterGc();
+    }
+
+    @TearDown(Level.Iteration)
+    public void measureRetainedHeap() {
+        long retained = usedHeapAfterGc() - heapBefore;
+        System.out.printf("Retained heap: %.1f MB%n", retained / (1024.0 * 1024.0));
+        loaded = null;
+    }
+
+    private long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    @Benchmark
+    public ConfigSnapshot yaml() {
+        return load(false);
+    }
+
+    @Benchmark
+    public ConfigSnapshot binarySnapshot() {
+        return load(true);
+    }
+
+    private ConfigSnapshot load(boolean binarySnapshot) {
+        ConfigLoader configLoader = new ConfigLoader(ConfigLoadBenchmark.class, FILE_NAME, directory, binarySnapshot);
+        ConfigSnapshot snapshot = configLoader.snapshot();
+        loaded = configLoader;
+        return snapshot;
+    }
+}
@@ -0,0 +1,83 @@
+package net.vitacraft.api.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigSnapshotCodecTest {
+
+    @TempDir
+    Path directory;
+
+    private Path yamlFile() throws IOException {
+        Path yamlFile = directory.resolve("data.yml");
+        Files.writeString(yamlFile, "guilds: {}\n");
+        return yamlFile;
+    }
+
+    private static ConfigSnapshot snapshotOf(Map<String, Object> values) {
+        return new ConfigSnapshot(values, Map.of("", values.keySet()));
+    }
+
+    @Test
+    void keepsTheTypeOfEveryValue() throws IOException {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("string", "text");
+        values.put("int", 42);
+        values.put("long", 1L << 40);
+        values.put("double", 0.5);
+        values.put("boolean", true);
+        values.put("short", (short) 7);
+        values.put("byte", (byte) -3);
+        values.put("float", 1.25f);
+        values.put("big-integer", new BigInteger("123456789012345678901234567890"));
+        values.put("big-decimal", new BigDecimal("-12345678901234567890.125"));
+        values.put("date", new Date(1_700_000_000_000L));
+        values.put("character", 'x');
+        values.put("list", List.of(1, "two", List.of(3L)));
+        values.put("map", Map.of("key", new BigInteger("9")));
+        Path yamlFile = yamlFile();
+
+        ConfigSnapshotCodec.write(yamlFile, ConfigSnapshotCodec.Fingerprint.of(yamlFile), snapshotOf(values));
+        ConfigSnapshot read = ConfigSnapshotCodec.read(yamlFile);
+
+        assertNotNull(read);
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            Object value = read.get(entry.getKey());
+            assertEquals(entry.getValue(), value, entry.getKey());
+            if (!(value instanceof Collection<?> || value instanceof Map<?, ?>)) {
+                assertEquals(entry.getValue().getClass(), value.getClass(), entry.getKey());
+            }
+        }
+    }
+
+    @Test
+    void keepsBinaryValues() throws IOException {
+        Path yamlFile = yamlFile();
+
+        ConfigSnapshotCodec.write(yamlFile, ConfigSnapshotCodec.Fingerprint.of(yamlFile), snapshotOf(Map.of("binary", new byte[]{1, 2, 3})));
+
+        assertArrayEquals(new byte[]{1, 2, 3}, (byte[]) ConfigSnapshotCodec.read(yamlFile).get("binary"));
+    }
+
+    @Test
+    void deletesTheSnapshotOfUnsupportedValues() throws IOException {
+        Path yamlFile = yamlFile();
+        ConfigSnapshotCodec.Fingerprint fingerprint = ConfigSnapshotCodec.Fingerprint.of(yamlFile);
+        ConfigSnapshotCodec.write(yamlFile, fingerprint, snapshotOf(Map.of("id", 1)));
+
+        assertThrows(IOException.class,
+                () -> ConfigSnapshotCodec.write(yamlFile, fingerprint, snapshotOf(Map.of("id", List.of(UUID.randomUUID())))));
+
+        assertFalse(Files.exists(ConfigSnapshotCodec.snapshotFileOf(yamlFile)));
+        assertNull(ConfigSnapshotCodec.read(yamlFile));
+    }
+}
@@ -0,0 +1,73 @@
+package net.vitacraft.api.storage;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures how many durable writes per second a {@link KeyValueStore} completes when eight threads write to it
+ * concurrently, each waiting until its write is durable, with and without an {@code fsync} per commit.
+ * <p>
+ * The number of flushes per write is printed after every iteration, showing how many writes share one flush.
+ * </p>
+ * <p>
+ * Run with {@code mvn -P benchmarks test-compile exec:exec -Djmh.args=KeyValueStoreBenchmark}.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class KeyValueStoreBenchmark {
+    private static final int KEYS = 100_000;
+
+    @Param({"true", "false"})
+    public boolean fsync;
+
+    private Path directory;
+    private KeyValueStore store;
+    private byte[] value;
+    private long flushesBefore;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("mobot-store-benchmark");
+        store = new KeyValueStore("benchmark", directory, fsync, 0.5, 16L * 1024 * 1024);
+        value = new byte[100];
+        ThreadLocalRandom.current().nextBytes(value);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void countFlushesBefore() {
+        flushesBefore = store.getLogFlushes();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printFlushes() {
+        System.out.printf("Log flushes: %d%n", store.getLogFlushes() - flushesBefore);
+    }
+
+    @Benchmark
+    public void put() {
+        store.put("key-" + ThreadLocalRandom.current().nextInt(KEYS), value).join();
+    }
+}
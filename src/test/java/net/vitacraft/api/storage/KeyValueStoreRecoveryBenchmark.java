@@ -0,0 +1,124 @@
+package net.vitacraft.api.storage;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures how long opening a {@link KeyValueStore} takes after the process writing to it was killed with
+ * {@code kill -9}, for a store holding 100,000 and 1,000,000 records.
+ * <p>
+ * A separate JVM writes the records without {@code fsync}, reports once they are written and keeps writing until it
+ * is killed, so the store is left with an unclean index, a log written past its last checkpoint and usually a torn
+ * record at its end. Every invocation opens a fresh copy of the killed store, which replays the log since the
+ * checkpoint. As the index is checkpointed every 16 MB of log, the replayed part of the log is bounded by that, not by
+ * the number of records.
+ * </p>
+ * <p>
+ * Run with {@code mvn -P benchmarks test-compile exec:exec -Djmh.args=KeyValueStoreRecoveryBenchmark}.
+ * </p>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeyValueStoreRecoveryBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int records;
+
+    private Path killed;
+    private Path copy;
+    private KeyValueStore store;
+
+    /**
+     * Writes records to a store until the process is killed, printing a line once the given number of records was
+     * written.
+     */
+    public static final class Writer {
+
+        public static void main(String[] args) throws IOException {
+            Path directory = Path.of(args[0]);
+            int records = Integer.parseInt(args[1]);
+            Random random = new Random(42);
+            byte[] value = new byte[100];
+            random.nextBytes(value);
+            KeyValueStore store = new KeyValueStore("benchmark", directory, false, 0.5, Long.MAX_VALUE);
+            for (long written = 0; ; written++) {
+                CompletableFuture<Void> write = store.put("key-" + random.nextInt(records / 2), value);
+                if (written % 1000 == 0) {
+                    // Keeps the queue of the writer thread from growing without bound
+                    write.join();
+                }
+                if (written == records) {
+                    store.flush().join();
+                    System.out.println("written");
+                    System.out.flush();
+                }
+            }
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException, InterruptedException {
+        killed = Files.createTempDirectory("mobot-store-recovery-benchmark");
+        Process writer = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), Writer.class.getName(), killed.toString(), Integer.toString(records))
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(writer.getInputStream()))) {
+            if (!"written".equals(output.readLine())) {
+                throw new IllegalStateException("The writer process exited before writing " + records + " records");
+            }
+        } finally {
+            // Sends SIGKILL on Linux, so the store is neither flushed nor closed
+            writer.destroyForcibly().waitFor();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        delete(killed);
+    }
+
+    @Setup(Level.Invocation)
+    public void copyKilledStore() throws IOException {
+        copy = Files.createTempDirectory("mobot-store-recovery-copy");
+        try (Stream<Path> files = Files.list(killed)) {
+            for (Path file : files.toList()) {
+                Files.copy(file, copy.resolve(file.getFileName()));
+            }
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeStore() throws IOException {
+        store.close();
+        delete(copy);
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public KeyValueStore open() throws IOException {
+        store = new KeyValueStore("benchmark", copy, true, 0.5, Long.MAX_VALUE);
+        return store;
+    }
+}
@@ -0,0 +1,245 @@
+package net.vitacraft.api.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyValueStoreTest {
+    private static final int KEYS = 1000;
+
+    @TempDir
+    Path directory;
+
+    private KeyValueStore open(Path storeDirectory, boolean fsync) throws IOException {
+        // Compaction is disabled, so every store keeps writing to its first log
+        return open(storeDirectory, fsync, Long.MAX_VALUE);
+    }
+
+    private KeyValueStore open(Path storeDirectory, boolean fsync, long compactMinBytes) throws IOException {
+        return new KeyValueStore("test", storeDirectory, fsync, 0.5, compactMinBytes);
+    }
+
+    private static void copyDirectory(Path source, Path target) throws IOException {
+        Files.createDirectories(target);
+        try (Stream<Path> files = Files.list(source)) {
+            for (Path file : files.toList()) {
+                Files.copy(file, target.resolve(file.getFileName()));
+            }
+        }
+    }
+
+    @Test
+    void recoversCommittedWritesAfterACrash() throws IOException {
+        Path storeDirectory = directory.resolve("store");
+        KeyValueStore store = open(storeDirectory, true);
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (int i = 0; i < KEYS; i++) {
+            writes.add(store.putString("key-" + i, "value-" + i));
+        }
+        writes.add(store.putString("key-0", "overwritten"));
+        writes.add(store.delete("key-1"));
+        CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).join();
+
+        // Copying the files of the open store leaves them as a crash would, without a clean checkpoint
+        Path crashed = directory.resolve("crashed");
+        copyDirectory(storeDirectory, crashed);
+        store.close();
+
+        try (KeyValueStore recovered = open(crashed, true)) {
+            assertEquals(KEYS - 1, recovered.size());
+            assertEquals("overwritten", recovered.getString("key-0"));
+            assertNull(recovered.getString("key-1"));
+            for (int i = 2; i < KEYS; i++) {
+                assertEquals("value-" + i, recovered.getString("key-" + i));
+            }
+        }
+    }
+
+    @Test
+    void rebuildsAMissingIndexFromTheLog() throws IOException {
+        Path storeDirectory = directory.resolve("store");
+        try (KeyValueStore store = open(storeDirectory, false)) {
+            store.putString("guild", "settings").join();
+            store.putString("user", "profile").join();
+            store.delete("user").join();
+        }
+        Files.delete(storeDirectory.resolve("data-0.index"));
+
+        try (KeyValueStore recovered = open(storeDirectory, false)) {
+            assertEquals(1, recovered.size());
+            assertEquals("settings", recovered.getString("guild"));
+            assertNull(recovered.getString("user"));
+        }
+    }
+
+    @Test
+    void discardsATornRecordAtTheEndOfTheLog() throws IOException {
+        Path storeDirectory = directory.resolve("store");
+        try (KeyValueStore store = open(storeDirectory, true)) {
+            store.putString("first", "one").join();
+            store.putString("second", "two").join();
+        }
+        Path logFile = storeDirectory.resolve("data-0.log");
+        long intactLength = Files.size(logFile);
+
+        // Only part of the record reached the disk before the crash
+        ByteBuffer record = StoreLog.encode("third".getBytes(StandardCharsets.UTF_8), "three".getBytes(StandardCharsets.UTF_8));
+        byte[] torn = new byte[record.remaining() - 3];
+        record.get(torn);
+        Files.write(logFile, torn, StandardOpenOption.APPEND);
+
+        try (KeyValueStore recovered = open(storeDirectory, true)) {
+            assertEquals(intactLength, Files.size(logFile));
+            assertEquals("one", recovered.getString("first"));
+            assertEquals("two", recovered.getString("second"));
+            assertNull(recovered.getString("third"));
+            recovered.putString("third", "three").join();
+        }
+        try (KeyValueStore reopened = open(storeDirectory, true)) {
+            assertEquals(3, reopened.size());
+            assertEquals("three", reopened.getString("third"));
+        }
+    }
+
+    @Test
+    void batchesConcurrentWritesIntoOneFlush() throws Exception {
+        try (KeyValueStore store = open(directory.resolve("store"), true)) {
+            List<CompletableFuture<Void>> writes = new ArrayList<>();
+            List<Thread> threads = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                int offset = thread * KEYS;
+                threads.add(new Thread(() -> {
+                    List<CompletableFuture<Void>> own = new ArrayList<>();
+                    for (int i = 0; i < KEYS; i++) {
+                        own.add(store.putString("key-" + (offset + i), "value"));
+                    }
+                    synchronized (writes) {
+                        writes.addAll(own);
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).join();
+
+            assertEquals(4 * KEYS, store.size());
+            long flushes = store.getLogFlushes();
+            assertTrue(flushes > 0, "no flush");
+            assertTrue(flushes < writes.size() / 10, "expected batched flushes, got " + flushes + " for " + writes.size() + " writes");
+        }
+    }
+
+    @Test
+    void doesNotFlushCommitsWithoutFsync() throws IOException {
+        try (KeyValueStore store = open(directory.resolve("store"), false)) {
+            for (int i = 0; i < KEYS; i++) {
+                store.putString("key-" + i, "value").join();
+            }
+            assertEquals(0, store.getLogFlushes());
+        }
+    }
+
+    @Test
+    void rebuildsTheIndexWhenItPointsIntoATornRecord() throws IOException {
+        Path storeDirectory = directory.resolve("store");
+        KeyValueStore store = open(storeDirectory, true);
+        store.putString("first", "one").join();
+        long intactLength = store.getLogBytes();
+        store.putString("second", "two").join();
+
+        // The index of the crashed store already points to the second record, which is torn
+        Path crashed = directory.resolve("crashed");
+        copyDirectory(storeDirectory, crashed);
+        store.close();
+        try (FileChannel channel = FileChannel.open(crashed.resolve("data-0.log"), StandardOpenOption.WRITE)) {
+            channel.truncate(intactLength + 5);
+        }
+
+        try (KeyValueStore recovered = open(crashed, true)) {
+            assertEquals(intactLength, recovered.getLogBytes());
+            assertEquals(1, recovered.size());
+            assertEquals("one", recovered.getString("first"));
+            assertNull(recovered.getString("second"));
+        }
+    }
+
+    @Test
+    void compactsOverwrittenRecords() throws IOException {
+        Path storeDirectory = directory.resolve("store");
+        try (KeyValueStore store = open(storeDirectory, false, 1024)) {
+            long written = 0;
+            for (int round = 0; round < 10; round++) {
+                List<CompletableFuture<Void>> writes = new ArrayList<>();
+                for (int i = 0; i < KEYS; i++) {
+                    String key = "key-" + i;
+                    String value = "value-" + round + "-" + i;
+                    writes.add(store.putString(key, value));
+                    written += StoreLog.HEADER_BYTES + key.length() + value.length();
+                }
+                CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).join();
+            }
+            // Most records were overwritten, so the store compacted itself while it was written
+            assertTrue(store.getLogBytes() < written / 4, "log not compacted: " + store.getLogBytes() + " of " + written + " bytes");
+            assertFalse(Files.exists(storeDirectory.resolve("data-0.log")));
+
+            store.delete("key-0").join();
+            long uncompacted = store.getLogBytes();
+            store.compact().join();
+            assertTrue(store.getLogBytes() < uncompacted, "deleted key not compacted");
+            assertEquals(KEYS - 1, store.size());
+            assertNull(store.getString("key-0"));
+            assertEquals("value-9-1", store.getString("key-1"));
+            store.putString("key-0", "after").join();
+        }
+
+        try (KeyValueStore reopened = open(storeDirectory, false, 1024)) {
+            assertEquals(KEYS, reopened.size());
+            assertEquals("after", reopened.getString("key-0"));
+            for (int i = 1; i < KEYS; i++) {
+                assertEquals("value-9-" + i, reopened.getString("key-" + i));
+            }
+        }
+    }
+
+    @Test
+    void keepsTheOldLogWhenACompactionWasInterrupted() throws IOException {
+        Path storeDirectory = directory.resolve("store");
+        try (KeyValueStore store = open(storeDirectory, true)) {
+            store.putString("guild", "settings").join();
+            store.putString("guild", "updated").join();
+        }
+
+        // The compaction crashed while it was copying records, before its index was moved into place
+        Path newLog = storeDirectory.resolve("data-1.log");
+        Files.write(newLog, Arrays.copyOf(Files.readAllBytes(storeDirectory.resolve("data-0.log")), 7));
+        Files.write(storeDirectory.resolve("data-1.index.tmp"), new byte[128]);
+
+        try (KeyValueStore recovered = open(storeDirectory, true)) {
+            assertEquals("updated", recovered.getString("guild"));
+            assertEquals(1, recovered.size());
+            recovered.putString("user", "profile").join();
+        }
+        assertFalse(Files.exists(newLog));
+        assertFalse(Files.exists(storeDirectory.resolve("data-1.index.tmp")));
+        try (KeyValueStore reopened = open(storeDirectory, true)) {
+            assertEquals(2, reopened.size());
+            assertEquals("profile", reopened.getString("user"));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package net.vitacraft.manager;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares resolving the handler of a slash command interaction through the {@link CommandRoute} index with the
+ * case-insensitive scan over all registered command names the {@link CommandManager} used before.
+ * <p>
+ * Run with {@code mvn -P benchmarks test-compile exec:exec -Djmh.args=CommandLookupBenchmark}.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommandLookupBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int commandCount;
+
+    private final Map<String, Object> scanned = new HashMap<>();
+    private final Map<String, CommandRoute<Object>> routes = new ConcurrentHashMap<>();
+    private String[] names;
+    private int next;
+
+    @Setup
+    public void setup() {
+        names = new String[commandCount];
+        for (int index = 0; index < commandCount; index++) {
+            String name = "command" + index;
+            Object handler = new Object();
+            names[index] = name;
+            scanned.put("Command" + index, handler);
+            CommandRoute<Object> route = routes.computeIfAbsent(CommandRoute.normalize(name), key -> new CommandRoute<>());
+            route.setHandler(handler);
+            route.child("group").child("sub").setHandler(handler);
+        }
+    }
+
+    private String nextName() {
+        String name = names[next];
+        next = next + 1 == names.length ? 0 : next + 1;
+        return name;
+    }
+
+    @Benchmark
+    public Object scan() {
+        String name = nextName();
+        for (String command : scanned.keySet()) {
+            if (command.equalsIgnoreCase(name)) {
+                return scanned.get(command);
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public Object index() {
+        CommandRoute<Object> route = routes.get(nextName());
+        return route == null ? null : route.resolve(null, null);
+    }
+
+    @Benchmark
+    public Object indexSubcommand() {
+        CommandRoute<Object> route = routes.get(nextName());
+        return route == null ? null : route.resolve("group", "sub");
+    }
+}
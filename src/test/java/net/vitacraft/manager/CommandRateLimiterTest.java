@@ -0,0 +1,163 @@
+package net.vitacraft.manager;
+
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import net.dv8tion.jda.api.requests.restaction.interactions.ReplyCallbackAction;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import net.vitacraft.api.addons.SlashCommandAddon;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class CommandRateLimiterTest {
+
+    private static final RateLimit LIMIT = new RateLimit(5, Duration.ofHours(1), RateLimit.Scope.USER);
+    private static final String MESSAGE = "You are using this command too quickly. Try again in {seconds} seconds.";
+
+    @TempDir
+    Path directory;
+
+    private final MetricsManager metricsManager = new MetricsManager();
+    private CommandRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        rateLimiter = new CommandRateLimiter(MESSAGE, metricsManager);
+    }
+
+    /**
+     * Returns a mocked interaction of a user, recording its replies in the given list.
+     */
+    private static SlashCommandInteractionEvent interaction(String fullCommandName, List<String> replies) {
+        String[] path = fullCommandName.split(" ");
+        SlashCommandInteractionEvent event = mock(SlashCommandInteractionEvent.class);
+        User user = mock(User.class);
+        ReplyCallbackAction reply = mock(ReplyCallbackAction.class);
+        when(user.getIdLong()).thenReturn(1L);
+        when(event.getUser()).thenReturn(user);
+        when(event.getFullCommandName()).thenReturn(fullCommandName);
+        when(event.getName()).thenReturn(path[0]);
+        when(event.getSubcommandGroup()).thenReturn(path.length == 3 ? path[1] : null);
+        when(event.getSubcommandName()).thenReturn(path.length > 1 ? path[path.length - 1] : null);
+        when(event.reply(anyString())).thenAnswer(invocation -> {
+            replies.add(invocation.getArgument(0));
+            return reply;
+        });
+        when(reply.setEphemeral(anyBoolean())).thenReturn(reply);
+        return event;
+    }
+
+    @AfterEach
+    void tearDown() {
+        rateLimiter.shutdown();
+    }
+
+    @Test
+    void rejectsInvocationsOverTheLimit() {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, rateLimiter.tryAcquire("ping", 1, LIMIT));
+        }
+        assertTrue(rateLimiter.tryAcquire("ping", 1, LIMIT) > 0);
+        assertEquals(0, rateLimiter.tryAcquire("ping", 2, LIMIT));
+        assertEquals(1, rateLimiter.getRejected());
+    }
+
+    @Test
+    void keepsActiveBucketsWhenEvicting() {
+        rateLimiter.tryAcquire("ping", 1, LIMIT);
+        rateLimiter.evictIdleBuckets();
+        assertEquals(1, rateLimiter.getBucketCount());
+    }
+
+    @Test
+    @Timeout(60)
+    void neverGrantsMorePermitsWhileEvicting() throws InterruptedException {
+        for (int round = 0; round < 200; round++) {
+            String command = "round-" + round;
+            AtomicInteger granted = new AtomicInteger();
+            AtomicBoolean running = new AtomicBoolean(true);
+            CountDownLatch start = new CountDownLatch(1);
+            Thread evictor = new Thread(() -> {
+                while (running.get()) {
+                    rateLimiter.evictIdleBuckets();
+                }
+            });
+            List<Thread> workers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                workers.add(new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int attempt = 0; attempt < 100; attempt++) {
+                        if (rateLimiter.tryAcquire(command, 1, LIMIT) == 0) {
+                            granted.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            evictor.start();
+            workers.forEach(Thread::start);
+            start.countDown();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            running.set(false);
+            evictor.join();
+            assertEquals(LIMIT.permits(), granted.get());
+        }
+    }
+
+    @Test
+    void repliesToRejectedInteractionsWithTheWaitTime() {
+        RateLimit limit = new RateLimit(1, Duration.ofSeconds(30), RateLimit.Scope.USER);
+        List<String> replies = new ArrayList<>();
+        SlashCommandInteractionEvent event = interaction("ping", replies);
+
+        assertTrue(rateLimiter.tryAcquire(event, "ping", limit));
+        assertFalse(rateLimiter.tryAcquire(event, "ping", limit));
+
+        assertEquals(List.of("You are using this command too quickly. Try again in 30 seconds."), replies);
+        assertEquals(1, metricsManager.getCommandMetrics("ping").getRejected());
+    }
+
+    @Test
+    void appliesTheRateLimitOfASubcommandGroup() {
+        CommandExecutor executor = new CommandExecutor(CommandExecutionMode.INLINE, Map.of(), 1, 0, metricsManager);
+        CommandManager commandManager = new CommandManager(mock(ShardManager.class), CommandScope.GUILD, 0,
+                new CommandHashCache(directory.resolve("command-cache.yml").toString()), executor, rateLimiter);
+        SlashCommandAddon handler = mock(SlashCommandAddon.class);
+        commandManager.registerCommand(Commands.slash("config", "Configures the bot"), handler);
+        commandManager.setRateLimit("config channel", new RateLimit(1, Duration.ofHours(1), RateLimit.Scope.USER));
+        List<String> replies = new ArrayList<>();
+
+        commandManager.onSlashCommandInteraction(interaction("config channel set", replies));
+        commandManager.onSlashCommandInteraction(interaction("config channel reset", replies));
+        commandManager.onSlashCommandInteraction(interaction("config prefix set", replies));
+
+        verify(handler, times(2)).execute(any());
+        assertEquals(1, replies.size());
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,150 @@
+package net.vitacraft.manager;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import net.dv8tion.jda.api.requests.restaction.CommandListUpdateAction;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CommandSyncSchedulerTest {
+    private static final long DEBOUNCE_MILLIS = 50;
+
+    @TempDir
+    Path directory;
+
+    private final ShardManager shardManager = mock(ShardManager.class);
+    private final List<CommandData> commands = new CopyOnWriteArrayList<>(List.of(Commands.slash("ping", "Replies with pong")));
+    private CommandHashCache hashCache;
+
+    @BeforeEach
+    void setUp() {
+        hashCache = new CommandHashCache(directory.resolve("command-cache.yml").toString());
+    }
+
+    /**
+     * Returns a mocked guild whose command update action completes successfully when it is queued.
+     */
+    @SuppressWarnings("unchecked")
+    private CommandListUpdateAction mockGuild(long guildId) {
+        Guild guild = mock(Guild.class);
+        CommandListUpdateAction action = mock(CommandListUpdateAction.class);
+        when(shardManager.getGuildById(guildId)).thenReturn(guild);
+        when(guild.getName()).thenReturn("guild-" + guildId);
+        when(guild.updateCommands()).thenReturn(action);
+        when(action.addCommands(any(CommandData[].class))).thenReturn(action);
+        when(action.addCommands(anyCollection())).thenReturn(action);
+        doAnswer(invocation -> {
+            ((Consumer<Object>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(action).queue(any(), any());
+        return action;
+    }
+
+    private static void awaitRequests(CommandSyncScheduler scheduler, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (scheduler.getRequestsSent() + scheduler.getRequestsSkipped() < expected) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for " + expected + " sync requests");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void mergesRequestsWithinTheDebounceWindow() throws InterruptedException {
+        CommandListUpdateAction first = mockGuild(1);
+        CommandListUpdateAction second = mockGuild(2);
+        CommandSyncScheduler scheduler = new CommandSyncScheduler(shardManager, CommandScope.GUILD, DEBOUNCE_MILLIS, () -> commands, hashCache);
+
+        for (int i = 0; i < 100; i++) {
+            scheduler.requestFullSync(Set.of(1L, 2L));
+            scheduler.requestGuildSync(1);
+        }
+        awaitRequests(scheduler, 2);
+        Thread.sleep(DEBOUNCE_MILLIS * 3);
+
+        verify(first, times(1)).queue(any(), any());
+        verify(second, times(1)).queue(any(), any());
+        assertEquals(2, scheduler.getRequestsSent());
+    }
+
+    @Test
+    void skipsGuildsWhoseCommandsDidNotChange() throws InterruptedException {
+        CommandListUpdateAction action = mockGuild(1);
+        CommandSyncScheduler scheduler = new CommandSyncScheduler(shardManager, CommandScope.GUILD, DEBOUNCE_MILLIS, () -> commands, hashCache);
+
+        scheduler.requestGuildSync(1);
+        awaitRequests(scheduler, 1);
+        scheduler.requestGuildSync(1);
+        awaitRequests(scheduler, 2);
+        verify(action, times(1)).queue(any(), any());
+        assertEquals(1, scheduler.getRequestsSkipped());
+
+        commands.add(Commands.slash("pong", "Replies with ping"));
+        scheduler.requestGuildSync(1);
+        awaitRequests(scheduler, 3);
+        verify(action, times(2)).queue(any(), any());
+    }
+
+    @Test
+    void keepsRequestsMadeWhileAFlushIsRunning() throws InterruptedException {
+        CommandListUpdateAction blocking = mockGuild(1);
+        CommandListUpdateAction late = mockGuild(2);
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Hold the flush after it took the pending guilds, so the next request arrives while it is still running
+        doAnswer(invocation -> {
+            flushing.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return null;
+        }).when(blocking).queue(any(), any());
+        CommandSyncScheduler scheduler = new CommandSyncScheduler(shardManager, CommandScope.GUILD, DEBOUNCE_MILLIS, () -> commands, hashCache);
+
+        scheduler.requestGuildSync(1);
+        assertTrue(flushing.await(5, TimeUnit.SECONDS));
+        scheduler.requestGuildSync(2);
+        release.countDown();
+
+        awaitRequests(scheduler, 2);
+        verify(late, times(1)).queue(any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void keepsTheHashOfTheLatestUpdateWhenUpdatesCompleteOutOfOrder() throws InterruptedException {
+        CommandListUpdateAction action = mockGuild(1);
+        List<Consumer<Object>> completions = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            completions.add(invocation.getArgument(0));
+            return null;
+        }).when(action).queue(any(), any());
+        CommandSyncScheduler scheduler = new CommandSyncScheduler(shardManager, CommandScope.GUILD, DEBOUNCE_MILLIS, () -> commands, hashCache);
+
+        scheduler.requestGuildSync(1);
+        awaitRequests(scheduler, 1);
+        commands.add(Commands.slash("pong", "Replies with ping"));
+        String latestHash = CommandSyncScheduler.hash(new ArrayList<>(commands));
+        scheduler.requestGuildSync(1);
+        awaitRequests(scheduler, 2);
+
+        // The later update completes first
+        assertEquals(2, completions.size());
+        completions.get(1).accept(null);
+        completions.get(0).accept(null);
+        assertEquals(latestHash, hashCache.getGuildHash(1));
+    }
+}
@@ -0,0 +1,90 @@
+package net.vitacraft.manager;
+
+import net.dv8tion.jda.api.events.interaction.ModalInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+import net.vitacraft.api.addons.ButtonAddon;
+import net.vitacraft.api.addons.ModalAddon;
+import net.vitacraft.utils.ComponentState;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ComponentRouterTest {
+    private final ComponentRouter router = new ComponentRouter(
+            new CommandExecutor(CommandExecutionMode.INLINE, Map.of(), 1, 0, new MetricsManager()));
+
+    private static ButtonInteractionEvent click(String namespace) {
+        ButtonInteractionEvent event = mock(ButtonInteractionEvent.class);
+        when(event.getComponentId()).thenReturn(ComponentState.write(namespace, 1).build());
+        return event;
+    }
+
+    private static ModalInteractionEvent submit(String namespace) {
+        ModalInteractionEvent event = mock(ModalInteractionEvent.class);
+        when(event.getModalId()).thenReturn(ComponentState.write(namespace, 1).build());
+        return event;
+    }
+
+    @Test
+    void rejectsNamespacesOfOtherModules() {
+        ButtonAddon owner = mock(ButtonAddon.class);
+        router.registerButton("polls", "vote", owner);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> router.registerButton("giveaways", "vote", mock(ButtonAddon.class)));
+        assertTrue(exception.getMessage().contains("polls"), exception.getMessage());
+
+        router.onButtonInteraction(click("vote"));
+        verify(owner).execute(any(), any());
+    }
+
+    @Test
+    void letsAModuleReplaceItsOwnHandler() {
+        ButtonAddon first = mock(ButtonAddon.class);
+        ButtonAddon second = mock(ButtonAddon.class);
+        router.registerButton("polls", "vote", first);
+        router.registerButton("polls", "vote", second);
+
+        router.onButtonInteraction(click("vote"));
+        verifyNoInteractions(first);
+        verify(second).execute(any(), any());
+    }
+
+    @Test
+    void unregistersOnlyTheHandlersOfTheModule() {
+        ButtonAddon button = mock(ButtonAddon.class);
+        ModalAddon modal = mock(ModalAddon.class);
+        router.registerButton("polls", "vote", button);
+        router.registerModal("giveaways", "vote", modal);
+
+        router.unregister("giveaways", "vote");
+        router.onButtonInteraction(click("vote"));
+        router.onModalInteraction(submit("vote"));
+        verify(button).execute(any(), any());
+        verifyNoInteractions(modal);
+
+        router.unregister("polls", "vote");
+        router.onButtonInteraction(click("vote"));
+        verifyNoMoreInteractions(button);
+    }
+
+    @Test
+    void runsHandlersOffTheEventThread() throws Exception {
+        CommandExecutor executor = new CommandExecutor(CommandExecutionMode.VIRTUAL, Map.of(), 1, 0, new MetricsManager());
+        ComponentRouter virtualRouter = new ComponentRouter(executor);
+        CompletableFuture<Thread> handlerThread = new CompletableFuture<>();
+        virtualRouter.registerButton("polls", "vote", (event, state) -> handlerThread.complete(Thread.currentThread()));
+
+        virtualRouter.onButtonInteraction(click("vote"));
+
+        assertNotSame(Thread.currentThread(), handlerThread.get(5, TimeUnit.SECONDS));
+        assertTrue(handlerThread.get().isVirtual());
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,112 @@
+package net.vitacraft.manager;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.events.ExceptionEvent;
+import net.dv8tion.jda.api.events.GatewayPingEvent;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.StatusChangeEvent;
+import net.dv8tion.jda.api.events.session.ShutdownEvent;
+import net.dv8tion.jda.api.hooks.InterfacedEventManager;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measures how many events per second JDA's {@link InterfacedEventManager} and the {@link IndexedEventManager} can
+ * dispatch to a growing number of listeners, of which only every fourth handles the dispatched event.
+ * <p>
+ * Run with {@code mvn -P benchmarks test-compile exec:exec -Djmh.args=EventDispatchBenchmark}.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventDispatchBenchmark {
+
+    @Param({"10", "50", "100", "1000"})
+    public int listeners;
+
+    private final InterfacedEventManager interfaced = new InterfacedEventManager();
+    private final IndexedEventManager indexed = new IndexedEventManager();
+    private final ListenerIndex listenerIndex = new ListenerIndex();
+    private GenericEvent event;
+
+    @Setup
+    public void setup() {
+        JDA jda = mock(JDA.class);
+        event = new GatewayPingEvent(jda, 42);
+        for (int index = 0; index < listeners; index++) {
+            Object listener = switch (index % 4) {
+                case 0 -> new PingListener();
+                case 1 -> new StatusListener();
+                case 2 -> new ShutdownListener();
+                default -> new ExceptionListener();
+            };
+            interfaced.register(listener);
+            indexed.register(listener);
+            listenerIndex.register(listener);
+        }
+        // Resolve the handlers of the other events as well, as a running bot would have
+        listenerIndex.handles(StatusChangeEvent.class);
+        listenerIndex.handles(ShutdownEvent.class);
+        listenerIndex.handles(ExceptionEvent.class);
+    }
+
+    @Benchmark
+    public void interfacedEventManager() {
+        interfaced.handle(event);
+    }
+
+    @Benchmark
+    public void indexedEventManager() {
+        indexed.handle(event);
+    }
+
+    @Benchmark
+    public boolean listenerIndexLookup() {
+        return listenerIndex.handles(event.getClass());
+    }
+
+    public static class PingListener extends ListenerAdapter {
+        public long handled;
+
+        @Override
+        public void onGatewayPing(@NotNull GatewayPingEvent event) {
+            handled++;
+        }
+    }
+
+    public static class StatusListener extends ListenerAdapter {
+        public long handled;
+
+        @Override
+        public void onStatusChange(@NotNull StatusChangeEvent event) {
+            handled++;
+        }
+    }
+
+    public static class ShutdownListener extends ListenerAdapter {
+        public long handled;
+
+        @Override
+        public void onShutdown(@NotNull ShutdownEvent event) {
+            handled++;
+        }
+    }
+
+    public static class ExceptionListener extends ListenerAdapter {
+        public long handled;
+
+        @Override
+        public void onException(@NotNull ExceptionEvent event) {
+            handled++;
+        }
+    }
+}
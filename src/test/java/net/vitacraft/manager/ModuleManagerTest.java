@@ -0,0 +1,178 @@
+package net.vitacraft.manager;
+
+import net.vitacraft.api.BotEnvironment;
+import net.vitacraft.api.MBModule;
+import net.vitacraft.api.addons.AutoCompleteAddon;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks that unloading a module, or failing to enable it, releases every reference to it, so its class loader
+ * and all of its classes can be garbage collected.
+ */
+class ModuleManagerTest {
+
+    @TempDir
+    Path directory;
+
+    private final BotEnvironment botEnvironment = mock(BotEnvironment.class);
+    private final CommandManager commandManager = mock(CommandManager.class);
+    private final List<String> moduleNames = new ArrayList<>();
+    private ModuleManager moduleManager;
+
+    @BeforeEach
+    void setUp() {
+        when(botEnvironment.getCommandManager()).thenReturn(commandManager);
+        when(botEnvironment.getEventBus()).thenReturn(mock(EventBus.class));
+        when(botEnvironment.getComponentRouter()).thenReturn(mock(ComponentRouter.class));
+        when(botEnvironment.getCacheManager()).thenReturn(mock(CacheManager.class));
+        when(botEnvironment.getStorageManager()).thenReturn(mock(StorageManager.class));
+        moduleManager = new ModuleManager(2, 5000);
+        moduleManager.enableModules(botEnvironment);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        moduleManager.postDisableModules();
+        // Modules write their configuration to modules/<name> in the working directory
+        for (String name : moduleNames) {
+            deleteRecursively(Path.of("modules", name));
+        }
+    }
+
+    @Test
+    void unloadReleasesTheModule() throws Exception {
+        File jarFile = buildModule("GcUnload", false, false);
+        assertTrue(moduleManager.loadModule(jarFile));
+        WeakReference<ClassLoader> classLoader = registeredClassLoader();
+
+        assertTrue(moduleManager.unloadModule("GcUnload"));
+        verify(commandManager).unregisterAutoComplete("gcunload", "value");
+        assertCollected(classLoader);
+    }
+
+    @Test
+    void failedEnableReleasesTheModule() throws Exception {
+        File jarFile = buildModule("GcFailing", false, true);
+        assertFalse(moduleManager.loadModule(jarFile));
+        verify(commandManager).unregisterAutoComplete("gcfailing", "value");
+        assertNull(moduleManager.findModule("GcFailing"));
+        WeakReference<ClassLoader> classLoader = registeredClassLoader();
+
+        assertCollected(classLoader);
+    }
+
+    @Test
+    void failedLazyActivationReleasesTheModule() throws Exception {
+        File jarFile = buildModule("GcLazy", true, true);
+        assertTrue(moduleManager.loadModule(jarFile));
+        assertNull(moduleManager.activateAsync("gctest.GcLazy").get(10, TimeUnit.SECONDS));
+        verify(commandManager).unregisterAutoComplete("gclazy", "value");
+        assertTrue(moduleManager.getModules().isEmpty());
+        WeakReference<ClassLoader> classLoader = registeredClassLoader();
+
+        assertCollected(classLoader);
+    }
+
+    /**
+     * Returns a weak reference to the class loader of the autocomplete handler the module registered,
+     * and forgets the recorded invocations so the mock does not keep the handler alive.
+     */
+    private WeakReference<ClassLoader> registeredClassLoader() {
+        ArgumentCaptor<AutoCompleteAddon> addon = ArgumentCaptor.forClass(AutoCompleteAddon.class);
+        verify(commandManager).registerAutoComplete(any(), eq("value"), addon.capture());
+        WeakReference<ClassLoader> classLoader = new WeakReference<>(addon.getValue().getClass().getClassLoader());
+        assertNotSame(getClass().getClassLoader(), classLoader.get());
+        clearInvocations(commandManager);
+        return classLoader;
+    }
+
+    private static void assertCollected(WeakReference<ClassLoader> classLoader) throws InterruptedException {
+        for (int attempt = 0; attempt < 50 && classLoader.get() != null; attempt++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull(classLoader.get(), "The class loader of the module was not garbage collected");
+    }
+
+    /**
+     * Compiles a module registering an autocomplete handler in {@code onEnable()}, and packages it into a JAR file.
+     */
+    private File buildModule(String name, boolean lazy, boolean failOnEnable) throws Exception {
+        moduleNames.add(name);
+        Path sources = Files.createDirectories(directory.resolve(name + "-src/gctest"));
+        Path classes = Files.createDirectories(directory.resolve(name + "-classes"));
+        Path source = sources.resolve(name + ".java");
+        Files.writeString(source, """
+                package gctest;
+
+                public class %s extends net.vitacraft.api.MBModule {
+                    @Override
+                    public void onEnable() {
+                        registerAutoComplete("%s", "value", event -> {});
+                        if (%b) {
+                            throw new IllegalStateException("Failing on purpose");
+                        }
+                    }
+                }
+                """.formatted(name, name.toLowerCase(), failOnEnable));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        String classPath = System.getProperty("java.class.path") + File.pathSeparator
+                + Path.of(MBModule.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        assertEquals(0, compiler.run(null, null, null, "-d", classes.toString(), "-classpath", classPath, source.toString()));
+
+        File jarFile = directory.resolve(name + ".jar").toFile();
+        try (JarOutputStream jar = new JarOutputStream(Files.newOutputStream(jarFile.toPath()))) {
+            try (Stream<Path> files = Files.walk(classes)) {
+                for (Path file : files.filter(Files::isRegularFile).toList()) {
+                    write(jar, classes.relativize(file).toString().replace(File.separatorChar, '/'), Files.readAllBytes(file));
+                }
+            }
+            write(jar, "META-INF/services/" + MBModule.class.getName(), ("gctest." + name + "\n").getBytes(StandardCharsets.UTF_8));
+            write(jar, "module.yml", ("name: " + name + "\nversion: 1.0\nauthors: [test]\nlazy: " + lazy + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        return jarFile;
+    }
+
+    private static void write(JarOutputStream jar, String name, byte[] content) throws IOException {
+        jar.putNextEntry(new JarEntry(name));
+        jar.write(content);
+        jar.closeEntry();
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
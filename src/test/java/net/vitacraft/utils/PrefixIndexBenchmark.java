@@ -0,0 +1,86 @@
+package net.vitacraft.utils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares answering an autocomplete interaction from a {@link PrefixIndex} with filtering the list of all values,
+ * as an autocomplete handler without an index would.
+ * <p>
+ * Run with {@code mvn -P benchmarks test-compile exec:exec -Djmh.args=PrefixIndexBenchmark}.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrefixIndexBenchmark {
+    // Discord shows at most 25 autocomplete choices
+    private static final int LIMIT = 25;
+
+    @Param({"1000", "100000", "1000000"})
+    public int valueCount;
+
+    private List<String> values;
+    private PrefixIndex index;
+    private String[] prefixes;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        values = new ArrayList<>(valueCount);
+        for (int i = 0; i < valueCount; i++) {
+            values.add(randomValue(random));
+        }
+        index = PrefixIndex.of(values);
+        prefixes = new String[1024];
+        for (int i = 0; i < prefixes.length; i++) {
+            String value = values.get(random.nextInt(valueCount));
+            prefixes[i] = value.substring(0, 1 + random.nextInt(Math.min(3, value.length())));
+        }
+    }
+
+    private static String randomValue(Random random) {
+        int length = 4 + random.nextInt(12);
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            char letter = (char) ('a' + random.nextInt(26));
+            builder.append(random.nextInt(8) == 0 ? Character.toUpperCase(letter) : letter);
+        }
+        return builder.toString();
+    }
+
+    private String nextPrefix() {
+        String prefix = prefixes[next];
+        next = (next + 1) & (prefixes.length - 1);
+        return prefix;
+    }
+
+    @Benchmark
+    public List<String> scan() {
+        String prefix = nextPrefix().toLowerCase(Locale.ROOT);
+        List<String> matches = new ArrayList<>();
+        for (String value : values) {
+            if (value.toLowerCase(Locale.ROOT).startsWith(prefix)) {
+                matches.add(value);
+                if (matches.size() == LIMIT) {
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public List<String> index() {
+        return index.search(nextPrefix(), LIMIT);
+    }
+}